@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures a single tick of a generator depending on the number of ongoing flows.
+ *
+ * The rate is chosen so the flow table is filled up to the maximum flow count. Run with {@code -prof gc} to see the
+ * allocation per tick.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FlowGeneratorBenchmark {
+    private static final Instant PIT = Instant.ofEpochMilli(1500_000_000_000L);
+    private static final long TICK_MS = 250;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int maxFlowCount;
+
+    private FlowGenerator generator;
+    private FlowReportBatch batch;
+    private Instant now;
+
+    @Setup
+    public void setup() {
+        this.generator = FlowGenerator.builder()
+                .withMaxFlowCount(this.maxFlowCount)
+                .withBytesPerSecond(this.maxFlowCount * 100_000L)
+                .withMinFlowDuration(Duration.ofSeconds(10))
+                .withMaxFlowDuration(Duration.ofSeconds(60))
+                .withActiveTimeout(Duration.ofSeconds(10))
+                .build(PIT, new Random(42L));
+        this.batch = new FlowReportBatch();
+        this.now = PIT;
+
+        // let the flow table fill up before measuring
+        for (int i = 0; i < 1000; i++) {
+            this.tick();
+        }
+    }
+
+    @Benchmark
+    public int tick() {
+        this.now = this.now.plusMillis(TICK_MS);
+        this.batch.reset(null);
+        this.generator.tick(this.now, this.batch);
+        return this.batch.size();
+    }
+
+    @Benchmark
+    public void tickCollection(final Blackhole blackhole) {
+        this.now = this.now.plusMillis(TICK_MS);
+        blackhole.consume(this.generator.tick(this.now));
+    }
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures a non-realtime simulation end to end with a handler discarding all reports.
+ *
+ * Every invocation runs a fresh simulation for a fixed number of ticks. The {@code reports} and {@code bytes}
+ * counters give the reports and bytes generated per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SimulationBenchmark {
+    private static final Instant PIT = Instant.ofEpochMilli(1500_000_000_000L);
+    private static final int TICKS = 1000;
+
+    @Param({"1", "10", "100"})
+    public int exporters;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long reports;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.reports = 0;
+            this.bytes = 0;
+        }
+    }
+
+    private Simulation.Builder builder;
+
+    @Setup
+    public void setup() {
+        this.builder = Simulation.builder((BatchHandler) batch -> {})
+                .withSeed(42L)
+                .withRealtime(false)
+                .withStartTime(PIT)
+                .withTickMs(Duration.ofMillis(250))
+                .withParallelism(this.parallelism);
+
+        for (int i = 0; i < this.exporters; i++) {
+            this.builder.withExporters(Exporter.builder()
+                    .withNodeId(i)
+                    .withForeignSource("exporters")
+                    .withForeignId("exporter" + i)
+                    .withGenerator(FlowGenerator.builder()
+                            .withBytesPerSecond(1_000_000L)
+                            .withMaxFlowCount(100)
+                            .withMinFlowDuration(Duration.ofSeconds(1))
+                            .withMaxFlowDuration(Duration.ofSeconds(30))
+                            .withActiveTimeout(Duration.ofSeconds(10))));
+        }
+    }
+
+    @Benchmark
+    public void simulation(final Counters counters) throws InterruptedException {
+        final Simulation simulation = this.builder.build();
+        simulation.start(TICKS);
+        simulation.join();
+
+        counters.reports += simulation.getFlowsSent();
+        counters.bytes += simulation.getBytesSent();
+    }
+}
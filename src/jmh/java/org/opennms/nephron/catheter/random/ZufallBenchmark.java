@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.random;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures drawing a single random value, boxed and primitive, for every random algorithm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ZufallBenchmark {
+    @Param({"JDK", "SPLITTABLE", "XOROSHIRO"})
+    public RandomSource.Algorithm algorithm;
+
+    private IntegerZufall integers;
+    private DurationZufall durations;
+
+    @Setup
+    public void setup() {
+        this.integers = new IntegerZufall(this.algorithm.create(42L), 1, 1000);
+        this.durations = new DurationZufall(this.algorithm.create(42L), Duration.ofSeconds(1), Duration.ofSeconds(30));
+    }
+
+    @Benchmark
+    public Integer integer() {
+        return this.integers.random();
+    }
+
+    @Benchmark
+    public int nextInt() {
+        return this.integers.nextInt();
+    }
+
+    @Benchmark
+    public Duration duration() {
+        return this.durations.random();
+    }
+
+    @Benchmark
+    public long nextMillis() {
+        return this.durations.nextMillis();
+    }
+}
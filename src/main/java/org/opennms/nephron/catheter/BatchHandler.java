@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Receives all reports of an exporter for a tick at once.
+ *
+ * Batching allows sinks to amortize per-record overhead. The batch is reused after the call returns.
+ */
+@FunctionalInterface
+public interface BatchHandler {
+
+    void accept(final FlowReportBatch batch);
+
+    /**
+     * Adapts a per-report handler to the batch contract.
+     */
+    static BatchHandler of(final BiConsumer<Exporter, FlowReport> handler) {
+        Objects.requireNonNull(handler);
+        return batch -> {
+            for (int i = 0; i < batch.size(); i++) {
+                handler.accept(batch.getExporter(), batch.getReport(i));
+            }
+        };
+    }
+
+    /**
+     * Adapts a per-report handler to the batch contract without allocating a report per call.
+     *
+     * All reports are handed over in the same reused instance, so the handler must not retain the report or pass it
+     * on to other threads. Handlers that need to keep reports must use {@link #of(BiConsumer)}.
+     */
+    static BatchHandler flyweight(final BiConsumer<Exporter, FlowReport> handler) {
+        Objects.requireNonNull(handler);
+        final FlowReport flyweight = new FlowReport(0L, 0L, 0L);
+        return batch -> {
+            for (int i = 0; i < batch.size(); i++) {
+                handler.accept(batch.getExporter(), batch.getReport(i, flyweight));
+            }
+        };
+    }
+}
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.stream.StreamSource;
+
+import org.eclipse.persistence.jaxb.UnmarshallerProperties;
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+import org.kohsuke.args4j.spi.MapOptionHandler;
+import org.opennms.nephron.catheter.encoding.FlowDocumentEncoder;
+import org.opennms.nephron.catheter.encoding.JsonFlowEncoder;
+import org.opennms.nephron.catheter.jmx.SimulationMBeans;
+import org.opennms.nephron.catheter.json.SimulationJson;
+import org.opennms.nephron.catheter.kafka.KafkaSink;
+import org.opennms.nephron.catheter.recording.RecordingSink;
+import org.opennms.nephron.catheter.recording.Replay;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a simulation read from a JSON configuration or replays recordings and publishes the flows to Kafka or records
+ * them to a file.
+ */
+public class Catheter {
+    private static final Logger LOG = LoggerFactory.getLogger(Catheter.class);
+
+    @Argument(metaVar = "CONFIG", usage = "the simulation configuration in JSON, only read for the Kafka settings when replaying")
+    private Path config;
+
+    @Option(name = "--bootstrap-servers", aliases = "-b", metaVar = "SERVERS", usage = "the Kafka bootstrap servers, overrides bootstrapServers of the configuration")
+    private String bootstrapServers;
+
+    @Option(name = "--topic", aliases = "-t", metaVar = "TOPIC", usage = "the topic to publish flows to, overrides flowTopic of the configuration")
+    private String topic;
+
+    @Option(name = "--producer-property", aliases = "-p", handler = MapOptionHandler.class, metaVar = "KEY=VALUE", usage = "overrides a setting of the Kafka producer")
+    private Map<String, String> producerProperties = new HashMap<>();
+
+    @Option(name = "--max-in-flight", metaVar = "N", usage = "the maximum number of flows sent but not yet acknowledged")
+    private int maxInFlight = 64 * 1024;
+
+    @Option(name = "--json", usage = "publishes flows as JSON instead of FlowDocuments")
+    private boolean json;
+
+    @Option(name = "--record", aliases = "-r", metaVar = "FILE", usage = "records the flows to the given file instead of publishing them to Kafka")
+    private Path record;
+
+    @Option(name = "--replay", metaVar = "FILE", usage = "replays the given recording instead of running the simulation, can be repeated")
+    private List<Path> replay = new ArrayList<>();
+
+    @Option(name = "--speed", metaVar = "FACTOR", usage = "the speed of a replay relative to the recording, replays as fast as possible if zero")
+    private double speed = 1.0;
+
+    @Option(name = "--iterations", aliases = "-n", metaVar = "N", usage = "stops after the given number of ticks, runs until interrupted if zero")
+    private long iterations = 0;
+
+    @Option(name = "--help", aliases = "-h", help = true, usage = "shows this help")
+    private boolean help;
+
+    public static void main(final String... args) throws Exception {
+        final Catheter catheter = new Catheter();
+        final CmdLineParser parser = new CmdLineParser(catheter);
+
+        try {
+            parser.parseArgument(args);
+        } catch (final CmdLineException e) {
+            if (!catheter.help) {
+                System.err.println(e.getMessage());
+                parser.printUsage(System.err);
+                System.exit(1);
+            }
+        }
+
+        if (catheter.help) {
+            parser.printUsage(System.out);
+            return;
+        }
+
+        catheter.run();
+    }
+
+    private void run() throws Exception {
+        if (this.config == null && this.replay.isEmpty()) {
+            throw new IllegalArgumentException("No configuration given");
+        }
+        final SimulationJson simulationJson = this.config != null ? readConfig(this.config) : new SimulationJson();
+
+        // the shutdown hook waits until the sink is closed
+        final CountDownLatch done = new CountDownLatch(1);
+        try {
+            if (this.record != null) {
+                try (final RecordingSink sink = RecordingSink.builder(this.record).build()) {
+                    this.execute(simulationJson, sink, done);
+                }
+                return;
+            }
+
+            final String bootstrapServers = this.bootstrapServers != null ? this.bootstrapServers : simulationJson.getBootstrapServers();
+            final String topic = this.topic != null ? this.topic : simulationJson.getFlowTopic();
+            if (bootstrapServers == null || bootstrapServers.isEmpty()) {
+                throw new IllegalArgumentException("No bootstrap servers given");
+            }
+            if (topic == null || topic.isEmpty()) {
+                throw new IllegalArgumentException("No flow topic given");
+            }
+
+            try (final KafkaSink sink = KafkaSink.builder()
+                    .withBootstrapServers(bootstrapServers)
+                    .withTopic(topic)
+                    .withProducerProperties(this.producerProperties)
+                    .withMaxInFlight(this.maxInFlight)
+                    .withEncoder(this.json ? new JsonFlowEncoder() : new FlowDocumentEncoder())
+                    .build()) {
+                LOG.info("Publishing flows to topic {} at {}", topic, bootstrapServers);
+                this.execute(simulationJson, sink, done);
+            }
+        } finally {
+            done.countDown();
+        }
+    }
+
+    private void execute(final SimulationJson simulationJson, final BatchHandler sink, final CountDownLatch done) throws Exception {
+        if (!this.replay.isEmpty()) {
+            try (final Replay replay = Replay.builder(sink).withRecordings(this.replay).withSpeed(this.speed).build()) {
+                stopOnShutdown(replay::stop, done);
+
+                LOG.info("Replaying {} at {}x", this.replay, this.speed);
+                replay.start();
+                replay.join();
+            }
+            return;
+        }
+
+        final Simulation simulation = Simulation.fromJson(simulationJson, sink).build();
+        stopOnShutdown(simulation::stop, done);
+
+        final SimulationMBeans mbeans = SimulationMBeans.register(simulation, "catheter");
+        try {
+            LOG.info("Simulating {} exporters", simulation.getExporters().size());
+            simulation.start(this.iterations);
+            simulation.join();
+        } finally {
+            mbeans.close();
+        }
+    }
+
+    // stop gracefully on interrupt, so all pending flows are flushed
+    private static void stopOnShutdown(final Runnable stop, final CountDownLatch done) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stop.run();
+            try {
+                done.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+    }
+
+    /**
+     * Reads a simulation configuration in JSON with a root element named {@code simulation}.
+     */
+    public static SimulationJson readConfig(final Path path) throws IOException, JAXBException {
+        final Unmarshaller unmarshaller = JAXBContext.newInstance(SimulationJson.class).createUnmarshaller();
+        unmarshaller.setProperty(UnmarshallerProperties.MEDIA_TYPE, "application/json");
+        unmarshaller.setProperty(UnmarshallerProperties.JSON_INCLUDE_ROOT, true);
+
+        try (final Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return unmarshaller.unmarshal(new StreamSource(reader), SimulationJson.class).getValue();
+        }
+    }
+}
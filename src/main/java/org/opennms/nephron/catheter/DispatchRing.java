@@ -0,0 +1,354 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded single-producer single-consumer ring decoupling flow generation from the handler.
+ *
+ * The worker copies reports into pre-allocated primitive slots and a dedicated thread hands them to the handler,
+ * batching consecutive reports of the same exporter. Latency of the handler does therefore not directly slow down
+ * generation. If the handler can't keep up, the ring fills and the overflow policy decides whether the worker blocks
+ * or reports get lost.
+ */
+public class DispatchRing implements BatchHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(DispatchRing.class);
+
+    /**
+     * Determines how the threads wait for the ring to become non-empty (consumer) or non-full (blocking producer).
+     */
+    public enum WaitStrategy {
+        /**
+         * Spin on the CPU. Lowest latency, burns a core per waiting thread.
+         */
+        BUSY_SPIN {
+            @Override
+            void idle() {
+                Thread.onSpinWait();
+            }
+        },
+
+        /**
+         * Yield to other threads.
+         */
+        YIELD {
+            @Override
+            void idle() {
+                Thread.yield();
+            }
+        },
+
+        /**
+         * Park the waiting thread for a short time.
+         */
+        PARK {
+            @Override
+            void idle() {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+            }
+        };
+
+        abstract void idle();
+    }
+
+    /**
+     * Determines what happens to reports published while the ring is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait until the handler made room. This slows down generation to the speed of the handler.
+         */
+        BLOCK,
+
+        /**
+         * Discard the report that could not be published.
+         */
+        DROP_NEWEST,
+
+        /**
+         * Once the ring is half full only every n-th report is published. Reports are discarded if the ring is full.
+         */
+        SAMPLE,
+    }
+
+    private final String name;
+    private final BatchHandler handler;
+    private final int capacity;
+    private final int mask;
+    private final Exporter[] exporters;
+    private final long[] start;
+    private final long[] end;
+    private final long[] bytes;
+    private final WaitStrategy waitStrategy;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+
+    // index of the next slot to consume - written by the consumer only
+    private final AtomicLong head = new AtomicLong();
+    // index of the next slot to publish - written by the producer only
+    private final AtomicLong tail = new AtomicLong();
+
+    // producer local copy of the head to avoid reading the shared counter for every report
+    private long cachedHead;
+    private long sampleCounter;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long highWaterMark;
+
+    private volatile boolean closed = false;
+    private Thread thread;
+
+    private DispatchRing(final Builder builder, final String name, final BatchHandler handler) {
+        this.name = Objects.requireNonNull(name);
+        this.handler = Objects.requireNonNull(handler);
+
+        this.capacity = Integer.highestOneBit(builder.capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.exporters = new Exporter[this.capacity];
+        this.start = new long[this.capacity];
+        this.end = new long[this.capacity];
+        this.bytes = new long[this.capacity];
+
+        this.waitStrategy = builder.waitStrategy;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.sampleRate = builder.sampleRate;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public void start() {
+        this.closed = false;
+        this.thread = new Thread(this::run, "catheter-dispatch-" + this.name);
+        this.thread.start();
+    }
+
+    @Override
+    public void accept(final FlowReportBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            this.publish(batch.getExporter(), batch.getStartMillis(i), batch.getEndMillis(i), batch.getBytes(i));
+        }
+    }
+
+    private void publish(final Exporter exporter, final long start, final long end, final long bytes) {
+        final long tail = this.tail.get();
+
+        if (tail - this.cachedHead >= this.capacity) {
+            this.cachedHead = this.head.get();
+        }
+
+        if (this.overflowPolicy == OverflowPolicy.SAMPLE && (tail - this.cachedHead) * 2 >= this.capacity) {
+            this.cachedHead = this.head.get();
+            if ((tail - this.cachedHead) * 2 >= this.capacity && this.sampleCounter++ % this.sampleRate != 0) {
+                this.dropped.incrementAndGet();
+                return;
+            }
+        }
+
+        while (tail - this.cachedHead >= this.capacity) {
+            if (this.overflowPolicy != OverflowPolicy.BLOCK) {
+                this.dropped.incrementAndGet();
+                return;
+            }
+
+            this.waitStrategy.idle();
+            this.cachedHead = this.head.get();
+        }
+
+        final int slot = (int) tail & this.mask;
+        this.exporters[slot] = exporter;
+        this.start[slot] = start;
+        this.end[slot] = end;
+        this.bytes[slot] = bytes;
+        this.tail.lazySet(tail + 1);
+
+        this.published.incrementAndGet();
+
+        // the cached head overstates the occupancy, so a new maximum is checked against the current head
+        if (tail + 1 - this.cachedHead > this.highWaterMark) {
+            this.cachedHead = this.head.get();
+            final long occupancy = tail + 1 - this.cachedHead;
+            if (occupancy > this.highWaterMark) {
+                this.highWaterMark = occupancy;
+            }
+        }
+    }
+
+    private void run() {
+        final FlowReportBatch batch = new FlowReportBatch();
+
+        long head = this.head.get();
+
+        while (true) {
+            final long tail = this.tail.get();
+
+            if (head == tail) {
+                if (this.closed && this.tail.get() == head) {
+                    break;
+                }
+
+                this.waitStrategy.idle();
+                continue;
+            }
+
+            batch.reset(this.exporters[(int) head & this.mask]);
+            for (; head < tail; head++) {
+                final int slot = (int) head & this.mask;
+
+                if (this.exporters[slot] != batch.getExporter()) {
+                    this.handle(batch);
+                    batch.reset(this.exporters[slot]);
+                }
+
+                batch.add(this.start[slot], this.end[slot], this.bytes[slot]);
+                this.exporters[slot] = null;
+            }
+            this.handle(batch);
+
+            this.head.lazySet(head);
+        }
+    }
+
+    private void handle(final FlowReportBatch batch) {
+        try {
+            this.handler.accept(batch);
+        } catch (final RuntimeException e) {
+            LOG.warn("Dispatch ring {}: handler failed", this.name, e);
+        }
+    }
+
+    /**
+     * Waits until all published reports have been handed to the handler.
+     */
+    public void close() throws InterruptedException {
+        this.closed = true;
+        if (this.thread != null) {
+            this.thread.join();
+        }
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns the number of reports waiting for the handler.
+     */
+    public int getOccupancy() {
+        return (int) (this.tail.get() - this.head.get());
+    }
+
+    /**
+     * Returns the maximum number of reports that waited for the handler at the same time.
+     */
+    public long getHighWaterMark() {
+        return this.highWaterMark;
+    }
+
+    public long getPublished() {
+        return this.published.get();
+    }
+
+    /**
+     * Returns the number of reports discarded due to overflow or sampling.
+     */
+    public long getDropped() {
+        return this.dropped.get();
+    }
+
+    @Override
+    public String toString() {
+        return "DispatchRing{" +
+                "name='" + this.name + '\'' +
+                ", capacity=" + this.capacity +
+                ", waitStrategy=" + this.waitStrategy +
+                ", overflowPolicy=" + this.overflowPolicy +
+                ", sampleRate=" + this.sampleRate +
+                '}';
+    }
+
+    public static class Builder {
+        private int capacity = 16_384;
+        private WaitStrategy waitStrategy = WaitStrategy.PARK;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        private int sampleRate = 10;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the number of slots. The capacity is rounded up to the next power of two.
+         */
+        public Builder withCapacity(final int capacity) {
+            if (capacity < 2 || capacity > 1 << 30) {
+                throw new IllegalArgumentException("capacity must be in [2, 2^30]");
+            }
+            this.capacity = capacity;
+            return this;
+        }
+
+        public Builder withWaitStrategy(final WaitStrategy waitStrategy) {
+            this.waitStrategy = Objects.requireNonNull(waitStrategy);
+            return this;
+        }
+
+        public Builder withOverflowPolicy(final OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+            return this;
+        }
+
+        /**
+         * Sets n for the {@link OverflowPolicy#SAMPLE} policy: only every n-th report is published under pressure.
+         */
+        public Builder withSampleRate(final int sampleRate) {
+            if (sampleRate < 1) {
+                throw new IllegalArgumentException("sampleRate must be positive");
+            }
+            this.sampleRate = sampleRate;
+            return this;
+        }
+
+        public DispatchRing build(final String name, final BatchHandler handler) {
+            return new DispatchRing(this, name, handler);
+        }
+    }
+}
@@ -34,27 +34,37 @@ import java.util.Collection;
 import java.util.Objects;
 import java.util.Random;
 
+import org.opennms.nephron.catheter.json.ExporterJson;
+import org.opennms.nephron.catheter.profile.LoadProfile;
+import org.opennms.nephron.catheter.random.Distribution;
+import org.opennms.nephron.catheter.random.RandomSource;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
 public class Exporter {
+    // foreign sources and locations repeat a lot in large fleets, especially when read from JSON where every exporter
+    // has its own copy
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+
     private final int nodeId;
     private final String foreignSource;
     private final String foreignId;
     private final String location;
     private final FlowGenerator generator;
     private final Duration clockOffset;
-    private final Random random;
     private final int inputSnmp;
     private final int outputSnmp;
 
     private Exporter(final Builder builder,
                      final Instant now,
-                     final Random random) {
+                     final RandomSource random) {
         this.nodeId = builder.nodeId;
-        this.foreignSource = builder.foreignSource;
+        this.foreignSource = STRINGS.intern(builder.foreignSource);
         this.foreignId = builder.foreignId;
-        this.location = builder.location;
+        this.location = STRINGS.intern(builder.location);
         this.clockOffset = builder.clockOffset;
 
-        this.random = random;
         this.generator = builder.generator.build(now, random);
 
         this.inputSnmp = builder.inputSnmp;
@@ -65,6 +75,23 @@ public class Exporter {
         return new Builder();
     }
 
+    public static Builder fromJson(final ExporterJson exporterJson) {
+        final Builder builder = builder()
+                .withNodeId(exporterJson.getNodeId())
+                .withForeignSource(exporterJson.getForeignSource())
+                .withForeignId(exporterJson.getForeignId())
+                .withLocation(exporterJson.getLocation())
+                .withClockOffset(Duration.ofMillis(exporterJson.getClockOffsetMs()))
+                .withInputSnmp(exporterJson.getInputSnmp())
+                .withOutputSnmp(exporterJson.getOutputSnmp());
+
+        if (exporterJson.getFlowGenerator() != null) {
+            builder.withGenerator(FlowGenerator.fromJson(exporterJson.getFlowGenerator()));
+        }
+
+        return builder;
+    }
+
     /**
      * Called for every tick instant.
      *
@@ -74,6 +101,59 @@ public class Exporter {
         return this.generator.tick(now);
     }
 
+    /**
+     * Called for every tick instant.
+     *
+     * Resets the given batch to this exporter and fills it with the reports of this tick.
+     */
+    public void tick(final Instant now, final FlowReportBatch batch) {
+        this.generator.tick(now, batch.reset(this));
+    }
+
+    /**
+     * Called for every tick instant given in epoch nanoseconds.
+     *
+     * @see FlowGenerator#tickNanos(long, FlowReportBatch)
+     */
+    public void tickNanos(final long nowNanos, final FlowReportBatch batch) {
+        this.generator.tickNanos(nowNanos, batch.reset(this));
+    }
+
+    /**
+     * Called instead of ticks that are dropped because the simulation is behind its schedule.
+     *
+     * No traffic is generated for the skipped time.
+     */
+    public void skip(final Instant until) {
+        this.generator.skip(until);
+    }
+
+    public void skipNanos(final long untilNanos) {
+        this.generator.skipNanos(untilNanos);
+    }
+
+    /**
+     * Scales the traffic generated by this exporter.
+     *
+     * @see FlowGenerator#setRateScale(double)
+     */
+    public void setRateScale(final double rateScale) {
+        this.generator.setRateScale(rateScale);
+    }
+
+    public double getRateScale() {
+        return this.generator.getRateScale();
+    }
+
+    /**
+     * Returns the number of flows spawned by the generator of this exporter.
+     *
+     * Must be called from the thread driving the exporter.
+     */
+    public long getSpawnedFlows() {
+        return this.generator.getSpawnedFlows();
+    }
+
     /**
      * Called for the last tick.
      *
@@ -84,6 +164,24 @@ public class Exporter {
         return this.generator.shutdown(now);
     }
 
+    /**
+     * Called for the last tick.
+     *
+     * Resets the given batch to this exporter and fills it with the reports of all ongoing flows.
+     */
+    public void shutdown(final Instant now, final FlowReportBatch batch) {
+        this.generator.shutdown(now, batch.reset(this));
+    }
+
+    /**
+     * Called for the last tick given in epoch nanoseconds.
+     *
+     * @see #shutdown(Instant, FlowReportBatch)
+     */
+    public void shutdownNanos(final long nowNanos, final FlowReportBatch batch) {
+        this.generator.shutdownNanos(nowNanos, batch.reset(this));
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -115,7 +213,7 @@ public class Exporter {
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.nodeId, this.foreignSource, this.foreignId, this.location, this.generator, this.clockOffset, this.random, this.inputSnmp, this.outputSnmp);
+        return Objects.hash(this.nodeId, this.foreignSource, this.foreignId, this.location, this.generator, this.clockOffset, this.inputSnmp, this.outputSnmp);
     }
 
     public int getNodeId() {
@@ -194,6 +292,11 @@ public class Exporter {
             return this;
         }
 
+        public Builder withLoadProfile(final LoadProfile loadProfile) {
+            this.generator.withLoadProfile(loadProfile);
+            return this;
+        }
+
         public Builder withMinFlowDuration(final Duration minFlowDuration) {
             this.generator.withMinFlowDuration(minFlowDuration);
             return this;
@@ -214,6 +317,26 @@ public class Exporter {
             return this;
         }
 
+        public Builder withFlowDuration(final Distribution flowDuration) {
+            this.generator.withFlowDuration(flowDuration);
+            return this;
+        }
+
+        public Builder withRateShare(final Distribution rateShare) {
+            this.generator.withRateShare(rateShare);
+            return this;
+        }
+
+        public Builder withFlowsPerSecond(final double flowsPerSecond) {
+            this.generator.withFlowsPerSecond(flowsPerSecond);
+            return this;
+        }
+
+        public Builder withReportsPerSecond(final double reportsPerSecond) {
+            this.generator.withReportsPerSecond(reportsPerSecond);
+            return this;
+        }
+
         public Builder withInputSnmp(final int inputSnmp) {
             this.inputSnmp = inputSnmp;
             return this;
@@ -225,7 +348,11 @@ public class Exporter {
         }
 
         public Exporter build(final Instant now, final Random random) {
-            return new Exporter(this, now, random);
+            return this.build(now, RandomSource.of(random));
+        }
+
+        public Exporter build(final Instant now, final RandomSource random) {
+            return new Exporter(this, now, Objects.requireNonNull(random));
         }
     }
 }
@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter;
+
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+import org.opennms.nephron.catheter.json.FleetJson;
+
+/**
+ * A fleet of exporters described by a template.
+ *
+ * The exporters of a fleet get consecutive node IDs, foreign IDs made of a prefix and their index in the fleet and
+ * locations assigned round-robin. All of them share the same generator settings. The list is a view: the builder of an
+ * exporter is only created when it is asked for, so a fleet of a million exporters costs nothing until the simulation
+ * builds them.
+ */
+public class Fleet extends AbstractList<Exporter.Builder> implements RandomAccess {
+    private final int size;
+    private final int nodeIdOffset;
+    private final String foreignSource;
+    private final String foreignIdPrefix;
+    private final List<String> locations;
+    private final Duration clockOffset;
+    private final int inputSnmp;
+    private final int outputSnmp;
+    private final FlowGenerator.Builder generator;
+
+    private Fleet(final Builder builder) {
+        this.size = builder.size;
+        this.nodeIdOffset = builder.nodeIdOffset;
+        this.foreignSource = builder.foreignSource;
+        this.foreignIdPrefix = builder.foreignIdPrefix;
+        this.locations = builder.locations;
+        this.clockOffset = builder.clockOffset;
+        this.inputSnmp = builder.inputSnmp;
+        this.outputSnmp = builder.outputSnmp;
+        this.generator = builder.generator;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static Builder fromJson(final FleetJson fleetJson) {
+        final Builder builder = builder()
+                .withSize(fleetJson.getSize())
+                .withNodeIdOffset(fleetJson.getNodeIdOffset())
+                .withForeignSource(fleetJson.getForeignSource())
+                .withForeignIdPrefix(fleetJson.getForeignIdPrefix())
+                .withClockOffset(Duration.ofMillis(fleetJson.getClockOffsetMs()))
+                .withInputSnmp(fleetJson.getInputSnmp())
+                .withOutputSnmp(fleetJson.getOutputSnmp());
+
+        if (!fleetJson.getLocations().isEmpty()) {
+            builder.withLocations(fleetJson.getLocations());
+        }
+
+        if (fleetJson.getFlowGenerator() != null) {
+            builder.withGenerator(FlowGenerator.fromJson(fleetJson.getFlowGenerator()));
+        }
+
+        return builder;
+    }
+
+    /**
+     * Returns a new builder for the exporter at the given index.
+     *
+     * All builders of a fleet share its generator builder.
+     */
+    @Override
+    public Exporter.Builder get(final int index) {
+        Objects.checkIndex(index, this.size);
+        return Exporter.builder()
+                .withNodeId(this.nodeIdOffset + index)
+                .withForeignSource(this.foreignSource)
+                .withForeignId(this.foreignIdPrefix + index)
+                .withLocation(this.locations.get(index % this.locations.size()))
+                .withClockOffset(this.clockOffset)
+                .withInputSnmp(this.inputSnmp)
+                .withOutputSnmp(this.outputSnmp)
+                .withGenerator(this.generator);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final Fleet fleet = (Fleet) o;
+        return this.size == fleet.size &&
+                this.nodeIdOffset == fleet.nodeIdOffset &&
+                this.inputSnmp == fleet.inputSnmp &&
+                this.outputSnmp == fleet.outputSnmp &&
+                Objects.equals(this.foreignSource, fleet.foreignSource) &&
+                Objects.equals(this.foreignIdPrefix, fleet.foreignIdPrefix) &&
+                Objects.equals(this.locations, fleet.locations) &&
+                Objects.equals(this.clockOffset, fleet.clockOffset) &&
+                Objects.equals(this.generator, fleet.generator);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.size, this.nodeIdOffset, this.foreignSource, this.foreignIdPrefix, this.locations, this.clockOffset, this.inputSnmp, this.outputSnmp, this.generator);
+    }
+
+    @Override
+    public String toString() {
+        return "Fleet{" +
+                "size=" + this.size +
+                ", nodeIdOffset=" + this.nodeIdOffset +
+                ", foreignSource='" + this.foreignSource + '\'' +
+                ", foreignIdPrefix='" + this.foreignIdPrefix + '\'' +
+                ", locations=" + this.locations +
+                ", clockOffset=" + this.clockOffset +
+                ", inputSnmp=" + this.inputSnmp +
+                ", outputSnmp=" + this.outputSnmp +
+                '}';
+    }
+
+    public static class Builder {
+        private int size = 0;
+        private int nodeIdOffset = 0;
+        private String foreignSource = "";
+        private String foreignIdPrefix = "";
+        private List<String> locations = Collections.singletonList("Default");
+        private Duration clockOffset = Duration.ZERO;
+        private int inputSnmp = 0;
+        private int outputSnmp = 0;
+        private FlowGenerator.Builder generator = FlowGenerator.builder();
+
+        private Builder() {
+        }
+
+        public Builder withSize(final int size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("size must not be negative");
+            }
+            this.size = size;
+            return this;
+        }
+
+        /**
+         * Sets the node ID of the first exporter. The following exporters get consecutive node IDs.
+         */
+        public Builder withNodeIdOffset(final int nodeIdOffset) {
+            this.nodeIdOffset = nodeIdOffset;
+            return this;
+        }
+
+        public Builder withForeignSource(final String foreignSource) {
+            this.foreignSource = Objects.requireNonNull(foreignSource);
+            return this;
+        }
+
+        /**
+         * Sets the prefix of the foreign IDs. The index of the exporter in the fleet is appended to it.
+         */
+        public Builder withForeignIdPrefix(final String foreignIdPrefix) {
+            this.foreignIdPrefix = Objects.requireNonNull(foreignIdPrefix);
+            return this;
+        }
+
+        /**
+         * Sets the locations the exporters are assigned to round-robin.
+         */
+        public Builder withLocations(final String... locations) {
+            return this.withLocations(Arrays.asList(locations));
+        }
+
+        public Builder withLocations(final List<String> locations) {
+            if (locations.isEmpty()) {
+                throw new IllegalArgumentException("locations must not be empty");
+            }
+            locations.forEach(Objects::requireNonNull);
+            this.locations = Collections.unmodifiableList(new ArrayList<>(locations));
+            return this;
+        }
+
+        public Builder withClockOffset(final Duration clockOffset) {
+            this.clockOffset = Objects.requireNonNull(clockOffset);
+            return this;
+        }
+
+        public Builder withInputSnmp(final int inputSnmp) {
+            this.inputSnmp = inputSnmp;
+            return this;
+        }
+
+        public Builder withOutputSnmp(final int outputSnmp) {
+            this.outputSnmp = outputSnmp;
+            return this;
+        }
+
+        public Builder withGenerator(final FlowGenerator.Builder generator) {
+            this.generator = Objects.requireNonNull(generator);
+            return this;
+        }
+
+        public Fleet build() {
+            return new Fleet(this);
+        }
+    }
+}
@@ -30,126 +30,425 @@ package org.opennms.nephron.catheter;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import org.opennms.nephron.catheter.random.DurationZufall;
-import org.opennms.nephron.catheter.random.IntegerZufall;
-import org.opennms.nephron.catheter.random.Zufall;
+import org.opennms.nephron.catheter.json.FlowGeneratorJson;
+import org.opennms.nephron.catheter.profile.LoadProfile;
+import org.opennms.nephron.catheter.random.Distribution;
+import org.opennms.nephron.catheter.random.RandomSource;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Lists;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 public class FlowGenerator {
-    private final long bytesPerSecond;
-    private final Zufall<Duration> flowDuration;
-    private final int maxFlowCount;
-    private final Duration activeTimeout;
-    private final List<Flow> ongoingFlows = Lists.newArrayList();
-    private Instant lastTick;
-    private Random random;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
 
-    private FlowGenerator(final Builder builder, final Instant now, final Random random) {
-        this.bytesPerSecond = builder.bytesPerSecond;
+    // upper bound for the length of the survival table, longer tables are computed for multiples of the tick
+    private static final int MAX_SURVIVAL_TICKS = 1 << 16;
 
-        this.flowDuration = new DurationZufall(random, builder.minFlowDuration, builder.maxFlowDuration);
+    private static final double[] NO_SHARES = new double[0];
+    private static final long[] NO_DURATIONS = new long[0];
 
-        this.maxFlowCount = builder.maxFlowCount;
-        this.activeTimeout = builder.activeTimeout;
+    // generators with equal settings share them, including the survival table derived from them
+    private static final Interner<Parameters> PARAMETERS = Interners.newWeakInterner();
 
-        this.lastTick = now;
+    private final Parameters parameters;
+    private final long start;
+    private final FlowTable ongoingFlows;
+    private long lastTick;
+    // the survival table for the tick length the generator started with, used regardless of coalesced ticks
+    private SurvivalTable survival;
+    private final RandomSource random;
+    private volatile double rateScale = 1.0;
+
+    // scratch space for the rate shares of the flows spawned in a tick
+    private double[] shares = NO_SHARES;
+
+    // the fractional number of flows and reports the targets allow to spawn and the flow durations drawn for them
+    private double flowBudget;
+    private double reportBudget;
+    private long[] durations = NO_DURATIONS;
+    private long pendingDuration = -1;
+
+    private long spawnedFlows;
+
+    private FlowGenerator(final Parameters parameters, final Instant now, final RandomSource random) {
+        this.parameters = parameters;
+        this.start = epochNanos(now);
+        this.ongoingFlows = new FlowTable(parameters.maxFlowCount);
+
+        this.lastTick = this.start;
         this.random = random;
-        // span flows from the very beginning
-        // -> ensures that the required traffic volume is met from the very beginning
-        spawnFlows(now);
     }
 
     public static Builder builder() {
         return new Builder();
     }
 
+    public static Builder fromJson(final FlowGeneratorJson flowGeneratorJson) {
+        final Builder builder = builder()
+                .withBytesPerSecond(flowGeneratorJson.getBytesPerSecond())
+                .withMaxFlowCount(flowGeneratorJson.getMaxFlowCount())
+                .withMinFlowDuration(Duration.ofMillis(flowGeneratorJson.getMinFlowDurationMs()))
+                .withMaxFlowDuration(Duration.ofMillis(flowGeneratorJson.getMaxFlowDurationMs()))
+                .withActiveTimeout(Duration.ofMillis(flowGeneratorJson.getActiveTimeoutMs()))
+                .withFlowsPerSecond(flowGeneratorJson.getFlowsPerSecond())
+                .withReportsPerSecond(flowGeneratorJson.getReportsPerSecond());
+
+        if (flowGeneratorJson.getLoadProfile() != null) {
+            builder.withLoadProfile(LoadProfile.fromJson(flowGeneratorJson.getLoadProfile()));
+        }
+
+        if (flowGeneratorJson.getFlowDuration() != null) {
+            builder.withFlowDuration(Distribution.fromJson(flowGeneratorJson.getFlowDuration()));
+        }
+
+        if (flowGeneratorJson.getRateShare() != null) {
+            builder.withRateShare(Distribution.fromJson(flowGeneratorJson.getRateShare()));
+        }
+
+        return builder;
+    }
+
     /**
      * Called for every tick instant.
      *
      * The first tick instant is start + tickMs.
      */
     public Collection<FlowReport> tick(final Instant now) {
-        final Duration tick = Duration.ofMillis(now.toEpochMilli() - lastTick.toEpochMilli());
-        final List<FlowReport> reports = Lists.newArrayList();
+        final FlowReportBatch batch = new FlowReportBatch();
+        this.tick(now, batch);
+        return batch.toReports();
+    }
 
-        // all ongoing flows get their share of the total number of bytes to transmit
-        double tickDurationInSeconds = ((double) tick.toMillis()) / 1000.0;
-        double bytesToTransmit = bytesPerSecond * tickDurationInSeconds;
+    /**
+     * Called for every tick instant.
+     *
+     * Appends the reports of this tick to the given batch.
+     */
+    public void tick(final Instant now, final FlowReportBatch reports) {
+        this.tickNanos(epochNanos(now), reports);
+    }
 
-        for (int i = ongoingFlows.size() - 1; i >= 0; i--) {
-            Flow flow = ongoingFlows.get(i);
-            long transmit = Math.round(i == 0 ? bytesToTransmit : tickDurationInSeconds * flow.getBytesPerSecond());
-            flow.transmit(transmit);
-            bytesToTransmit -= transmit;
+    /**
+     * Called for every tick instant given in epoch nanoseconds.
+     *
+     * Appends the reports of this tick to the given batch. Once the flow table and the batch have grown to their
+     * steady-state size, a tick does not allocate. Allows ticks shorter than a millisecond, the timestamps of the
+     * reports are truncated to milliseconds.
+     */
+    public void tickNanos(final long nowNanos, final FlowReportBatch reports) {
+        final long tickNanos = Math.max(1, nowNanos - this.lastTick);
+
+        if (!this.ongoingFlows.isConfigured()) {
+            this.survival = this.parameters.survival(tickNanos);
+
+            // the wheel is sized for the tick length and the longest time until a flow is reported
+            this.ongoingFlows.configure(this.lastTick, tickNanos,
+                    Math.max(this.parameters.maxFlowDurationNanos + tickNanos, this.parameters.activeTimeoutNanos));
+
+            // span flows from the very beginning
+            // -> ensures that the required traffic volume is met from the very beginning
+            spawnFlows(this.lastTick, tickNanos, true);
         }
 
+        // all ongoing flows transmitted at the rate they got during the last tick, which followed the load profile
         // some flows report results because they
-        // * reached their and or
+        // * reached their end or
         // * they hit the active timeout
-        for (final Iterator<Flow> it = this.ongoingFlows.iterator(); it.hasNext(); ) {
-            final Flow flow = it.next();
+        this.ongoingFlows.advance(nowNanos, this.parameters.activeTimeoutNanos, reports);
 
-            // End flows, probability depends of the flow's duration
-            final Duration duration = Duration.ofMillis(now.toEpochMilli() - flow.getStart().toEpochMilli());
-            final Duration randomDuration = flowDuration.random();
+        // follow the load profile
+        // -> end or throttle flows if the target rate decreased
+        // -> spawn flows for the missing rate
+        shedFlows(nowNanos, reports);
+        spawnFlows(nowNanos, tickNanos, false);
 
-            if (duration.toMillis() > randomDuration.toMillis()) {
-                reports.add(flow.report(now));
-                it.remove();
-                continue;
-            }
+        this.lastTick = nowNanos;
+    }
 
-            // Check for flows with trigger active timeout
-            if (flow.checkTimeout(now, this.activeTimeout)) {
-                reports.add(flow.report(now));
-            }
+    /**
+     * Advances the generator to the given instant without transmitting any bytes.
+     */
+    public void skip(final Instant until) {
+        this.skipNanos(epochNanos(until));
+    }
+
+    public void skipNanos(final long untilNanos) {
+        if (untilNanos > this.lastTick) {
+            this.ongoingFlows.pause(this.lastTick, untilNanos);
+            this.lastTick = untilNanos;
         }
+    }
 
-        spawnFlows(now);
+    /**
+     * Scales the target rate, the flow and report targets and the maximum number of concurrent flows of this
+     * generator.
+     *
+     * Like a change of the load profile, the new scale is applied to the flows at the end of the next tick. Ongoing
+     * flows are ended or throttled if the scaled rate is lower than the current rate.
+     */
+    public void setRateScale(final double rateScale) {
+        if (rateScale <= 0.0 || Double.isNaN(rateScale) || Double.isInfinite(rateScale)) {
+            throw new IllegalArgumentException("rateScale must be positive and finite");
+        }
+        this.rateScale = rateScale;
+    }
 
-        this.lastTick = now;
+    public double getRateScale() {
+        return this.rateScale;
+    }
 
-        return reports;
+    /**
+     * Returns the number of flows spawned since the generator was built.
+     */
+    public long getSpawnedFlows() {
+        return this.spawnedFlows;
     }
 
     @VisibleForTesting
     public long notYetReportedBytes() {
-        return ongoingFlows.stream().mapToLong(f -> f.getBytes()).sum();
+        return this.ongoingFlows.getUnreportedBytes(this.lastTick);
     }
 
-    private void spawnFlows(Instant now) {
-        // compute the missing bytesPerSecond due to ended flows
-        long deltaBytesPerSecond = this.bytesPerSecond - this.ongoingFlows.stream().mapToLong(Flow::getBytesPerSecond).sum();
+    private long currentBytesPerSecond() {
+        return this.ongoingFlows.getTotalRate();
+    }
+
+    private long targetBytesPerSecond(final long nowNanos) {
+        final long bytesPerSecond = this.parameters.loadProfile.bytesPerSecond((nowNanos - this.start) / NANOS_PER_MILLI);
+        final double rateScale = this.rateScale;
+        return rateScale == 1.0 ? bytesPerSecond : Math.round(bytesPerSecond * rateScale);
+    }
 
-        if (deltaBytesPerSecond > 0) {
+    private int scaledMaxFlowCount() {
+        final double rateScale = this.rateScale;
+        return rateScale == 1.0 ? this.parameters.maxFlowCount : (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(this.parameters.maxFlowCount * rateScale)));
+    }
+
+    private void shedFlows(final long nowNanos, final FlowReportBatch reports) {
+        long surplus = this.currentBytesPerSecond() - this.targetBytesPerSecond(nowNanos);
+
+        // take the surplus away from the flows at the end of the table, which are mostly the youngest ones
+        for (int i = this.ongoingFlows.size() - 1; i >= 0 && surplus > 0; i--) {
+            final long rate = this.ongoingFlows.getRate(i);
+            if (rate <= surplus) {
+                surplus -= rate;
+                this.ongoingFlows.report(i, nowNanos, reports);
+                this.ongoingFlows.remove(i);
+            } else {
+                this.ongoingFlows.setRate(i, rate - surplus, nowNanos);
+                surplus = 0;
+            }
+        }
+    }
+
+    private void spawnFlows(final long nowNanos, final long tickNanos, final boolean initial) {
+        // compute the missing bytesPerSecond due to ended flows or an increased target rate
+        long deltaBytesPerSecond = this.targetBytesPerSecond(nowNanos) - this.currentBytesPerSecond();
+        final int room = Math.max(0, this.scaledMaxFlowCount() - this.ongoingFlows.size());
+
+        int flowsToSpawn = 0;
+        boolean drawn = false;
+        if (this.hasSpawnTarget() && !initial) {
+            // the number of flows follows the targets, the byte rate is shared by whatever flows are spawned
+            flowsToSpawn = this.budgetFlows(tickNanos, room);
+            drawn = true;
+        } else if (deltaBytesPerSecond > 0 && room > 0) {
             // determine the number of flows to spawn
-            final IntegerZufall zl = new IntegerZufall(random, 1, maxFlowCount - ongoingFlows.size());
-            int flowsToSpawn = zl.random();
+            flowsToSpawn = 1 + this.random.nextInt(room);
 
             // if byte rate is to low reduce the number of flows
-            while (flowsToSpawn > 1 && deltaBytesPerSecond / flowsToSpawn < 1000) {
-                flowsToSpawn--;
+            // -> every flow gets at least 1000 bytes per second
+            if (deltaBytesPerSecond / flowsToSpawn < 1000) {
+                flowsToSpawn = (int) Math.max(1, deltaBytesPerSecond / 1000);
             }
+        }
 
+        if (flowsToSpawn == 0) {
+            if (deltaBytesPerSecond > 0 && !this.ongoingFlows.isEmpty()) {
+                // no room for more flows - speed up the last one instead
+                final int last = this.ongoingFlows.size() - 1;
+                this.ongoingFlows.setRate(last, this.ongoingFlows.getRate(last) + deltaBytesPerSecond, nowNanos);
+            }
+            return;
+        }
+
+        // every flow gets at least one byte per second, a surplus is shed in the next tick
+        deltaBytesPerSecond = Math.max(deltaBytesPerSecond, flowsToSpawn);
+
+        if (this.parameters.rateShare == null) {
             // compute the share of byte rate for the flows to spawn
             final long share = deltaBytesPerSecond / flowsToSpawn;
             for (int i = 0; i < flowsToSpawn; i++) {
                 // add the share or use the remaining byte rate to reduce the overall error
-                final Flow flow = new Flow(now, i == flowsToSpawn - 1 ? deltaBytesPerSecond : share);
+                spawnFlow(nowNanos, tickNanos, i == flowsToSpawn - 1 ? deltaBytesPerSecond : share, drawn ? this.durations[i] : -1);
                 deltaBytesPerSecond -= share;
-                this.ongoingFlows.add(flow);
             }
+        } else {
+            spawnFlows(nowNanos, tickNanos, flowsToSpawn, deltaBytesPerSecond, drawn);
         }
     }
 
+    /**
+     * Spawns the given number of flows sharing the given byte rate in proportions drawn from the rate share
+     * distribution.
+     *
+     * Every flow gets at least one byte per second.
+     */
+    private void spawnFlows(final long nowNanos, final long tickNanos, final int flowsToSpawn, long deltaBytesPerSecond, final boolean drawn) {
+        if (this.shares.length < flowsToSpawn) {
+            this.shares = new double[Math.max(flowsToSpawn, this.shares.length * 2)];
+        }
+
+        double total = 0.0;
+        for (int i = 0; i < flowsToSpawn; i++) {
+            total += this.shares[i] = this.parameters.rateShare.sample(this.random);
+        }
+
+        final long distributable = deltaBytesPerSecond - flowsToSpawn;
+        for (int i = 0; i < flowsToSpawn; i++) {
+            final long share = i == flowsToSpawn - 1
+                    ? deltaBytesPerSecond
+                    : Math.min(deltaBytesPerSecond - (flowsToSpawn - i - 1), 1 + (total > 0.0 ? (long) (distributable * (this.shares[i] / total)) : distributable / flowsToSpawn));
+            spawnFlow(nowNanos, tickNanos, share, drawn ? this.durations[i] : -1);
+            deltaBytesPerSecond -= share;
+        }
+    }
+
+    /**
+     * Spawns a flow with the given duration or a random duration if the given duration is negative.
+     */
+    private void spawnFlow(final long nowNanos, final long tickNanos, final long bytesPerSecond, final long durationNanos) {
+        final int slot = this.ongoingFlows.add(nowNanos, bytesPerSecond);
+        this.ongoingFlows.schedule(slot,
+                nowNanos + (durationNanos >= 0 ? durationNanos : this.randomFlowDuration(tickNanos)),
+                nowNanos + this.parameters.activeTimeoutNanos);
+        this.spawnedFlows++;
+    }
+
+    private boolean hasSpawnTarget() {
+        return this.parameters.flowsPerSecond > 0.0 || this.parameters.reportsPerSecond > 0.0;
+    }
+
+    /**
+     * Adds the budget of this tick to the flow and report budgets and determines how many flows they allow to spawn.
+     *
+     * The durations of these flows are drawn upfront, because the number of reports a flow produces depends on its
+     * duration: one per active timeout and one at its end. A flow not fitting into the report budget keeps its
+     * duration for the next tick. Budgets not used up are carried over, but not more than the budget of one second.
+     */
+    private int budgetFlows(final long tickNanos, final int room) {
+        final double rateScale = this.rateScale;
+
+        if (this.parameters.flowsPerSecond > 0.0) {
+            final double perSecond = this.parameters.flowsPerSecond * rateScale;
+            this.flowBudget = Math.min(this.flowBudget + perSecond * tickNanos / NANOS_PER_SECOND, Math.max(1.0, perSecond));
+        }
+        if (this.parameters.reportsPerSecond > 0.0) {
+            final double perSecond = this.parameters.reportsPerSecond * rateScale;
+            this.reportBudget = Math.min(this.reportBudget + perSecond * tickNanos / NANOS_PER_SECOND, Math.max(1.0, perSecond));
+        }
+
+        int flows = 0;
+        while (flows < room) {
+            if (this.parameters.flowsPerSecond > 0.0 && this.flowBudget < 1.0) {
+                break;
+            }
+
+            final long duration = this.pendingDuration >= 0 ? this.pendingDuration : this.randomFlowDuration(tickNanos);
+            this.pendingDuration = -1;
+
+            if (this.parameters.reportsPerSecond > 0.0) {
+                final long timeout = this.parameters.activeTimeoutNanos;
+                final long reports = Math.max(1, (duration + timeout - 1) / timeout);
+                if (this.reportBudget < reports) {
+                    this.pendingDuration = duration;
+                    break;
+                }
+                this.reportBudget -= reports;
+            }
+            if (this.parameters.flowsPerSecond > 0.0) {
+                this.flowBudget -= 1.0;
+            }
+
+            if (this.durations.length == flows) {
+                this.durations = Arrays.copyOf(this.durations, Math.max(16, flows * 2));
+            }
+            this.durations[flows++] = duration;
+        }
+        return flows;
+    }
+
+    /**
+     * Draws the duration of a new flow.
+     *
+     * A flow is checked for its end once per tick: at an age of {@code a} it ends with the probability that a duration
+     * drawn uniformly from {@code [minFlowDuration, maxFlowDuration]} is less than {@code a}. Instead of drawing a
+     * duration for every flow and tick, the number of ticks until the flow ends is drawn once from the survival
+     * function of this process, which results in the same distribution.
+     *
+     * The survival function is computed once for the tick length the generator started with. A longer tick, for
+     * instance after the pacer coalesced missed ticks, ends the flow at the first tick after the drawn duration.
+     */
+    private long randomFlowDuration(final long tickNanos) {
+        if (this.parameters.flowDuration != null) {
+            // the flow ends at the first tick after the drawn duration
+            final double duration = this.parameters.flowDuration.sample(this.random) * NANOS_PER_MILLI;
+            return (Math.min((long) (duration / tickNanos), Integer.MAX_VALUE) + 1) * tickNanos;
+        }
+
+        final SurvivalTable table = this.survival;
+
+        // find the first tick at which the flow has not survived
+        final double u = this.random.nextDouble();
+        int lo = 1;
+        int hi = table.survival.length - 1;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (table.survival[mid] <= u) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        final long duration = lo * table.stepNanos;
+        return (duration + tickNanos - 1) / tickNanos * tickNanos;
+    }
+
+    @VisibleForTesting
+    double[] getSurvival() {
+        return this.survival.survival;
+    }
+
+    /**
+     * Computes the probability of a flow to be still alive after {@code k} ticks for all {@code k} until it has ended
+     * for sure.
+     *
+     * The durations and the tick can be given in any unit as long as it is the same for all of them.
+     */
+    @VisibleForTesting
+    static double[] survival(final long min, final long max, final long tick) {
+        final long range = Math.max(0, max - min) + 1;
+        final int ticks = (int) Math.max(1, (Math.max(min, max) + 1 + tick - 1) / tick);
+
+        final double[] survival = new double[ticks + 1];
+        survival[0] = 1.0;
+        for (int k = 1; k <= ticks; k++) {
+            final double hazard = Math.min(1.0, Math.max(0.0, (double) (k * tick - min) / range));
+            survival[k] = survival[k - 1] * (1.0 - hazard);
+        }
+        survival[ticks] = 0.0;
+        return survival;
+    }
+
     /**
      * Called for the last tick.
      *
@@ -157,16 +456,43 @@ public class FlowGenerator {
      * on the simulation.
      */
     public Collection<FlowReport> shutdown(final Instant now) {
+        final FlowReportBatch batch = new FlowReportBatch();
+        this.shutdown(now, batch);
+        return batch.toReports();
+    }
+
+    /**
+     * Called for the last tick.
+     *
+     * Appends the reports of all ongoing flows to the given batch.
+     */
+    public void shutdown(final Instant now, final FlowReportBatch reports) {
+        this.shutdownNanos(epochNanos(now), reports);
+    }
+
+    /**
+     * Called for the last tick given in epoch nanoseconds.
+     *
+     * Appends the reports of all ongoing flows to the given batch.
+     */
+    public void shutdownNanos(final long nowNanos, final FlowReportBatch reports) {
+        // no bytes are transmitted after the last tick
+        this.ongoingFlows.pause(this.lastTick, nowNanos);
+
         // Generate reports for all ongoing flows
-        final List<FlowReport> reports = Lists.newArrayList();
-        for (final Flow flow : this.ongoingFlows) {
-            reports.add(flow.report(now));
+        for (int i = 0; i < this.ongoingFlows.size(); i++) {
+            this.ongoingFlows.report(i, nowNanos, reports);
         }
 
         // Clear out the list of flows
         this.ongoingFlows.clear();
+    }
 
-        return reports;
+    /**
+     * Converts the given instant to nanoseconds since the epoch, which covers the years 1678 to 2262.
+     */
+    static long epochNanos(final Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND), instant.getNano());
     }
 
     @Override
@@ -174,31 +500,119 @@ public class FlowGenerator {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         final FlowGenerator that = (FlowGenerator) o;
-        return this.bytesPerSecond == that.bytesPerSecond &&
-                this.maxFlowCount == that.maxFlowCount &&
-                Objects.equals(this.flowDuration, that.flowDuration) &&
-                Objects.equals(this.activeTimeout, that.activeTimeout) &&
-                Objects.equals(this.lastTick, that.lastTick);
+        return Objects.equals(this.parameters, that.parameters) &&
+                this.lastTick == that.lastTick;
     }
 
     @Override
     public String toString() {
         return "FlowGenerator{" +
-                "bytesPerSecond=" + this.bytesPerSecond +
-                ", flowDuration=" + this.flowDuration +
-                ", maxFlowCount=" + this.maxFlowCount +
-                ", activeTimeout=" + this.activeTimeout +
-                ", lastTick=" + this.lastTick +
+                "parameters=" + this.parameters +
+                ", lastTick=" + Instant.ofEpochSecond(0, this.lastTick) +
                 '}';
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.bytesPerSecond, this.flowDuration, this.maxFlowCount, this.activeTimeout, this.ongoingFlows, this.lastTick, this.random);
+        return Objects.hash(this.parameters, this.lastTick, this.random);
+    }
+
+    /**
+     * The survival function of the flow duration computed for a tick length.
+     */
+    private static final class SurvivalTable {
+        private final long stepNanos;
+        private final double[] survival;
+
+        private SurvivalTable(final long stepNanos, final double[] survival) {
+            this.stepNanos = stepNanos;
+            this.survival = survival;
+        }
+    }
+
+    /**
+     * The immutable settings of a generator.
+     *
+     * Large fleets of exporters mostly share a few configurations, so generators with equal settings share a single
+     * instance and the survival table derived from it instead of holding a copy each.
+     */
+    private static final class Parameters {
+        private final LoadProfile loadProfile;
+        private final long minFlowDurationNanos;
+        private final long maxFlowDurationNanos;
+        private final int maxFlowCount;
+        private final long activeTimeoutNanos;
+        private final Distribution flowDuration;
+        private final Distribution rateShare;
+        private final double flowsPerSecond;
+        private final double reportsPerSecond;
+
+        // the tables by the tick length generators started with, which is the same for all generators of a simulation
+        private final ConcurrentMap<Long, SurvivalTable> survival = new ConcurrentHashMap<>();
+
+        private Parameters(final Builder builder) {
+            this.loadProfile = builder.loadProfile;
+            this.minFlowDurationNanos = builder.minFlowDuration.toNanos();
+            this.maxFlowDurationNanos = builder.maxFlowDuration.toNanos();
+            this.maxFlowCount = builder.maxFlowCount;
+            this.activeTimeoutNanos = builder.activeTimeout.toNanos();
+            this.flowDuration = builder.flowDuration;
+            this.rateShare = builder.rateShare;
+            this.flowsPerSecond = builder.flowsPerSecond;
+            this.reportsPerSecond = builder.reportsPerSecond;
+        }
+
+        /**
+         * Returns the survival table for the given tick length, which is computed once and shared afterwards.
+         */
+        private SurvivalTable survival(final long tickNanos) {
+            return this.survival.computeIfAbsent(tickNanos, t -> {
+                // very short ticks are combined, so the table does not grow beyond a fixed size
+                final long maxNanos = Math.max(this.minFlowDurationNanos, this.maxFlowDurationNanos);
+                final long stepNanos = t * Math.max(1, maxNanos / t / MAX_SURVIVAL_TICKS + 1);
+                return new SurvivalTable(stepNanos, FlowGenerator.survival(this.minFlowDurationNanos, this.maxFlowDurationNanos, stepNanos));
+            });
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Parameters that = (Parameters) o;
+            return Objects.equals(this.loadProfile, that.loadProfile) &&
+                    this.minFlowDurationNanos == that.minFlowDurationNanos &&
+                    this.maxFlowDurationNanos == that.maxFlowDurationNanos &&
+                    this.maxFlowCount == that.maxFlowCount &&
+                    this.activeTimeoutNanos == that.activeTimeoutNanos &&
+                    Objects.equals(this.flowDuration, that.flowDuration) &&
+                    Objects.equals(this.rateShare, that.rateShare) &&
+                    this.flowsPerSecond == that.flowsPerSecond &&
+                    this.reportsPerSecond == that.reportsPerSecond;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.loadProfile, this.minFlowDurationNanos, this.maxFlowDurationNanos, this.maxFlowCount, this.activeTimeoutNanos, this.flowDuration, this.rateShare, this.flowsPerSecond, this.reportsPerSecond);
+        }
+
+        @Override
+        public String toString() {
+            return "Parameters{" +
+                    "loadProfile=" + this.loadProfile +
+                    ", minFlowDuration=" + Duration.ofNanos(this.minFlowDurationNanos) +
+                    ", maxFlowDuration=" + Duration.ofNanos(this.maxFlowDurationNanos) +
+                    ", maxFlowCount=" + this.maxFlowCount +
+                    ", activeTimeout=" + Duration.ofNanos(this.activeTimeoutNanos) +
+                    ", flowDuration=" + this.flowDuration +
+                    ", rateShare=" + this.rateShare +
+                    ", flowsPerSecond=" + this.flowsPerSecond +
+                    ", reportsPerSecond=" + this.reportsPerSecond +
+                    '}';
+        }
     }
 
     public static class Builder {
-        private long bytesPerSecond = 1_000_000L;
+        private LoadProfile loadProfile = LoadProfile.constant(1_000_000L);
 
         private Duration minFlowDuration = Duration.ofSeconds(1);
         private Duration maxFlowDuration = Duration.ofSeconds(30);
@@ -207,11 +621,28 @@ public class FlowGenerator {
 
         private Duration activeTimeout = Duration.ofSeconds(10);
 
+        private Distribution flowDuration;
+        private Distribution rateShare;
+
+        private double flowsPerSecond;
+        private double reportsPerSecond;
+
         private Builder() {
         }
 
         public Builder withBytesPerSecond(final long bytesPerSecond) {
-            this.bytesPerSecond = bytesPerSecond;
+            this.loadProfile = LoadProfile.constant(bytesPerSecond);
+            return this;
+        }
+
+        /**
+         * Sets a time-varying target rate.
+         *
+         * The profile is evaluated once per tick. Changes of the rate are applied to the ongoing flows incrementally:
+         * an increase spawns additional flows, a decrease ends or throttles the youngest flows.
+         */
+        public Builder withLoadProfile(final LoadProfile loadProfile) {
+            this.loadProfile = Objects.requireNonNull(loadProfile);
             return this;
         }
 
@@ -235,8 +666,64 @@ public class FlowGenerator {
             return this;
         }
 
+        /**
+         * Draws the durations of flows in milliseconds from the given distribution instead of the range given by
+         * the minimum and maximum flow duration.
+         *
+         * A flow ends at the first tick after its duration elapsed.
+         */
+        public Builder withFlowDuration(final Distribution flowDuration) {
+            this.flowDuration = Objects.requireNonNull(flowDuration);
+            return this;
+        }
+
+        /**
+         * Splits the byte rate of the flows spawned in a tick in proportions drawn from the given distribution instead
+         * of evenly.
+         *
+         * A heavy-tailed distribution results in a few elephant flows carrying most of the bytes and many mice.
+         */
+        public Builder withRateShare(final Distribution rateShare) {
+            this.rateShare = Objects.requireNonNull(rateShare);
+            return this;
+        }
+
+        /**
+         * Sets the number of flows to spawn per second.
+         *
+         * Instead of spawning flows whenever the byte rate is not met, flows are spawned at the given rate and share
+         * the missing byte rate. The byte rate still takes precedence: if it is met already, new flows get one byte
+         * per second and the youngest flows are ended or throttled in the next tick. Zero disables the target.
+         */
+        public Builder withFlowsPerSecond(final double flowsPerSecond) {
+            if (!(flowsPerSecond >= 0.0) || Double.isInfinite(flowsPerSecond)) {
+                throw new IllegalArgumentException("flowsPerSecond must be finite and non-negative");
+            }
+            this.flowsPerSecond = flowsPerSecond;
+            return this;
+        }
+
+        /**
+         * Sets the number of reports per second to aim for.
+         *
+         * A flow produces a report per active timeout and one at its end. New flows are spawned as long as the reports
+         * they will produce fit into the given rate. Can be combined with a flow rate, in which case the lower of both
+         * limits the flows to spawn. Zero disables the target.
+         */
+        public Builder withReportsPerSecond(final double reportsPerSecond) {
+            if (!(reportsPerSecond >= 0.0) || Double.isInfinite(reportsPerSecond)) {
+                throw new IllegalArgumentException("reportsPerSecond must be finite and non-negative");
+            }
+            this.reportsPerSecond = reportsPerSecond;
+            return this;
+        }
+
         public FlowGenerator build(final Instant now, final Random random) {
-            return new FlowGenerator(this, now, random);
+            return this.build(now, RandomSource.of(random));
+        }
+
+        public FlowGenerator build(final Instant now, final RandomSource random) {
+            return new FlowGenerator(PARAMETERS.intern(new Parameters(this)), now, Objects.requireNonNull(random));
         }
     }
 }
@@ -34,24 +34,55 @@ import java.util.Objects;
 
 import com.google.common.base.MoreObjects;
 
+/**
+ * The bytes a flow transmitted between two instants.
+ *
+ * The instants are kept as epoch milliseconds. {@link Instant} objects are only created when asked for.
+ */
 public class FlowReport {
-    private final Instant start;
-    private final Instant end;
-    private final long bytes;
+    private long start;
+    private long end;
+    private long bytes;
 
     public FlowReport(final Instant start,
                       final Instant end,
                       final long bytes) {
-        this.start = Objects.requireNonNull(start);
-        this.end = Objects.requireNonNull(end);
+        this(start.toEpochMilli(), end.toEpochMilli(), bytes);
+    }
+
+    public FlowReport(final long startMillis,
+                      final long endMillis,
+                      final long bytes) {
+        this.start = startMillis;
+        this.end = endMillis;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Reuses this report for another flow.
+     *
+     * Only used for flyweight reports handed to handlers that do not retain them.
+     */
+    FlowReport set(final long startMillis, final long endMillis, final long bytes) {
+        this.start = startMillis;
+        this.end = endMillis;
         this.bytes = bytes;
+        return this;
     }
 
     public Instant getStart() {
-        return this.start;
+        return Instant.ofEpochMilli(this.start);
     }
 
     public Instant getEnd() {
+        return Instant.ofEpochMilli(this.end);
+    }
+
+    public long getStartMillis() {
+        return this.start;
+    }
+
+    public long getEndMillis() {
         return this.end;
     }
 
@@ -60,7 +91,7 @@ public class FlowReport {
     }
 
     public Duration getDuration() {
-        return Duration.between(this.start, this.end);
+        return Duration.ofMillis(this.end - this.start);
     }
 
     @Override
@@ -69,8 +100,8 @@ public class FlowReport {
         if (o == null || getClass() != o.getClass()) return false;
         final FlowReport that = (FlowReport) o;
         return this.bytes == that.bytes &&
-                Objects.equals(this.start, that.start) &&
-                Objects.equals(this.end, that.end);
+                this.start == that.start &&
+                this.end == that.end;
     }
 
     @Override
@@ -81,8 +112,8 @@ public class FlowReport {
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
-                .add("start", this.start)
-                .add("end", this.end)
+                .add("start", this.getStart())
+                .add("end", this.getEnd())
                 .add("bytes", this.bytes)
                 .toString();
     }
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The reports of a single exporter in columnar form.
+ *
+ * Start, end and byte count of the reports are stored in parallel primitive arrays. A batch is reused by its
+ * producer: handlers must not keep a reference to it beyond the call that handed it over.
+ */
+public class FlowReportBatch {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Exporter exporter;
+    private int size;
+    private long[] start;
+    private long[] end;
+    private long[] bytes;
+
+    public FlowReportBatch() {
+        this(0);
+    }
+
+    public FlowReportBatch(final int capacity) {
+        this.start = new long[capacity];
+        this.end = new long[capacity];
+        this.bytes = new long[capacity];
+    }
+
+    /**
+     * Clears the batch and assigns it to the given exporter.
+     */
+    public FlowReportBatch reset(final Exporter exporter) {
+        this.exporter = exporter;
+        this.size = 0;
+        return this;
+    }
+
+    public void add(final long startMillis, final long endMillis, final long bytes) {
+        if (this.size == this.start.length) {
+            final int capacity = Math.max(INITIAL_CAPACITY, this.size * 2);
+            this.start = Arrays.copyOf(this.start, capacity);
+            this.end = Arrays.copyOf(this.end, capacity);
+            this.bytes = Arrays.copyOf(this.bytes, capacity);
+        }
+
+        this.start[this.size] = startMillis;
+        this.end[this.size] = endMillis;
+        this.bytes[this.size] = bytes;
+        this.size++;
+    }
+
+    public void add(final FlowReport report) {
+        this.add(report.getStartMillis(), report.getEndMillis(), report.getBytes());
+    }
+
+    public Exporter getExporter() {
+        return this.exporter;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public long getStartMillis(final int index) {
+        Objects.checkIndex(index, this.size);
+        return this.start[index];
+    }
+
+    public long getEndMillis(final int index) {
+        Objects.checkIndex(index, this.size);
+        return this.end[index];
+    }
+
+    public long getBytes(final int index) {
+        Objects.checkIndex(index, this.size);
+        return this.bytes[index];
+    }
+
+    /**
+     * Returns the sum of the bytes of all reports in this batch.
+     */
+    public long getTotalBytes() {
+        long total = 0;
+        for (int i = 0; i < this.size; i++) {
+            total += this.bytes[i];
+        }
+        return total;
+    }
+
+    /**
+     * Materializes a single report.
+     */
+    public FlowReport getReport(final int index) {
+        return new FlowReport(this.getStartMillis(index), this.getEndMillis(index), this.getBytes(index));
+    }
+
+    /**
+     * Loads a single report into the given flyweight instead of creating a new one.
+     */
+    public FlowReport getReport(final int index, final FlowReport flyweight) {
+        return flyweight.set(this.getStartMillis(index), this.getEndMillis(index), this.getBytes(index));
+    }
+
+    /**
+     * Materializes all reports of this batch.
+     */
+    public List<FlowReport> toReports() {
+        final List<FlowReport> reports = new ArrayList<>(this.size);
+        for (int i = 0; i < this.size; i++) {
+            reports.add(this.getReport(i));
+        }
+        return reports;
+    }
+
+    @Override
+    public String toString() {
+        return "FlowReportBatch{" +
+                "exporter=" + (this.exporter != null ? this.exporter.getNodeId() : null) +
+                ", size=" + this.size +
+                '}';
+    }
+}
@@ -0,0 +1,452 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter;
+
+import java.util.Arrays;
+
+/**
+ * The ongoing flows of a generator.
+ *
+ * The state of the flows is kept in parallel primitive arrays indexed by the slot of the flow, so iterating the
+ * flows touches contiguous memory and allocates nothing. A flow is removed by moving the last flow into its slot.
+ * Hence, the slots of the flows change on removal and the order of the flows is not stable.
+ *
+ * All instants are epoch nanoseconds, so ticks can be shorter than a millisecond. Reports are truncated to
+ * milliseconds when they are appended to a batch.
+ *
+ * Bytes are accrued lazily: a flow only remembers its rate and the instant since which it transmits at this rate.
+ * The bytes are settled whenever the rate changes or the flow is reported. Accrual is done in integer fixed point:
+ * whole bytes plus nano-bytes, i.e. bytes per second times nanoseconds, which is exact. The product of rate and time
+ * is split so no intermediate result overflows unless the accrued bytes themselves do. The fractions of bytes left
+ * over when a flow is reported are carried over to the next report of any flow, so the reported bytes add up to the
+ * exact total at any rate and tick length.
+ *
+ * The next event of every flow, i.e. its end or its next active timeout, is scheduled in a hashed timing wheel. The
+ * buckets of the wheel are intrusive doubly-linked lists threaded through the slots. Advancing the wheel only touches
+ * the buckets passed since the last advance and the flows that are due.
+ */
+class FlowTable {
+    private static final int MIN_BUCKETS = 16;
+    private static final int MAX_INITIAL_CAPACITY = 1 << 10;
+    private static final int MAX_BUCKETS = 1 << 16;
+    private static final long[] NO_LONGS = new long[0];
+    private static final int[] NO_INTS = new int[0];
+    private static final int NONE = -1;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final int expectedSize;
+
+    private long[] start = NO_LONGS;
+    private long[] reported = NO_LONGS;
+    private long[] rate = NO_LONGS;
+    private long[] accrued = NO_LONGS;
+    private long[] accruedNanoBytes = NO_LONGS;
+    private long[] accrualStart = NO_LONGS;
+    private long[] end = NO_LONGS;
+    private long[] due = NO_LONGS;
+    private int[] next = NO_INTS;
+    private int[] prev = NO_INTS;
+    private int[] bucket = NO_INTS;
+
+    private int size;
+    private long totalRate;
+
+    // fraction of a byte in nano-bytes not reported yet
+    private long dust;
+
+    // the wheel: one list per bucket and an additional list for flows due in a later round of the wheel
+    private int[] heads = NO_INTS;
+    private int mask;
+    private long origin;
+    private long resolution;
+    private long cursor;
+
+    FlowTable(final int expectedSize) {
+        this.expectedSize = Math.max(1, Math.min(expectedSize, MAX_BUCKETS));
+    }
+
+    /**
+     * Allocates the arrays of the table for the expected number of flows on first use, so generators that have not
+     * spawned any flows yet only cost their own object.
+     */
+    private void materialize() {
+        final int capacity = Math.min(this.expectedSize, MAX_INITIAL_CAPACITY);
+        this.start = new long[capacity];
+        this.reported = new long[capacity];
+        this.rate = new long[capacity];
+        this.accrued = new long[capacity];
+        this.accruedNanoBytes = new long[capacity];
+        this.accrualStart = new long[capacity];
+        this.end = new long[capacity];
+        this.due = new long[capacity];
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+        this.bucket = new int[capacity];
+    }
+
+    /**
+     * Sets up the timing wheel.
+     *
+     * The wheel starts at the given origin and has buckets of the given resolution. It spans at least the given
+     * horizon, so events scheduled less than the horizon ahead are found without passing the wheel multiple times,
+     * but it has no more buckets than flows are expected. Flows due in a later round of a shorter wheel are passed over
+     * until they are due.
+     */
+    public void configure(final long originNanos, final long resolutionNanos, final long horizonNanos) {
+        if (resolutionNanos <= 0) {
+            throw new IllegalArgumentException("resolution must be positive");
+        }
+        if (this.size > 0) {
+            throw new IllegalStateException("the wheel can only be configured while the table is empty");
+        }
+
+        final long buckets = Math.min(Math.max(MIN_BUCKETS, this.expectedSize), horizonNanos / resolutionNanos + 2);
+        final int length = Integer.highestOneBit((int) buckets - 1) << 1;
+
+        this.heads = new int[length + 1];
+        Arrays.fill(this.heads, NONE);
+        this.mask = length - 1;
+        this.origin = originNanos;
+        this.resolution = resolutionNanos;
+        this.cursor = 0;
+    }
+
+    public boolean isConfigured() {
+        return this.heads.length > 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Adds a flow starting at the given instant and returns its slot.
+     *
+     * The flow is not scheduled until {@link #schedule(int, long, long)} is called.
+     */
+    public int add(final long startNanos, final long bytesPerSecond) {
+        if (this.start.length == 0) {
+            this.materialize();
+        } else if (this.size == this.start.length) {
+            final int capacity = this.start.length * 2;
+            this.start = Arrays.copyOf(this.start, capacity);
+            this.reported = Arrays.copyOf(this.reported, capacity);
+            this.rate = Arrays.copyOf(this.rate, capacity);
+            this.accrued = Arrays.copyOf(this.accrued, capacity);
+            this.accruedNanoBytes = Arrays.copyOf(this.accruedNanoBytes, capacity);
+            this.accrualStart = Arrays.copyOf(this.accrualStart, capacity);
+            this.end = Arrays.copyOf(this.end, capacity);
+            this.due = Arrays.copyOf(this.due, capacity);
+            this.next = Arrays.copyOf(this.next, capacity);
+            this.prev = Arrays.copyOf(this.prev, capacity);
+            this.bucket = Arrays.copyOf(this.bucket, capacity);
+        }
+
+        final int slot = this.size++;
+        this.start[slot] = startNanos;
+        this.reported[slot] = startNanos;
+        this.rate[slot] = bytesPerSecond;
+        this.accrued[slot] = 0;
+        this.accruedNanoBytes[slot] = 0;
+        this.accrualStart[slot] = startNanos;
+        this.end[slot] = Long.MAX_VALUE;
+        this.due[slot] = Long.MAX_VALUE;
+        this.bucket[slot] = NONE;
+
+        this.totalRate += bytesPerSecond;
+        return slot;
+    }
+
+    /**
+     * Removes the flow in the given slot by moving the last flow into it.
+     */
+    public void remove(final int slot) {
+        this.unlink(slot);
+        this.totalRate -= this.rate[slot];
+
+        final int last = --this.size;
+        if (slot != last) {
+            this.start[slot] = this.start[last];
+            this.reported[slot] = this.reported[last];
+            this.rate[slot] = this.rate[last];
+            this.accrued[slot] = this.accrued[last];
+            this.accruedNanoBytes[slot] = this.accruedNanoBytes[last];
+            this.accrualStart[slot] = this.accrualStart[last];
+            this.end[slot] = this.end[last];
+            this.due[slot] = this.due[last];
+            this.next[slot] = this.next[last];
+            this.prev[slot] = this.prev[last];
+            this.bucket[slot] = this.bucket[last];
+
+            // let the neighbours of the moved flow point to its new slot
+            if (this.bucket[slot] != NONE) {
+                if (this.prev[slot] != NONE) {
+                    this.next[this.prev[slot]] = slot;
+                } else {
+                    this.heads[this.bucket[slot]] = slot;
+                }
+                if (this.next[slot] != NONE) {
+                    this.prev[this.next[slot]] = slot;
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        this.size = 0;
+        this.totalRate = 0;
+        Arrays.fill(this.heads, NONE);
+    }
+
+    public long getStart(final int slot) {
+        return this.start[slot];
+    }
+
+    public long getReported(final int slot) {
+        return this.reported[slot];
+    }
+
+    public long getRate(final int slot) {
+        return this.rate[slot];
+    }
+
+    public long getEnd(final int slot) {
+        return this.end[slot];
+    }
+
+    public long getDue(final int slot) {
+        return this.due[slot];
+    }
+
+    /**
+     * Changes the rate of the flow in the given slot from the given instant on.
+     */
+    public void setRate(final int slot, final long bytesPerSecond, final long nowNanos) {
+        this.settle(slot, nowNanos);
+        this.totalRate += bytesPerSecond - this.rate[slot];
+        this.rate[slot] = bytesPerSecond;
+    }
+
+    private void settle(final int slot, final long nowNanos) {
+        final long elapsed = nowNanos - this.accrualStart[slot];
+        final long rate = this.rate[slot];
+
+        long nanoBytes = this.accruedNanoBytes[slot] + fractionOf(rate, elapsed);
+        this.accrued[slot] += bytesOf(rate, elapsed) + nanoBytes / NANOS_PER_SECOND;
+        this.accruedNanoBytes[slot] = nanoBytes % NANOS_PER_SECOND;
+        this.accrualStart[slot] = nowNanos;
+    }
+
+    /**
+     * Returns the whole bytes transmitted at the given rate in the given nanoseconds.
+     *
+     * With {@code elapsed = s * 10^9 + n} and {@code rate = a * 10^9 + b} the bytes are {@code rate * s + a * n +
+     * b * n / 10^9}, where {@code b * n} is less than 10^18 and only the first two products can overflow. These throw
+     * instead of wrapping around.
+     */
+    static long bytesOf(final long rate, final long elapsedNanos) {
+        final long s = elapsedNanos / NANOS_PER_SECOND;
+        final long n = elapsedNanos % NANOS_PER_SECOND;
+        final long a = rate / NANOS_PER_SECOND;
+        final long b = rate % NANOS_PER_SECOND;
+        return Math.addExact(Math.addExact(Math.multiplyExact(rate, s), Math.multiplyExact(a, n)), b * n / NANOS_PER_SECOND);
+    }
+
+    /**
+     * Returns the fraction of a byte in nano-bytes transmitted at the given rate in the given nanoseconds in addition to
+     * {@link #bytesOf(long, long)}.
+     */
+    static long fractionOf(final long rate, final long elapsedNanos) {
+        return (rate % NANOS_PER_SECOND) * (elapsedNanos % NANOS_PER_SECOND) % NANOS_PER_SECOND;
+    }
+
+    /**
+     * Pauses all flows between the given instants. No bytes are accrued for this time.
+     */
+    public void pause(final long fromNanos, final long untilNanos) {
+        for (int i = 0; i < this.size; i++) {
+            this.settle(i, fromNanos);
+            this.accrualStart[i] = untilNanos;
+        }
+    }
+
+    /**
+     * Appends a report of the bytes transmitted since the last report of the flow in the given slot and resets them.
+     */
+    public void report(final int slot, final long nowNanos, final FlowReportBatch batch) {
+        this.settle(slot, nowNanos);
+
+        final long nanoBytes = this.accruedNanoBytes[slot] + this.dust;
+        this.dust = nanoBytes % NANOS_PER_SECOND;
+        final long bytes = this.accrued[slot] + nanoBytes / NANOS_PER_SECOND;
+        this.accrued[slot] = 0;
+        this.accruedNanoBytes[slot] = 0;
+
+        batch.add(Math.floorDiv(this.reported[slot], NANOS_PER_MILLI), Math.floorDiv(nowNanos, NANOS_PER_MILLI), bytes);
+        this.reported[slot] = nowNanos;
+    }
+
+    /**
+     * Sets the end of the flow in the given slot and schedules its next event, i.e. either its end or the given
+     * active timeout, whichever comes first.
+     */
+    public void schedule(final int slot, final long endNanos, final long timeoutNanos) {
+        this.end[slot] = endNanos;
+        this.schedule(slot, Math.min(endNanos, timeoutNanos));
+    }
+
+    private void schedule(final int slot, final long dueNanos) {
+        if (!this.isConfigured()) {
+            throw new IllegalStateException("the wheel is not configured");
+        }
+
+        this.unlink(slot);
+        this.due[slot] = dueNanos;
+
+        // round up, so a flow is never found before it is due
+        long index = Math.floorDiv(dueNanos - this.origin + this.resolution - 1, this.resolution);
+        if (index <= this.cursor) {
+            index = this.cursor + 1;
+        }
+        this.link(slot, (int) (index & this.mask));
+    }
+
+    /**
+     * Reports all flows whose next event is due at the given instant.
+     *
+     * Ended flows are removed. Flows hitting the active timeout are scheduled again for the next timeout or their end.
+     */
+    public void advance(final long nowNanos, final long activeTimeoutNanos, final FlowReportBatch batch) {
+        final long target = Math.floorDiv(nowNanos - this.origin, this.resolution);
+
+        // passing more buckets than the wheel has would only visit the same buckets again
+        final long steps = Math.min(target - this.cursor, this.mask + 1);
+        for (long index = target - steps + 1; index <= target; index++) {
+            this.expire((int) (index & this.mask), nowNanos, activeTimeoutNanos, batch);
+        }
+
+        this.cursor = Math.max(this.cursor, target);
+    }
+
+    private void expire(final int bucket, final long nowNanos, final long activeTimeoutNanos, final FlowReportBatch batch) {
+        final int later = this.heads.length - 1;
+
+        int slot;
+        while ((slot = this.heads[bucket]) != NONE) {
+            this.unlink(slot);
+
+            if (this.due[slot] > nowNanos) {
+                // due in a later round of the wheel
+                this.link(slot, later);
+                continue;
+            }
+
+            this.report(slot, nowNanos, batch);
+
+            if (this.end[slot] <= nowNanos) {
+                this.remove(slot);
+            } else {
+                this.schedule(slot, Math.min(this.end[slot], nowNanos + activeTimeoutNanos));
+            }
+        }
+
+        // put the flows due later back into the bucket
+        while ((slot = this.heads[later]) != NONE) {
+            this.unlink(slot);
+            this.link(slot, bucket);
+        }
+    }
+
+    private void link(final int slot, final int list) {
+        final int head = this.heads[list];
+        this.prev[slot] = NONE;
+        this.next[slot] = head;
+        if (head != NONE) {
+            this.prev[head] = slot;
+        }
+        this.heads[list] = slot;
+        this.bucket[slot] = list;
+    }
+
+    private void unlink(final int slot) {
+        final int list = this.bucket[slot];
+        if (list == NONE) {
+            return;
+        }
+
+        final int p = this.prev[slot];
+        final int n = this.next[slot];
+        if (p != NONE) {
+            this.next[p] = n;
+        } else {
+            this.heads[list] = n;
+        }
+        if (n != NONE) {
+            this.prev[n] = p;
+        }
+        this.bucket[slot] = NONE;
+    }
+
+    /**
+     * Returns the sum of the rates of all flows.
+     */
+    public long getTotalRate() {
+        return this.totalRate;
+    }
+
+    /**
+     * Returns the sum of the bytes transmitted but not yet reported by all flows at the given instant.
+     */
+    public long getUnreportedBytes(final long nowNanos) {
+        long bytes = 0;
+        long nanoBytes = this.dust;
+        for (int i = 0; i < this.size; i++) {
+            final long elapsed = nowNanos - this.accrualStart[i];
+            bytes += this.accrued[i] + bytesOf(this.rate[i], elapsed);
+            nanoBytes += this.accruedNanoBytes[i] + fractionOf(this.rate[i], elapsed);
+
+            // keep the fractions from overflowing
+            bytes += nanoBytes / NANOS_PER_SECOND;
+            nanoBytes %= NANOS_PER_SECOND;
+        }
+        return bytes + nanoBytes / NANOS_PER_SECOND;
+    }
+
+    @Override
+    public String toString() {
+        return "FlowTable{" +
+                "size=" + this.size +
+                ", totalRate=" + this.totalRate +
+                '}';
+    }
+}
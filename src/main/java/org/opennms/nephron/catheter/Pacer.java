@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+import org.opennms.nephron.catheter.metrics.Histogram;
+
+/**
+ * Paces the ticks of a worker against a wall clock.
+ *
+ * The speed factor determines how much simulated time passes per unit of wall-clock time: a speed of 24 replays a
+ * day in an hour, a speed of 0.5 runs at half the real pace. Deadlines are derived from a single origin taken when
+ * the pacer is started, so waiting never accumulates drift. The delay between the deadline of a tick and the moment
+ * it actually starts is recorded as schedule lag.
+ */
+public class Pacer {
+
+    /**
+     * Determines how a worker deals with ticks whose deadline already passed.
+     */
+    public enum CatchUpPolicy {
+        /**
+         * Evaluate every overdue tick without waiting until the schedule is met again.
+         */
+        BURST,
+
+        /**
+         * Merge all overdue ticks into a single larger tick.
+         */
+        COALESCE,
+
+        /**
+         * Skip all overdue ticks. No traffic is generated for the skipped time.
+         */
+        DROP,
+    }
+
+    private final long tickNanos;
+    private final double speed;
+    private final WallClock clock;
+    private final CatchUpPolicy policy;
+    private final Histogram lag;
+
+    // wall-clock duration of a tick
+    private final long tickWallNanos;
+
+    // the simulated instant in epoch nanoseconds and the wall-clock time the schedule is anchored at
+    private long originSimNanos;
+    private long originNanos;
+    private volatile long lastLag;
+    private long lastSkipped;
+    private volatile long skippedTicks;
+
+    public Pacer(final Duration tick, final double speed, final WallClock clock, final CatchUpPolicy policy, final Histogram lag) {
+        if (!(speed > 0.0)) {
+            throw new IllegalArgumentException("speed must be positive");
+        }
+
+        this.tickNanos = tick.toNanos();
+        if (this.tickNanos <= 0) {
+            throw new IllegalArgumentException("tick must be positive");
+        }
+        this.speed = speed;
+        this.clock = Objects.requireNonNull(clock);
+        this.policy = Objects.requireNonNull(policy);
+        this.lag = Objects.requireNonNull(lag);
+
+        this.tickWallNanos = Math.max(1, (long) (this.tickNanos / speed));
+    }
+
+    /**
+     * Anchors the schedule: the given simulated instant corresponds to the current wall-clock time.
+     */
+    public void start(final Instant origin) {
+        this.startNanos(FlowGenerator.epochNanos(origin));
+    }
+
+    /**
+     * Anchors the schedule: the given simulated instant in epoch nanoseconds corresponds to the current wall-clock
+     * time.
+     */
+    public void startNanos(final long originNanos) {
+        this.originSimNanos = originNanos;
+        this.originNanos = this.clock.nanoTime();
+        this.lastLag = 0;
+        this.lastSkipped = 0;
+        this.skippedTicks = 0;
+    }
+
+    private long deadlineOf(final long simNanos) {
+        return this.originNanos + (long) ((simNanos - this.originSimNanos) / this.speed);
+    }
+
+    /**
+     * Waits for the tick following the given one and returns the instant of the tick to evaluate.
+     *
+     * If the worker is behind its schedule, the returned tick may lie multiple ticks ahead depending on the catch-up
+     * policy. The number of ticks skipped this way is available through {@link #getLastSkippedTicks()}.
+     */
+    public Instant awaitNext(final Instant previous) {
+        return Instant.ofEpochSecond(0, this.awaitNextNanos(FlowGenerator.epochNanos(previous)));
+    }
+
+    /**
+     * Waits for the tick following the given one and returns the instant of the tick to evaluate in epoch
+     * nanoseconds.
+     *
+     * @see #awaitNext(Instant)
+     */
+    public long awaitNextNanos(final long previousNanos) {
+        long next = previousNanos + this.tickNanos;
+        final long deadline = deadlineOf(next);
+
+        long now = this.clock.nanoTime();
+        if (now < deadline) {
+            now = this.clock.sleepUntil(deadline);
+        }
+
+        this.lastLag = now - deadline;
+        this.lag.record(this.lastLag);
+
+        long skip = 0;
+        if (this.policy != CatchUpPolicy.BURST && this.lastLag >= this.tickWallNanos) {
+            skip = this.lastLag / this.tickWallNanos;
+            next += skip * this.tickNanos;
+        }
+        this.skippedTicks += skip;
+        this.lastSkipped = skip;
+
+        return next;
+    }
+
+    public double getSpeed() {
+        return this.speed;
+    }
+
+    public CatchUpPolicy getPolicy() {
+        return this.policy;
+    }
+
+    /**
+     * Returns the schedule lag of the last tick in nanoseconds.
+     */
+    public long getLastLag() {
+        return this.lastLag;
+    }
+
+    public long getLastSkippedTicks() {
+        return this.lastSkipped;
+    }
+
+    public long getSkippedTicks() {
+        return this.skippedTicks;
+    }
+}
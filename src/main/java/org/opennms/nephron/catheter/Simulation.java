@@ -30,17 +30,27 @@ package org.opennms.nephron.catheter;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import org.opennms.nephron.catheter.json.FleetJson;
+import org.opennms.nephron.catheter.json.SimulationJson;
+import org.opennms.nephron.catheter.metrics.Histogram;
+import org.opennms.nephron.catheter.random.RandomSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,25 +58,99 @@ public class Simulation {
     private static final Logger LOG = LoggerFactory.getLogger(Simulation.class);
 
     private final BiConsumer<Exporter, FlowReport> handler;
+    private final BatchHandler batchHandler;
     private final Duration tickMs;
-    private final boolean realtime;
+    private final double speed;
+    private final WallClock clock;
     private final Instant startTime;
     private final List<Exporter> exporters;
-    private Thread thread;
+    private final long seed;
+    private final RandomSource.Algorithm randomAlgorithm;
+    private final int parallelism;
+    private final boolean locationSharding;
+    private final int shardIndex;
+    private final int shardCount;
+    private final Pacer.CatchUpPolicy catchUpPolicy;
+    private final boolean exporterMetrics;
+    private final SimulationMetrics metrics;
+    private final List<Worker> workers;
+    private final Map<String, DispatchRing> dispatchRings = new LinkedHashMap<>();
+    private final List<Thread> threads = new ArrayList<>();
     private final AtomicBoolean running = new AtomicBoolean(false);
-    private Duration elapsedTime = Duration.ZERO;
-    private long flowsSent = 0;
-    private long bytesSent = 0;
-    private final Random random = new Random();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
     private long maxIterations = 0;
 
     private Simulation(final Builder builder) {
         this.handler = builder.handler;
+        this.batchHandler = builder.batchHandler;
         this.tickMs = Objects.requireNonNull(builder.tickMs);
-        this.realtime = builder.realtime;
-        this.startTime = Instant.ofEpochMilli(builder.startTime != null ? builder.startTime.toEpochMilli() : Instant.now().toEpochMilli() / builder.tickMs.toMillis() * builder.tickMs.toMillis());
-        this.random.setSeed(builder.seed);
-        this.exporters = builder.exporters.stream().map(e -> e.build(this.startTime, random)).collect(Collectors.toList());
+        this.speed = builder.speed;
+        this.clock = builder.clock;
+        final long alignMillis = Math.max(1, builder.tickMs.toMillis());
+        this.startTime = Instant.ofEpochMilli(builder.startTime != null ? builder.startTime.toEpochMilli() : Instant.now().toEpochMilli() / alignMillis * alignMillis);
+        this.seed = builder.seed;
+        this.randomAlgorithm = builder.randomAlgorithm;
+        this.parallelism = builder.parallelism;
+        this.locationSharding = builder.locationSharding;
+        this.shardIndex = builder.shardIndex;
+        this.shardCount = builder.shardCount;
+        this.catchUpPolicy = builder.catchUpPolicy;
+
+        if (this.shardCount > 1 && builder.startTime == null) {
+            throw new IllegalArgumentException("sharded simulations require an explicit start time");
+        }
+
+        // every exporter gets its own random stream derived from the master seed and its position in the list
+        // -> the generated flows do not depend on the order in which exporters are evaluated
+        // -> the shards of a simulation build disjoint subsets of the exporters that produce the same flows as an
+        //    unsharded simulation
+        final List<Exporter.Builder> exporters = builder.exporters();
+        this.exporters = IntStream.range(0, exporters.size())
+                .filter(i -> i % this.shardCount == this.shardIndex)
+                .mapToObj(i -> exporters.get(i).build(this.startTime, this.randomAlgorithm.create(exporterSeed(this.seed, i))))
+                .collect(Collectors.toList());
+
+        this.exporterMetrics = builder.exporterMetrics;
+        this.metrics = new SimulationMetrics(this.exporterMetrics ? this.exporters : Collections.emptyList());
+
+        // location sharded workers always hand their reports over to a dispatch ring to not stall each other
+        final DispatchRing.Builder dispatchRing = builder.dispatchRing != null || !this.locationSharding
+                ? builder.dispatchRing
+                : DispatchRing.builder();
+
+        final Map<String, List<Exporter>> groups = this.locationSharding
+                ? this.exporters.stream().collect(Collectors.groupingBy(Exporter::getLocation, LinkedHashMap::new, Collectors.toList()))
+                : Collections.singletonMap("simulation", this.exporters);
+
+        // the time spent in the handler is recorded on whatever thread calls it
+        final BatchHandler timedHandler = batch -> {
+            final long started = System.nanoTime();
+            this.batchHandler.accept(batch);
+            this.metrics.getHandlerLatency().record(System.nanoTime() - started);
+        };
+
+        this.workers = new ArrayList<>(groups.size());
+        for (final Map.Entry<String, List<Exporter>> e : groups.entrySet()) {
+            if (dispatchRing != null) {
+                final DispatchRing ring = dispatchRing.build(e.getKey(), timedHandler);
+                this.dispatchRings.put(e.getKey(), ring);
+                this.workers.add(new Worker(this, e.getKey(), e.getValue(), ring));
+            } else {
+                this.workers.add(new Worker(this, e.getKey(), e.getValue(), timedHandler));
+            }
+        }
+    }
+
+    /**
+     * Derives the seed of an exporter's random stream from the master seed.
+     *
+     * Uses the SplitMix64 finalizer to decorrelate the streams of neighbouring exporters.
+     */
+    static long exporterSeed(final long seed, final int index) {
+        long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 
     @Override
@@ -74,7 +158,7 @@ public class Simulation {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         final Simulation that = (Simulation) o;
-        return this.realtime == that.realtime &&
+        return this.speed == that.speed &&
                 Objects.equals(this.tickMs, that.tickMs) &&
                 Objects.equals(this.startTime, that.startTime) &&
                 Objects.equals(this.exporters, that.exporters);
@@ -84,7 +168,13 @@ public class Simulation {
     public String toString() {
         return "Simulation{" +
                 ", tickMs=" + this.tickMs +
-                ", realtime=" + this.realtime +
+                ", speed=" + this.speed +
+                ", catchUpPolicy=" + this.catchUpPolicy +
+                ", randomAlgorithm=" + this.randomAlgorithm +
+                ", parallelism=" + this.parallelism +
+                ", locationSharding=" + this.locationSharding +
+                ", shardIndex=" + this.shardIndex +
+                ", shardCount=" + this.shardCount +
                 ", startTime=" + this.startTime +
                 ", exporters=" + this.exporters +
                 '}';
@@ -92,11 +182,37 @@ public class Simulation {
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.tickMs, this.realtime, this.startTime, this.exporters, this.thread, this.running, this.elapsedTime, this.flowsSent, this.bytesSent, this.random, this.maxIterations);
+        return Objects.hash(this.tickMs, this.speed, this.startTime, this.exporters, this.running, this.seed, this.maxIterations);
     }
 
     public static Builder builder(final BiConsumer<Exporter, FlowReport> handler) {
-        return new Builder(handler);
+        return new Builder().withHandler(handler);
+    }
+
+    public static Builder builder(final BatchHandler batchHandler) {
+        return new Builder().withHandler(batchHandler);
+    }
+
+    public static Builder fromJson(final SimulationJson simulationJson, final BiConsumer<Exporter, FlowReport> handler) {
+        return fromJson(simulationJson, BatchHandler.of(handler));
+    }
+
+    public static Builder fromJson(final SimulationJson simulationJson, final BatchHandler batchHandler) {
+        final Builder builder = builder(batchHandler)
+                .withTickMs(Duration.ofMillis(simulationJson.getTickMs()))
+                .withSpeed(simulationJson.getSpeed() != null ? simulationJson.getSpeed() : simulationJson.getRealtime() ? 1.0 : 0.0)
+                .withStartTime(simulationJson.getStartTime())
+                .withSeed(simulationJson.getSeed())
+                .withRandomAlgorithm(simulationJson.getRandomAlgorithm())
+                .withShard(simulationJson.getShardIndex(), simulationJson.getShardCount())
+                .withExporterMetrics(simulationJson.getExporterMetrics())
+                .withExporters(simulationJson.getExporters().stream().map(Exporter::fromJson).collect(Collectors.toList()));
+
+        for (final FleetJson fleetJson : simulationJson.getFleets()) {
+            builder.withFleet(Fleet.fromJson(fleetJson).build());
+        }
+
+        return builder;
     }
 
     public void start() {
@@ -107,66 +223,42 @@ public class Simulation {
         this.maxIterations = maxIterations;
         if (!this.running.get()) {
             this.running.set(true);
-            this.thread = new Thread(this::run);
-            this.thread.start();
-        }
-    }
-
-    private void run() {
-        this.elapsedTime = Duration.ZERO;
-        this.flowsSent = 0;
-        this.bytesSent = 0;
+            this.threads.clear();
+            this.activeWorkers.set(this.workers.size());
+            this.metrics.reset();
 
-        Instant now = this.startTime;
+            this.dispatchRings.values().forEach(DispatchRing::start);
 
-        while (this.running.get()) {
-            now = now.plus(this.tickMs);
-            this.elapsedTime = Duration.between(this.startTime, now);
-
-            if (this.maxIterations > 0) {
-                this.maxIterations--;
-                if (this.maxIterations == 0) {
-                    this.running.set(false);
-                }
+            for (final Worker worker : this.workers) {
+                final Thread thread = new Thread(() -> run(worker), "catheter-" + worker.getName());
+                this.threads.add(thread);
+                thread.start();
             }
+        }
+    }
 
-            if (this.realtime) {
-                final Duration timeToSleep = Duration.between(Instant.now(), now);
-                if (!timeToSleep.isNegative()) {
-                    try {
-                        LOG.trace("Sleeping for {} ...", timeToSleep);
-                        Thread.sleep(timeToSleep.toMillis());
-                    } catch (InterruptedException e) {
-                        LOG.warn("Simulation: exception while Thread.sleep()", e);
-                    }
+    private void run(final Worker worker) {
+        try {
+            worker.run();
+        } finally {
+            final DispatchRing ring = this.dispatchRings.get(worker.getName());
+            if (ring != null) {
+                try {
+                    ring.close();
+                } catch (final InterruptedException e) {
+                    LOG.warn("Simulation: interrupted while draining dispatch ring {}", worker.getName(), e);
                 }
             }
 
-
-            for (final Exporter exporter : this.exporters) {
-                dispatch(exporter, exporter.tick(now));
+            if (this.activeWorkers.decrementAndGet() == 0) {
+                this.running.set(false);
             }
         }
-
-        LOG.debug("Simulation: shutting down {} exporters", this.exporters.size());
-
-        for (final Exporter exporter : this.exporters) {
-            dispatch(exporter, exporter.shutdown(now));
-        }
-    }
-
-    private void dispatch(final Exporter exporter, final Collection<FlowReport> flowReports) {
-        this.flowsSent += flowReports.size();
-        for (final FlowReport flowReport : flowReports) {
-            this.bytesSent += flowReport.getBytes();
-
-            this.handler.accept(exporter, flowReport);
-        }
     }
 
     public void join() throws InterruptedException {
-        if (this.thread != null) {
-            this.thread.join();
+        for (final Thread thread : this.threads) {
+            thread.join();
         }
     }
 
@@ -176,52 +268,327 @@ public class Simulation {
         }
     }
 
+    public boolean isRunning() {
+        return this.running.get();
+    }
+
     public Duration getElapsedTime() {
-        return this.elapsedTime;
+        return this.workers.stream().map(Worker::getElapsedTime).max(Comparator.naturalOrder()).orElse(Duration.ZERO);
     }
 
     public long getFlowsSent() {
-        return this.flowsSent;
+        return this.metrics.getTraffic().getFlows();
     }
 
     public long getBytesSent() {
-        return this.bytesSent;
+        return this.metrics.getTraffic().getBytes();
+    }
+
+    /**
+     * Returns the live metrics of this simulation.
+     */
+    public SimulationMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Returns, per location, how far the last tick started behind its wall-clock schedule.
+     *
+     * Without location sharding, all exporters are reported under a single pseudo-location.
+     */
+    public Map<String, Duration> getLocationLags() {
+        return this.workers.stream().collect(Collectors.toMap(Worker::getName, Worker::getLag, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    /**
+     * Returns, per location, the number of reports waiting in the dispatch ring.
+     *
+     * This is empty if reports are handed to the handler directly.
+     */
+    public Map<String, Integer> getLocationBacklogs() {
+        return this.dispatchRings.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().getOccupancy(), (a, b) -> a, LinkedHashMap::new));
+    }
+
+    /**
+     * Returns the dispatch rings of the workers by location.
+     *
+     * This is empty if reports are handed to the handler directly.
+     */
+    public Map<String, DispatchRing> getDispatchRings() {
+        return Collections.unmodifiableMap(this.dispatchRings);
+    }
+
+    /**
+     * Returns the number of reports discarded by the dispatch rings.
+     */
+    public long getDroppedReports() {
+        return this.dispatchRings.values().stream().mapToLong(DispatchRing::getDropped).sum();
+    }
+
+    /**
+     * Returns the histogram of schedule lag in nanoseconds, i.e. how late realtime ticks started.
+     *
+     * A growing lag means that generating and handling the flows of a tick takes longer than the tick itself.
+     */
+    public Histogram getScheduleLag() {
+        return this.metrics.getScheduleLag();
+    }
+
+    /**
+     * Returns the histogram of the time in nanoseconds the handler took to accept a batch of reports.
+     */
+    public Histogram getHandlerLatency() {
+        return this.metrics.getHandlerLatency();
+    }
+
+    /**
+     * Scales the traffic of all exporters of this simulation.
+     *
+     * A scale of {@code 1.0} generates the configured traffic. The scale can be changed while the simulation is
+     * running and is picked up by every exporter with its next tick.
+     *
+     * @see FlowGenerator#setRateScale(double)
+     */
+    public void setRateScale(final double rateScale) {
+        for (final Exporter exporter : this.exporters) {
+            exporter.setRateScale(rateScale);
+        }
+    }
+
+    public double getRateScale() {
+        return this.exporters.isEmpty() ? 1.0 : this.exporters.get(0).getRateScale();
+    }
+
+    /**
+     * Returns the number of overdue ticks that were coalesced or dropped.
+     */
+    public long getSkippedTicks() {
+        return this.workers.stream().mapToLong(Worker::getSkippedTicks).sum();
+    }
+
+    public Pacer.CatchUpPolicy getCatchUpPolicy() {
+        return this.catchUpPolicy;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public RandomSource.Algorithm getRandomAlgorithm() {
+        return this.randomAlgorithm;
+    }
+
+    /**
+     * Returns whether flows and bytes are counted per exporter in addition to the totals.
+     */
+    public boolean isExporterMetrics() {
+        return this.exporterMetrics;
+    }
+
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    public boolean isLocationSharding() {
+        return this.locationSharding;
     }
 
-    public Random getRandom() {
-        return this.random;
+    public int getShardIndex() {
+        return this.shardIndex;
     }
 
+    public int getShardCount() {
+        return this.shardCount;
+    }
+
+    public Duration getTickMs() {
+        return this.tickMs;
+    }
+
+    /**
+     * Returns whether the simulation is paced against the wall clock, i.e. whether the speed factor is positive.
+     */
+    public boolean isRealtime() {
+        return this.speed > 0.0;
+    }
+
+    public double getSpeed() {
+        return this.speed;
+    }
+
+    public WallClock getClock() {
+        return this.clock;
+    }
+
+    public Instant getStartTime() {
+        return this.startTime;
+    }
+
+    public List<Exporter> getExporters() {
+        return Collections.unmodifiableList(this.exporters);
+    }
+
+    long getMaxIterations() {
+        return this.maxIterations;
+    }
+
+    /**
+     * Returns the per-report handler or {@code null} if the simulation was built with a batch handler.
+     */
     public BiConsumer<Exporter, FlowReport> getHandler() {
         return this.handler;
     }
 
+    public BatchHandler getBatchHandler() {
+        return this.batchHandler;
+    }
+
     public static class Builder {
         public long seed = new Random().nextLong();
 
         private BiConsumer<Exporter, FlowReport> handler;
+        private BatchHandler batchHandler;
 
         private Duration tickMs = Duration.ofMillis(250);
-        private boolean realtime;
+        private double speed = 0.0;
+        private WallClock clock = WallClock.SYSTEM;
+        private int parallelism = 1;
+        private boolean locationSharding;
+        private DispatchRing.Builder dispatchRing;
+        private int shardIndex = 0;
+        private int shardCount = 1;
+        private Pacer.CatchUpPolicy catchUpPolicy = Pacer.CatchUpPolicy.BURST;
+        private RandomSource.Algorithm randomAlgorithm = RandomSource.Algorithm.SPLITTABLE;
         private Instant startTime;
-        private final List<Exporter.Builder> exporters = new ArrayList<>();
+        private boolean exporterMetrics = true;
 
-        private Builder(final BiConsumer<Exporter, FlowReport> handler) {
-            this.handler = Objects.requireNonNull(handler);
+        // exporters added individually and fleets in the order they were added
+        private final List<List<Exporter.Builder>> exporters = new ArrayList<>();
+
+        private Builder() {
         }
 
+        /**
+         * Sets a handler called for every single report.
+         */
         public Builder withHandler(final BiConsumer<Exporter, FlowReport> handler) {
             this.handler = Objects.requireNonNull(handler);
+            this.batchHandler = BatchHandler.of(handler);
+            return this;
+        }
+
+        /**
+         * Sets a handler called once per exporter and tick with all reports of the exporter.
+         */
+        public Builder withHandler(final BatchHandler batchHandler) {
+            this.handler = null;
+            this.batchHandler = Objects.requireNonNull(batchHandler);
             return this;
         }
 
+        /**
+         * Sets the simulated time between two ticks.
+         *
+         * Ticks can be shorter than a millisecond. The timestamps of the reports are truncated to milliseconds.
+         */
         public Builder withTickMs(final Duration tickMs) {
-            this.tickMs = Objects.requireNonNull(tickMs);
+            if (tickMs.isNegative() || tickMs.isZero()) {
+                throw new IllegalArgumentException("tickMs must be positive");
+            }
+            this.tickMs = tickMs;
             return this;
         }
 
+        /**
+         * Paces the simulation in real time or lets it run as fast as possible.
+         *
+         * This is a shortcut for a speed factor of 1 or 0.
+         */
         public Builder withRealtime(final boolean realtime) {
-            this.realtime = realtime;
+            return this.withSpeed(realtime ? 1.0 : 0.0);
+        }
+
+        /**
+         * Sets the ratio of simulated time to wall-clock time.
+         *
+         * A speed of 24 simulates a day in an hour, a speed of 0.5 runs at half the real pace. A speed of 0 runs the
+         * simulation as fast as possible. Timestamps of the reports are always in simulated time.
+         */
+        public Builder withSpeed(final double speed) {
+            if (!(speed >= 0.0) || Double.isInfinite(speed)) {
+                throw new IllegalArgumentException("speed must be a finite non-negative number");
+            }
+            this.speed = speed;
+            return this;
+        }
+
+        /**
+         * Sets the wall clock used to pace the simulation.
+         */
+        public Builder withClock(final WallClock clock) {
+            this.clock = Objects.requireNonNull(clock);
+            return this;
+        }
+
+        /**
+         * Sets how a realtime simulation catches up with ticks it could not process in time.
+         */
+        public Builder withCatchUpPolicy(final Pacer.CatchUpPolicy catchUpPolicy) {
+            this.catchUpPolicy = Objects.requireNonNull(catchUpPolicy);
+            return this;
+        }
+
+        /**
+         * Sets the number of threads used to evaluate the exporters of a tick.
+         *
+         * The generated flows are independent of this value: each exporter draws from its own random stream derived
+         * from the seed.
+         */
+        public Builder withParallelism(final int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be positive");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Runs the exporters of each location in an independent worker with its own pacing and dispatch ring.
+         *
+         * A slow handler for one location does not stall the generation for other locations. The handler is called
+         * concurrently from one thread per location and must be thread-safe.
+         */
+        public Builder withLocationSharding(final boolean locationSharding) {
+            this.locationSharding = locationSharding;
+            return this;
+        }
+
+        /**
+         * Hands reports over to the handler through a dispatch ring instead of calling it on the worker thread.
+         *
+         * Each worker gets its own ring built from the given builder.
+         */
+        public Builder withDispatchRing(final DispatchRing.Builder dispatchRing) {
+            this.dispatchRing = Objects.requireNonNull(dispatchRing);
+            return this;
+        }
+
+        /**
+         * Restricts this simulation to one shard of the exporters.
+         *
+         * Exporters are assigned round-robin by their position, so simulations started with the same exporters, seed,
+         * start time and tick length on all shard indexes together produce exactly the flows of a single unsharded
+         * simulation.
+         */
+        public Builder withShard(final int shardIndex, final int shardCount) {
+            if (shardCount < 1) {
+                throw new IllegalArgumentException("shardCount must be positive");
+            }
+            if (shardIndex < 0 || shardIndex >= shardCount) {
+                throw new IllegalArgumentException("shardIndex must be in [0, shardCount)");
+            }
+            this.shardIndex = shardIndex;
+            this.shardCount = shardCount;
             return this;
         }
 
@@ -235,18 +602,81 @@ public class Simulation {
         }
 
         public Builder withExporters(final Exporter.Builder... builders) {
-            this.exporters.addAll(Arrays.asList(builders));
-            return this;
+            return this.withExporters(Arrays.asList(builders));
         }
 
         public Builder withExporters(final Collection<Exporter.Builder> builders) {
-            this.exporters.addAll(builders);
+            this.exporters.add(new ArrayList<>(builders));
             return this;
         }
 
+        /**
+         * Adds the exporters of the given fleet after all exporters added so far.
+         *
+         * The fleet is not copied, its exporters are built directly when the simulation is built.
+         */
+        public Builder withFleet(final Fleet fleet) {
+            this.exporters.add(Objects.requireNonNull(fleet));
+            return this;
+        }
+
+        /**
+         * Counts flows and bytes per exporter in addition to the totals.
+         *
+         * Enabled by default. Each exporter gets its own meter, which costs about a kilobyte per exporter and some
+         * time per tick. Disable for large fleets that are only watched as a whole. Without per-exporter metrics,
+         * {@link SimulationMetrics#getTraffic(Exporter)} knows no exporters and no exporter MBeans are registered.
+         */
+        public Builder withExporterMetrics(final boolean exporterMetrics) {
+            this.exporterMetrics = exporterMetrics;
+            return this;
+        }
+
+        /**
+         * Returns all exporters as a single list without copying the fleets.
+         */
+        private List<Exporter.Builder> exporters() {
+            final int[] offsets = new int[this.exporters.size() + 1];
+            for (int i = 0; i < this.exporters.size(); i++) {
+                offsets[i + 1] = Math.addExact(offsets[i], this.exporters.get(i).size());
+            }
+
+            return new AbstractList<>() {
+                @Override
+                public Exporter.Builder get(final int index) {
+                    Objects.checkIndex(index, this.size());
+                    int group = Arrays.binarySearch(offsets, index);
+                    // skip empty groups sharing their offset with the next one
+                    if (group >= 0) {
+                        while (offsets[group + 1] == index) {
+                            group++;
+                        }
+                    } else {
+                        group = -group - 2;
+                    }
+                    return Builder.this.exporters.get(group).get(index - offsets[group]);
+                }
+
+                @Override
+                public int size() {
+                    return offsets[offsets.length - 1];
+                }
+            };
+        }
+
         public Builder withSeed(final long seed) {
             this.seed = seed;
             return this;
         }
+
+        /**
+         * Sets the algorithm of the random streams of the exporters.
+         *
+         * The streams are seeded the same way for all algorithms, but the generated flows differ between them.
+         */
+        public Builder withRandomAlgorithm(final RandomSource.Algorithm randomAlgorithm) {
+            this.randomAlgorithm = Objects.requireNonNull(randomAlgorithm);
+            return this;
+        }
     }
 }
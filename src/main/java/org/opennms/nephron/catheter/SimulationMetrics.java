@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.opennms.nephron.catheter.metrics.Histogram;
+import org.opennms.nephron.catheter.metrics.TrafficMeter;
+
+/**
+ * The live metrics of a simulation.
+ *
+ * All metrics are safe to read from any thread while the simulation is running. Durations are recorded in
+ * nanoseconds.
+ */
+public class SimulationMetrics {
+    private final TrafficMeter traffic = new TrafficMeter();
+    private final Map<Exporter, TrafficMeter> exporterTraffic = new IdentityHashMap<>();
+
+    private final Histogram tickDuration = new Histogram();
+    private final Histogram dispatchDuration = new Histogram();
+    private final Histogram handlerLatency = new Histogram();
+    private final Histogram scheduleLag = new Histogram();
+
+    SimulationMetrics(final List<Exporter> exporters) {
+        // the map is never modified afterwards and can be read concurrently
+        for (final Exporter exporter : exporters) {
+            this.exporterTraffic.put(exporter, new TrafficMeter());
+        }
+    }
+
+    void reset() {
+        this.traffic.reset();
+        this.exporterTraffic.values().forEach(TrafficMeter::reset);
+        this.tickDuration.reset();
+        this.dispatchDuration.reset();
+        this.handlerLatency.reset();
+        this.scheduleLag.reset();
+    }
+
+    /**
+     * Returns the flows and bytes sent by all exporters.
+     */
+    public TrafficMeter getTraffic() {
+        return this.traffic;
+    }
+
+    /**
+     * Returns the flows and bytes sent by the given exporter.
+     */
+    public TrafficMeter getTraffic(final Exporter exporter) {
+        return Objects.requireNonNull(this.exporterTraffic.get(exporter), "unknown exporter or per-exporter metrics disabled");
+    }
+
+    public Map<Exporter, TrafficMeter> getExporterTraffic() {
+        return Collections.unmodifiableMap(this.exporterTraffic);
+    }
+
+    /**
+     * Returns the histogram of the time a worker took to generate and dispatch the reports of a tick.
+     */
+    public Histogram getTickDuration() {
+        return this.tickDuration;
+    }
+
+    /**
+     * Returns the histogram of the time a worker took to hand a batch of reports over to its sink, i.e. either to the
+     * handler or to its dispatch ring.
+     */
+    public Histogram getDispatchDuration() {
+        return this.dispatchDuration;
+    }
+
+    /**
+     * Returns the histogram of the time the handler took to accept a batch of reports.
+     */
+    public Histogram getHandlerLatency() {
+        return this.handlerLatency;
+    }
+
+    /**
+     * Returns the histogram of how late realtime ticks started.
+     */
+    public Histogram getScheduleLag() {
+        return this.scheduleLag;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationMetrics{" +
+                "traffic=" + this.traffic +
+                ", tickDuration=" + this.tickDuration +
+                ", dispatchDuration=" + this.dispatchDuration +
+                ", handlerLatency=" + this.handlerLatency +
+                ", scheduleLag=" + this.scheduleLag +
+                '}';
+    }
+}
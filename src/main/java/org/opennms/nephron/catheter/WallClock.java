@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The source of wall-clock time used to pace a simulation.
+ *
+ * Simulated time is independent of this clock: it only determines when ticks are evaluated.
+ */
+public interface WallClock {
+
+    /**
+     * The system clock based on {@link System#nanoTime()}.
+     *
+     * Waiting parks the thread until shortly before the deadline and spins for the remainder.
+     */
+    WallClock SYSTEM = new WallClock() {
+        private final long spinThresholdNanos = TimeUnit.MICROSECONDS.toNanos(50);
+
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public long sleepUntil(final long deadline) {
+            long now = System.nanoTime();
+            while (deadline - now > this.spinThresholdNanos) {
+                LockSupport.parkNanos(deadline - now - this.spinThresholdNanos);
+                now = System.nanoTime();
+            }
+            while (now < deadline) {
+                Thread.onSpinWait();
+                now = System.nanoTime();
+            }
+            return now;
+        }
+    };
+
+    /**
+     * Returns the current time of this clock in nanoseconds from an arbitrary origin.
+     */
+    long nanoTime();
+
+    /**
+     * Blocks until this clock reached the given time and returns the time of wake up.
+     */
+    long sleepUntil(final long deadline);
+}
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.opennms.nephron.catheter.metrics.TrafficMeter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A clock loop driving a group of exporters.
+ *
+ * A simulation runs either a single worker for all exporters or one worker per location. Each worker paces its own
+ * ticks and hands the reports of its exporters to its own sink.
+ */
+class Worker implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(Worker.class);
+
+    /**
+     * A step applied to every exporter at an instant given in epoch nanoseconds.
+     */
+    @FunctionalInterface
+    private interface Step {
+        void apply(final Exporter exporter, final long nowNanos, final FlowReportBatch batch);
+    }
+
+    private static final Step TICK = Exporter::tickNanos;
+    private static final Step SHUTDOWN = Exporter::shutdownNanos;
+
+    private final Simulation simulation;
+    private final String name;
+    private final List<Exporter> exporters;
+    private final BatchHandler sink;
+    private final Pacer pacer;
+    private final FlowReportBatch[] batches;
+    private final TrafficMeter[] traffic;
+    private final long[] spawnedFlows;
+    private final SimulationMetrics metrics;
+
+    private volatile long elapsedNanos = 0;
+    private volatile long lagNanos = 0;
+
+    Worker(final Simulation simulation,
+           final String name,
+           final List<Exporter> exporters,
+           final BatchHandler sink) {
+        this.simulation = simulation;
+        this.name = name;
+        this.exporters = exporters;
+        this.sink = sink;
+        this.pacer = simulation.isRealtime()
+                ? new Pacer(simulation.getTickMs(), simulation.getSpeed(), simulation.getClock(), simulation.getCatchUpPolicy(), simulation.getScheduleLag())
+                : null;
+
+        this.metrics = simulation.getMetrics();
+        // without per-exporter metrics, the meters are null
+        this.traffic = exporters.stream().map(this.metrics.getExporterTraffic()::get).toArray(TrafficMeter[]::new);
+        this.spawnedFlows = new long[exporters.size()];
+
+        // exporters evaluated in parallel need a batch each, otherwise a single batch is reused for all exporters
+        this.batches = new FlowReportBatch[simulation.getParallelism() > 1 ? exporters.size() : 1];
+        for (int i = 0; i < this.batches.length; i++) {
+            this.batches[i] = new FlowReportBatch();
+        }
+    }
+
+    @Override
+    public void run() {
+        this.elapsedNanos = 0;
+        this.lagNanos = 0;
+
+        final ForkJoinPool pool = this.simulation.getParallelism() > 1 ? new ForkJoinPool(this.simulation.getParallelism()) : null;
+
+        long remainingIterations = this.simulation.getMaxIterations();
+
+        // the loop works on epoch nanoseconds to not allocate per tick and to allow ticks shorter than a millisecond
+        final long startNanos = FlowGenerator.epochNanos(this.simulation.getStartTime());
+        final long tickNanos = this.simulation.getTickMs().toNanos();
+        long now = startNanos;
+
+        if (this.pacer != null) {
+            this.pacer.startNanos(now);
+        }
+
+        while (this.simulation.isRunning()) {
+            if (this.pacer != null) {
+                now = this.pacer.awaitNextNanos(now);
+                this.lagNanos = Math.max(0, this.pacer.getLastLag());
+
+                if (this.pacer.getLastSkippedTicks() > 0) {
+                    LOG.trace("Worker {}: {}ns behind schedule, skipping {} ticks", this.name, this.lagNanos, this.pacer.getLastSkippedTicks());
+
+                    if (this.pacer.getPolicy() == Pacer.CatchUpPolicy.DROP) {
+                        // forget about the overdue ticks and generate traffic for the last tick only
+                        final long skipped = now - tickNanos;
+                        for (final Exporter exporter : this.exporters) {
+                            exporter.skipNanos(skipped);
+                        }
+                    }
+                }
+            } else {
+                now += tickNanos;
+            }
+
+            this.elapsedNanos = now - startNanos;
+
+            final long started = System.nanoTime();
+            evaluate(pool, TICK, now);
+            this.metrics.getTickDuration().record(System.nanoTime() - started);
+
+            if (remainingIterations > 0) {
+                remainingIterations--;
+                if (remainingIterations == 0) {
+                    break;
+                }
+            }
+        }
+
+        LOG.debug("Worker {}: shutting down {} exporters", this.name, this.exporters.size());
+
+        evaluate(pool, SHUTDOWN, now);
+
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Applies the given step to all exporters and dispatches the resulting reports.
+     *
+     * If a pool is given, the exporters are evaluated concurrently. The reports are always dispatched on the
+     * worker thread in the order of the exporters.
+     */
+    private void evaluate(final ForkJoinPool pool, final Step step, final long nowNanos) {
+        if (pool == null) {
+            final FlowReportBatch batch = this.batches[0];
+            for (int i = 0; i < this.exporters.size(); i++) {
+                step.apply(this.exporters.get(i), nowNanos, batch);
+                dispatch(batch, i);
+            }
+            return;
+        }
+
+        try {
+            pool.submit(() -> IntStream.range(0, this.exporters.size()).parallel()
+                    .forEach(i -> step.apply(this.exporters.get(i), nowNanos, this.batches[i]))).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (final ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+
+        for (int i = 0; i < this.batches.length; i++) {
+            dispatch(this.batches[i], i);
+        }
+    }
+
+    private void dispatch(final FlowReportBatch batch, final int exporter) {
+        final long spawnedFlows = this.exporters.get(exporter).getSpawnedFlows();
+        if (spawnedFlows != this.spawnedFlows[exporter]) {
+            if (this.traffic[exporter] != null) {
+                this.traffic[exporter].markSpawned(spawnedFlows - this.spawnedFlows[exporter]);
+            }
+            this.metrics.getTraffic().markSpawned(spawnedFlows - this.spawnedFlows[exporter]);
+            this.spawnedFlows[exporter] = spawnedFlows;
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        final long flows = batch.size();
+        final long bytes = batch.getTotalBytes();
+        if (this.traffic[exporter] != null) {
+            this.traffic[exporter].mark(flows, bytes);
+        }
+        this.metrics.getTraffic().mark(flows, bytes);
+
+        final long started = System.nanoTime();
+        this.sink.accept(batch);
+        this.metrics.getDispatchDuration().record(System.nanoTime() - started);
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public List<Exporter> getExporters() {
+        return this.exporters;
+    }
+
+    public BatchHandler getSink() {
+        return this.sink;
+    }
+
+    public Duration getElapsedTime() {
+        return Duration.ofNanos(this.elapsedNanos);
+    }
+
+    /**
+     * Returns how far the last tick of this worker started behind its wall-clock schedule.
+     *
+     * This is always zero for simulations running as fast as possible.
+     */
+    public Duration getLag() {
+        return Duration.ofNanos(this.lagNanos);
+    }
+
+    /**
+     * Returns the number of ticks that were coalesced or dropped to catch up with the schedule.
+     */
+    public long getSkippedTicks() {
+        return this.pacer != null ? this.pacer.getSkippedTicks() : 0;
+    }
+}
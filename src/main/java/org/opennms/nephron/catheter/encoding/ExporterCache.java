@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.encoding;
+
+import java.util.Map;
+import java.util.function.Function;
+
+import org.opennms.nephron.catheter.Exporter;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Caches a value derived from the fields of an exporter, like the encoded form of its identity, which are fixed once
+ * the exporter is built.
+ *
+ * Exporters are looked up by identity: their equality covers the state of their generator, which changes with every
+ * tick. The exporters are weakly referenced, so the entries of exporters that are no longer used are dropped.
+ */
+final class ExporterCache<V> {
+    private final Map<Exporter, V> values = new MapMaker().weakKeys().makeMap();
+    private final Function<Exporter, V> loader;
+
+    ExporterCache(final Function<Exporter, V> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the value for the given exporter, which is computed on first use.
+     *
+     * Threads racing on the first use may compute the value more than once, but all of them get the same value.
+     */
+    V get(final Exporter exporter) {
+        return this.values.computeIfAbsent(exporter, this.loader);
+    }
+}
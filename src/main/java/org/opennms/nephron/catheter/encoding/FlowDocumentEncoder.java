@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.encoding;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.opennms.nephron.catheter.Exporter;
+
+/**
+ * Encodes reports as the protobuf {@code FlowDocument}s nephron consumes.
+ *
+ * The wire format is written by hand following {@code flowdocument.proto} of OpenNMS, so no generated classes and no
+ * protobuf runtime are needed. Every report sets the timestamp (the end of the report), the byte count and the
+ * delta, first and last switched times. The fields of the exporter - the exporter node with its node ID, foreign
+ * source and foreign ID, the location and the SNMP interface indexes - are encoded once per exporter and copied into
+ * every report. Their field numbers are higher than those of the report fields, so the fields are still written in
+ * field number order.
+ *
+ * Timestamps are unsigned in the wire format. Negative timestamps, i.e. before 1970, are written as their two's
+ * complement.
+ */
+public class FlowDocumentEncoder implements FlowEncoder {
+    // fields of FlowDocument
+    private static final int TIMESTAMP = 1;
+    private static final int NUM_BYTES = 2;
+    private static final int DELTA_SWITCHED = 11;
+    private static final int FIRST_SWITCHED = 12;
+    private static final int LAST_SWITCHED = 13;
+    private static final int INPUT_SNMP_IFINDEX = 17;
+    private static final int OUTPUT_SNMP_IFINDEX = 18;
+    private static final int EXPORTER_NODE = 36;
+    private static final int LOCATION = 40;
+
+    // fields of NodeInfo
+    private static final int NODE_INFO_FOREIGN_SOURCE = 1;
+    private static final int NODE_INFO_FOREIGN_ID = 2;
+    private static final int NODE_INFO_NODE_ID = 3;
+
+    // field of the google.protobuf.*Value wrappers
+    private static final int WRAPPER_VALUE = 1;
+
+    private static final int WIRETYPE_VARINT = 0;
+    private static final int WIRETYPE_LENGTH_DELIMITED = 2;
+
+    private final ExporterCache<byte[]> suffixes = new ExporterCache<>(FlowDocumentEncoder::suffix);
+
+    @Override
+    public void encode(final Exporter exporter, final long startMillis, final long endMillis, final long bytes, final ByteBuffer buffer) {
+        final long offset = exporter.getClockOffset().toMillis();
+        final long start = startMillis + offset;
+        final long end = endMillis + offset;
+
+        putTag(buffer, TIMESTAMP, WIRETYPE_VARINT);
+        putVarint(buffer, end);
+        putWrapper(buffer, NUM_BYTES, bytes);
+        putWrapper(buffer, DELTA_SWITCHED, start);
+        putWrapper(buffer, FIRST_SWITCHED, start);
+        putWrapper(buffer, LAST_SWITCHED, end);
+        buffer.put(this.suffixes.get(exporter));
+    }
+
+    private static byte[] suffix(final Exporter exporter) {
+        final byte[] foreignSource = exporter.getForeignSource().getBytes(StandardCharsets.UTF_8);
+        final byte[] foreignId = exporter.getForeignId().getBytes(StandardCharsets.UTF_8);
+        final byte[] location = exporter.getLocation().getBytes(StandardCharsets.UTF_8);
+
+        // large enough for any of the fields, the unused rest is cut off
+        final ByteBuffer buffer = ByteBuffer.allocate(64 + 2 * (foreignSource.length + foreignId.length + location.length));
+
+        putWrapper(buffer, INPUT_SNMP_IFINDEX, Integer.toUnsignedLong(exporter.getInputSnmp()));
+        putWrapper(buffer, OUTPUT_SNMP_IFINDEX, Integer.toUnsignedLong(exporter.getOutputSnmp()));
+
+        final ByteBuffer node = ByteBuffer.allocate(32 + foreignSource.length + foreignId.length);
+        putBytes(node, NODE_INFO_FOREIGN_SOURCE, foreignSource);
+        putBytes(node, NODE_INFO_FOREIGN_ID, foreignId);
+        if (exporter.getNodeId() != 0) {
+            putTag(node, NODE_INFO_NODE_ID, WIRETYPE_VARINT);
+            putVarint(node, Integer.toUnsignedLong(exporter.getNodeId()));
+        }
+        node.flip();
+        putTag(buffer, EXPORTER_NODE, WIRETYPE_LENGTH_DELIMITED);
+        putVarint(buffer, node.remaining());
+        buffer.put(node);
+
+        putBytes(buffer, LOCATION, location);
+
+        final byte[] suffix = new byte[buffer.position()];
+        buffer.flip().get(suffix);
+        return suffix;
+    }
+
+    /**
+     * Writes a {@code google.protobuf.UInt64Value} or {@code google.protobuf.UInt32Value}. Other than a plain field,
+     * a wrapper is written even if it holds zero, but the value inside is omitted then.
+     */
+    private static void putWrapper(final ByteBuffer buffer, final int field, final long value) {
+        putTag(buffer, field, WIRETYPE_LENGTH_DELIMITED);
+        if (value == 0) {
+            buffer.put((byte) 0);
+        } else {
+            putVarint(buffer, 1 + varintSize(value));
+            putTag(buffer, WRAPPER_VALUE, WIRETYPE_VARINT);
+            putVarint(buffer, value);
+        }
+    }
+
+    /**
+     * Writes a string or bytes field, which is omitted if empty.
+     */
+    private static void putBytes(final ByteBuffer buffer, final int field, final byte[] value) {
+        if (value.length == 0) {
+            return;
+        }
+        putTag(buffer, field, WIRETYPE_LENGTH_DELIMITED);
+        putVarint(buffer, value.length);
+        buffer.put(value);
+    }
+
+    private static void putTag(final ByteBuffer buffer, final int field, final int wireType) {
+        putVarint(buffer, field << 3 | wireType);
+    }
+
+    /**
+     * Writes the given value as an unsigned base 128 varint.
+     */
+    static void putVarint(final ByteBuffer buffer, final long value) {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            buffer.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buffer.put((byte) v);
+    }
+
+    static int varintSize(final long value) {
+        // every byte holds 7 bits, zero takes one byte
+        return Math.max(1, (64 - Long.numberOfLeadingZeros(value) + 6) / 7);
+    }
+}
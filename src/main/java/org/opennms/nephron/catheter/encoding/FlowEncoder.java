@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.encoding;
+
+import java.nio.ByteBuffer;
+
+import org.opennms.nephron.catheter.Exporter;
+import org.opennms.nephron.catheter.FlowReport;
+
+/**
+ * Encodes flow reports into the wire format of a sink.
+ *
+ * Encoders are called concurrently by the workers of different locations and must be thread-safe.
+ */
+@FunctionalInterface
+public interface FlowEncoder {
+
+    /**
+     * Appends the encoded report to the given buffer.
+     *
+     * The timestamps are epoch milliseconds of the simulation clock. Encoders shift them by the clock offset of the
+     * exporter, so skewed exporters report skewed timestamps.
+     *
+     * @throws java.nio.BufferOverflowException if the report does not fit into the remaining buffer. The caller
+     *                                          retries with a larger buffer.
+     */
+    void encode(final Exporter exporter, final long startMillis, final long endMillis, final long bytes, final ByteBuffer buffer);
+
+    /**
+     * Appends the given report to the buffer.
+     */
+    default void encode(final Exporter exporter, final FlowReport report, final ByteBuffer buffer) {
+        this.encode(exporter, report.getStartMillis(), report.getEndMillis(), report.getBytes(), buffer);
+    }
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.encoding;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.opennms.nephron.catheter.Exporter;
+
+/**
+ * Encodes reports as one JSON object each, which is handy to inspect a topic with the console consumer.
+ *
+ * The fields of the exporter are encoded once per exporter and copied into every report.
+ */
+public class JsonFlowEncoder implements FlowEncoder {
+    private static final byte[] START = "\"start\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END = ",\"end\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BYTES = ",\"bytes\":".getBytes(StandardCharsets.US_ASCII);
+
+    private final ExporterCache<byte[]> prefixes = new ExporterCache<>(JsonFlowEncoder::prefix);
+
+    @Override
+    public void encode(final Exporter exporter, final long startMillis, final long endMillis, final long bytes, final ByteBuffer buffer) {
+        final long offset = exporter.getClockOffset().toMillis();
+
+        buffer.put(this.prefixes.get(exporter));
+        buffer.put(START);
+        putLong(buffer, startMillis + offset);
+        buffer.put(END);
+        putLong(buffer, endMillis + offset);
+        buffer.put(BYTES);
+        putLong(buffer, bytes);
+        buffer.put((byte) '}');
+    }
+
+    private static byte[] prefix(final Exporter exporter) {
+        final StringBuilder json = new StringBuilder("{");
+        json.append("\"nodeId\":").append(exporter.getNodeId()).append(',');
+        json.append("\"foreignSource\":");
+        appendString(json, exporter.getForeignSource());
+        json.append(",\"foreignId\":");
+        appendString(json, exporter.getForeignId());
+        json.append(",\"location\":");
+        appendString(json, exporter.getLocation());
+        json.append(",\"inputSnmp\":").append(exporter.getInputSnmp());
+        json.append(",\"outputSnmp\":").append(exporter.getOutputSnmp());
+        json.append(',');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendString(final StringBuilder json, final String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Writes the decimal digits of the given value without allocating.
+     */
+    static void putLong(final ByteBuffer buffer, final long value) {
+        if (value == Long.MIN_VALUE) {
+            buffer.put(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+
+        long v = value;
+        if (v < 0) {
+            buffer.put((byte) '-');
+            v = -v;
+        }
+
+        long divisor = 1;
+        while (divisor <= v / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + v / divisor % 10));
+        }
+    }
+}
@@ -0,0 +1,307 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.jmx;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.opennms.nephron.catheter.Exporter;
+import org.opennms.nephron.catheter.Simulation;
+import org.opennms.nephron.catheter.SimulationMetrics;
+import org.opennms.nephron.catheter.metrics.Histogram;
+import org.opennms.nephron.catheter.metrics.TrafficMeter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exposes the metrics of a simulation as MBeans.
+ *
+ * The following MBeans are registered in the {@code org.opennms.nephron.catheter} domain:
+ * <ul>
+ *     <li>{@code type=Simulation,name=<name>} for the totals of the simulation,</li>
+ *     <li>{@code type=Histogram,simulation=<name>,name=<histogram>} for the tick duration, dispatch duration, handler
+ *     latency and schedule lag,</li>
+ *     <li>{@code type=Exporter,simulation=<name>,index=<index>,name=<foreignSource:foreignId>} per exporter, unless
+ *     per-exporter metrics are disabled.</li>
+ * </ul>
+ *
+ * Closing the registration unregisters all MBeans.
+ */
+public class SimulationMBeans implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(SimulationMBeans.class);
+
+    public static final String DOMAIN = "org.opennms.nephron.catheter";
+
+    private final MBeanServer server;
+    private final List<ObjectName> names = new ArrayList<>();
+
+    private SimulationMBeans(final MBeanServer server) {
+        this.server = Objects.requireNonNull(server);
+    }
+
+    public static SimulationMBeans register(final Simulation simulation, final String name) throws JMException {
+        return register(ManagementFactory.getPlatformMBeanServer(), simulation, name);
+    }
+
+    public static SimulationMBeans register(final MBeanServer server, final Simulation simulation, final String name) throws JMException {
+        final SimulationMBeans mbeans = new SimulationMBeans(server);
+        final SimulationMetrics metrics = simulation.getMetrics();
+        final String simulationName = ObjectName.quote(name);
+
+        try {
+            mbeans.register(new ObjectName(DOMAIN + ":type=Simulation,name=" + simulationName), new SimulationBean(simulation));
+
+            mbeans.register(histogramName(simulationName, "tickDuration"), new HistogramBean(metrics.getTickDuration()));
+            mbeans.register(histogramName(simulationName, "dispatchDuration"), new HistogramBean(metrics.getDispatchDuration()));
+            mbeans.register(histogramName(simulationName, "handlerLatency"), new HistogramBean(metrics.getHandlerLatency()));
+            mbeans.register(histogramName(simulationName, "scheduleLag"), new HistogramBean(metrics.getScheduleLag()));
+
+            if (simulation.isExporterMetrics()) {
+                int index = 0;
+                for (final Exporter exporter : simulation.getExporters()) {
+                    mbeans.register(new ObjectName(DOMAIN + ":type=Exporter,simulation=" + simulationName
+                                    + ",index=" + index++
+                                    + ",name=" + ObjectName.quote(exporter.getForeignSource() + ":" + exporter.getForeignId())),
+                            new ExporterBean(exporter, metrics.getTraffic(exporter)));
+                }
+            }
+        } catch (final JMException e) {
+            mbeans.close();
+            throw e;
+        }
+
+        return mbeans;
+    }
+
+    private static ObjectName histogramName(final String simulationName, final String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=Histogram,simulation=" + simulationName + ",name=" + name);
+    }
+
+    private void register(final ObjectName name, final Object bean) throws JMException {
+        this.server.registerMBean(bean, name);
+        this.names.add(name);
+    }
+
+    public List<ObjectName> getNames() {
+        return this.names;
+    }
+
+    @Override
+    public void close() {
+        for (final ObjectName name : this.names) {
+            try {
+                this.server.unregisterMBean(name);
+            } catch (final JMException e) {
+                LOG.warn("Failed to unregister MBean {}", name, e);
+            }
+        }
+        this.names.clear();
+    }
+
+    private static class SimulationBean implements SimulationMXBean {
+        private final Simulation simulation;
+
+        private SimulationBean(final Simulation simulation) {
+            this.simulation = simulation;
+        }
+
+        @Override
+        public boolean isRunning() {
+            return this.simulation.isRunning();
+        }
+
+        @Override
+        public long getElapsedMillis() {
+            return this.simulation.getElapsedTime().toMillis();
+        }
+
+        @Override
+        public long getFlowsSent() {
+            return this.simulation.getMetrics().getTraffic().getFlows();
+        }
+
+        @Override
+        public long getBytesSent() {
+            return this.simulation.getMetrics().getTraffic().getBytes();
+        }
+
+        @Override
+        public double getFlowsPerSecond() {
+            return this.simulation.getMetrics().getTraffic().getFlowsPerSecond();
+        }
+
+        @Override
+        public long getFlowsSpawned() {
+            return this.simulation.getMetrics().getTraffic().getSpawnedFlows();
+        }
+
+        @Override
+        public double getSpawnedFlowsPerSecond() {
+            return this.simulation.getMetrics().getTraffic().getSpawnedFlowsPerSecond();
+        }
+
+        @Override
+        public double getBytesPerSecond() {
+            return this.simulation.getMetrics().getTraffic().getBytesPerSecond();
+        }
+
+        @Override
+        public double getRateScale() {
+            return this.simulation.getRateScale();
+        }
+
+        @Override
+        public void setRateScale(final double rateScale) {
+            this.simulation.setRateScale(rateScale);
+        }
+
+        @Override
+        public long getSkippedTicks() {
+            return this.simulation.getSkippedTicks();
+        }
+
+        @Override
+        public long getDroppedReports() {
+            return this.simulation.getDroppedReports();
+        }
+    }
+
+    private static class ExporterBean implements ExporterMXBean {
+        private final Exporter exporter;
+        private final TrafficMeter traffic;
+
+        private ExporterBean(final Exporter exporter, final TrafficMeter traffic) {
+            this.exporter = exporter;
+            this.traffic = traffic;
+        }
+
+        @Override
+        public int getNodeId() {
+            return this.exporter.getNodeId();
+        }
+
+        @Override
+        public String getForeignSource() {
+            return this.exporter.getForeignSource();
+        }
+
+        @Override
+        public String getForeignId() {
+            return this.exporter.getForeignId();
+        }
+
+        @Override
+        public String getLocation() {
+            return this.exporter.getLocation();
+        }
+
+        @Override
+        public long getFlowsSent() {
+            return this.traffic.getFlows();
+        }
+
+        @Override
+        public long getBytesSent() {
+            return this.traffic.getBytes();
+        }
+
+        @Override
+        public double getFlowsPerSecond() {
+            return this.traffic.getFlowsPerSecond();
+        }
+
+        @Override
+        public long getFlowsSpawned() {
+            return this.traffic.getSpawnedFlows();
+        }
+
+        @Override
+        public double getSpawnedFlowsPerSecond() {
+            return this.traffic.getSpawnedFlowsPerSecond();
+        }
+
+        @Override
+        public double getBytesPerSecond() {
+            return this.traffic.getBytesPerSecond();
+        }
+    }
+
+    private static class HistogramBean implements HistogramMXBean {
+        private final Histogram histogram;
+
+        private HistogramBean(final Histogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public long getCount() {
+            return this.histogram.getCount();
+        }
+
+        @Override
+        public double getMean() {
+            return this.histogram.getMean();
+        }
+
+        @Override
+        public long getMax() {
+            return this.histogram.getMax();
+        }
+
+        @Override
+        public long getP50() {
+            return this.histogram.getValueAtPercentile(50.0);
+        }
+
+        @Override
+        public long getP90() {
+            return this.histogram.getValueAtPercentile(90.0);
+        }
+
+        @Override
+        public long getP99() {
+            return this.histogram.getValueAtPercentile(99.0);
+        }
+
+        @Override
+        public long getP999() {
+            return this.histogram.getValueAtPercentile(99.9);
+        }
+
+        @Override
+        public void reset() {
+            this.histogram.reset();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.json;
+
+import java.util.Objects;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@XmlRootElement(name = "bucket")
+public class DistributionBucketJson {
+    private double lower = 0.0;
+    private double upper = 0.0;
+    private double weight = 1.0;
+
+    public DistributionBucketJson() {
+    }
+
+    @XmlElement(name = "lower")
+    public double getLower() {
+        return this.lower;
+    }
+
+    public void setLower(final double lower) {
+        this.lower = lower;
+    }
+
+    @XmlElement(name = "upper")
+    public double getUpper() {
+        return this.upper;
+    }
+
+    public void setUpper(final double upper) {
+        this.upper = upper;
+    }
+
+    @XmlElement(name = "weight")
+    public double getWeight() {
+        return this.weight;
+    }
+
+    public void setWeight(final double weight) {
+        this.weight = weight;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final DistributionBucketJson that = (DistributionBucketJson) o;
+        return this.lower == that.lower &&
+                this.upper == that.upper &&
+                this.weight == that.weight;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.lower, this.upper, this.weight);
+    }
+
+    @Override
+    public String toString() {
+        return "DistributionBucketJson{" +
+                "lower=" + this.lower +
+                ", upper=" + this.upper +
+                ", weight=" + this.weight +
+                '}';
+    }
+}
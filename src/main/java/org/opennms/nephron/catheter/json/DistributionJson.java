@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.json;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@XmlRootElement(name = "distribution")
+public class DistributionJson {
+    public enum Type {
+        UNIFORM,
+        PARETO,
+        LOG_NORMAL,
+        ZIPF,
+        EMPIRICAL,
+    }
+
+    private Type type = Type.UNIFORM;
+    private double min = 0.0;
+    private double max = 0.0;
+    private double scale = 1.0;
+    private double shape = 1.0;
+    private double median = 1.0;
+    private double sigma = 1.0;
+    private int count = 1;
+    private double exponent = 1.0;
+    private List<DistributionBucketJson> buckets = new ArrayList<>();
+
+    public DistributionJson() {
+    }
+
+    @XmlElement(name = "type")
+    public Type getType() {
+        return this.type;
+    }
+
+    public void setType(final Type type) {
+        this.type = type;
+    }
+
+    /**
+     * The minimum of a uniform distribution.
+     */
+    @XmlElement(name = "min")
+    public double getMin() {
+        return this.min;
+    }
+
+    public void setMin(final double min) {
+        this.min = min;
+    }
+
+    /**
+     * The maximum of a uniform distribution or the truncation point of a Pareto distribution. Zero leaves a Pareto distribution unbounded.
+     */
+    @XmlElement(name = "max")
+    public double getMax() {
+        return this.max;
+    }
+
+    public void setMax(final double max) {
+        this.max = max;
+    }
+
+    /**
+     * The minimum of a Pareto distribution or the factor applied to the ranks of a Zipf distribution.
+     */
+    @XmlElement(name = "scale")
+    public double getScale() {
+        return this.scale;
+    }
+
+    public void setScale(final double scale) {
+        this.scale = scale;
+    }
+
+    /**
+     * The tail index of a Pareto distribution.
+     */
+    @XmlElement(name = "shape")
+    public double getShape() {
+        return this.shape;
+    }
+
+    public void setShape(final double shape) {
+        this.shape = shape;
+    }
+
+    /**
+     * The median of a log-normal distribution.
+     */
+    @XmlElement(name = "median")
+    public double getMedian() {
+        return this.median;
+    }
+
+    public void setMedian(final double median) {
+        this.median = median;
+    }
+
+    /**
+     * The standard deviation of the logarithm of a log-normal distribution.
+     */
+    @XmlElement(name = "sigma")
+    public double getSigma() {
+        return this.sigma;
+    }
+
+    public void setSigma(final double sigma) {
+        this.sigma = sigma;
+    }
+
+    /**
+     * The number of ranks of a Zipf distribution.
+     */
+    @XmlElement(name = "count")
+    public int getCount() {
+        return this.count;
+    }
+
+    public void setCount(final int count) {
+        this.count = count;
+    }
+
+    /**
+     * The exponent of a Zipf distribution.
+     */
+    @XmlElement(name = "exponent")
+    public double getExponent() {
+        return this.exponent;
+    }
+
+    public void setExponent(final double exponent) {
+        this.exponent = exponent;
+    }
+
+    /**
+     * The histogram of an empirical distribution.
+     */
+    @XmlElement(name = "buckets")
+    public List<DistributionBucketJson> getBuckets() {
+        return this.buckets;
+    }
+
+    public void setBuckets(final List<DistributionBucketJson> buckets) {
+        this.buckets = buckets;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final DistributionJson that = (DistributionJson) o;
+        return Objects.equals(this.type, that.type) &&
+                this.min == that.min &&
+                this.max == that.max &&
+                this.scale == that.scale &&
+                this.shape == that.shape &&
+                this.median == that.median &&
+                this.sigma == that.sigma &&
+                this.count == that.count &&
+                this.exponent == that.exponent &&
+                Objects.equals(this.buckets, that.buckets);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.type, this.min, this.max, this.scale, this.shape, this.median, this.sigma, this.count, this.exponent, this.buckets);
+    }
+
+    @Override
+    public String toString() {
+        return "DistributionJson{" +
+                "type=" + this.type +
+                ", min=" + this.min +
+                ", max=" + this.max +
+                ", scale=" + this.scale +
+                ", shape=" + this.shape +
+                ", median=" + this.median +
+                ", sigma=" + this.sigma +
+                ", count=" + this.count +
+                ", exponent=" + this.exponent +
+                ", buckets=" + this.buckets +
+                '}';
+    }
+}
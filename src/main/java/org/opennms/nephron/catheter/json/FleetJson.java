@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.json;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@XmlRootElement(name = "fleet")
+public class FleetJson {
+    private int size = 0;
+    private int nodeIdOffset = 0;
+    private String foreignSource = "";
+    private String foreignIdPrefix = "";
+    private List<String> locations = new ArrayList<>();
+    private long clockOffsetMs = 0;
+    private FlowGeneratorJson flowGenerator;
+    private int inputSnmp = 0;
+    private int outputSnmp = 0;
+
+    public FleetJson() {
+    }
+
+    @XmlElement(name = "size")
+    public int getSize() {
+        return this.size;
+    }
+
+    public void setSize(final int size) {
+        this.size = size;
+    }
+
+    /**
+     * The node ID of the first exporter. The following exporters get consecutive node IDs.
+     */
+    @XmlElement(name = "nodeIdOffset")
+    public int getNodeIdOffset() {
+        return this.nodeIdOffset;
+    }
+
+    public void setNodeIdOffset(final int nodeIdOffset) {
+        this.nodeIdOffset = nodeIdOffset;
+    }
+
+    @XmlElement(name = "foreignSource")
+    public String getForeignSource() {
+        return this.foreignSource;
+    }
+
+    public void setForeignSource(final String foreignSource) {
+        this.foreignSource = foreignSource;
+    }
+
+    /**
+     * The prefix of the foreign IDs. The index of the exporter in the fleet is appended to it.
+     */
+    @XmlElement(name = "foreignIdPrefix")
+    public String getForeignIdPrefix() {
+        return this.foreignIdPrefix;
+    }
+
+    public void setForeignIdPrefix(final String foreignIdPrefix) {
+        this.foreignIdPrefix = foreignIdPrefix;
+    }
+
+    /**
+     * The locations the exporters are assigned to round-robin. All exporters are in the default location if empty.
+     */
+    @XmlElement(name = "locations")
+    public List<String> getLocations() {
+        return this.locations;
+    }
+
+    public void setLocations(final List<String> locations) {
+        this.locations = locations;
+    }
+
+    @XmlElement(name = "clockOffsetMs")
+    public long getClockOffsetMs() {
+        return this.clockOffsetMs;
+    }
+
+    public void setClockOffsetMs(final long clockOffsetMs) {
+        this.clockOffsetMs = clockOffsetMs;
+    }
+
+    @XmlElement(name = "flowGenerator")
+    public FlowGeneratorJson getFlowGenerator() {
+        return this.flowGenerator;
+    }
+
+    public void setFlowGenerator(final FlowGeneratorJson flowGenerator) {
+        this.flowGenerator = flowGenerator;
+    }
+
+    @XmlElement(name = "inputSnmp")
+    public int getInputSnmp() {
+        return this.inputSnmp;
+    }
+
+    public void setInputSnmp(final int inputSnmp) {
+        this.inputSnmp = inputSnmp;
+    }
+
+    @XmlElement(name = "outputSnmp")
+    public int getOutputSnmp() {
+        return this.outputSnmp;
+    }
+
+    public void setOutputSnmp(final int outputSnmp) {
+        this.outputSnmp = outputSnmp;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final FleetJson that = (FleetJson) o;
+        return this.size == that.size &&
+                this.nodeIdOffset == that.nodeIdOffset &&
+                this.clockOffsetMs == that.clockOffsetMs &&
+                this.inputSnmp == that.inputSnmp &&
+                this.outputSnmp == that.outputSnmp &&
+                Objects.equals(this.foreignSource, that.foreignSource) &&
+                Objects.equals(this.foreignIdPrefix, that.foreignIdPrefix) &&
+                Objects.equals(this.locations, that.locations) &&
+                Objects.equals(this.flowGenerator, that.flowGenerator);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.size, this.nodeIdOffset, this.foreignSource, this.foreignIdPrefix, this.locations, this.clockOffsetMs, this.flowGenerator, this.inputSnmp, this.outputSnmp);
+    }
+
+    @Override
+    public String toString() {
+        return "FleetJson{" +
+                "size=" + this.size +
+                ", nodeIdOffset=" + this.nodeIdOffset +
+                ", foreignSource='" + this.foreignSource + '\'' +
+                ", foreignIdPrefix='" + this.foreignIdPrefix + '\'' +
+                ", locations=" + this.locations +
+                ", clockOffsetMs=" + this.clockOffsetMs +
+                ", flowGenerator=" + this.flowGenerator +
+                ", inputSnmp=" + this.inputSnmp +
+                ", outputSnmp=" + this.outputSnmp +
+                '}';
+    }
+}
@@ -40,6 +40,11 @@ public class FlowGeneratorJson {
     private long minFlowDurationMs = 2000;
     private long maxFlowDurationMs = 20000;
     private long activeTimeoutMs = 1000;
+    private LoadProfileJson loadProfile;
+    private DistributionJson flowDuration;
+    private DistributionJson rateShare;
+    private double flowsPerSecond = 0.0;
+    private double reportsPerSecond = 0.0;
 
     public FlowGeneratorJson() {
     }
@@ -89,6 +94,67 @@ public class FlowGeneratorJson {
         this.activeTimeoutMs = activeTimeoutMs;
     }
 
+    /**
+     * A time-varying target rate. Takes precedence over the constant bytesPerSecond if set.
+     */
+    @XmlElement(name = "loadProfile")
+    public LoadProfileJson getLoadProfile() {
+        return this.loadProfile;
+    }
+
+    public void setLoadProfile(final LoadProfileJson loadProfile) {
+        this.loadProfile = loadProfile;
+    }
+
+    /**
+     * The distribution of flow durations in milliseconds. Takes precedence over minFlowDurationMs and
+     * maxFlowDurationMs if set.
+     */
+    @XmlElement(name = "flowDuration")
+    public DistributionJson getFlowDuration() {
+        return this.flowDuration;
+    }
+
+    public void setFlowDuration(final DistributionJson flowDuration) {
+        this.flowDuration = flowDuration;
+    }
+
+    /**
+     * The distribution of the relative share of new flows in the byte rate. New flows share the rate evenly if unset.
+     */
+    @XmlElement(name = "rateShare")
+    public DistributionJson getRateShare() {
+        return this.rateShare;
+    }
+
+    public void setRateShare(final DistributionJson rateShare) {
+        this.rateShare = rateShare;
+    }
+
+    /**
+     * The number of flows to spawn per second. Zero spawns flows whenever the byte rate is not met.
+     */
+    @XmlElement(name = "flowsPerSecond")
+    public double getFlowsPerSecond() {
+        return this.flowsPerSecond;
+    }
+
+    public void setFlowsPerSecond(final double flowsPerSecond) {
+        this.flowsPerSecond = flowsPerSecond;
+    }
+
+    /**
+     * The number of reports per second to aim for. Zero disables the target.
+     */
+    @XmlElement(name = "reportsPerSecond")
+    public double getReportsPerSecond() {
+        return this.reportsPerSecond;
+    }
+
+    public void setReportsPerSecond(final double reportsPerSecond) {
+        this.reportsPerSecond = reportsPerSecond;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -98,12 +164,17 @@ public class FlowGeneratorJson {
                 this.maxFlowCount == that.maxFlowCount &&
                 this.minFlowDurationMs == that.minFlowDurationMs &&
                 this.maxFlowDurationMs == that.maxFlowDurationMs &&
-                this.activeTimeoutMs == that.activeTimeoutMs;
+                this.activeTimeoutMs == that.activeTimeoutMs &&
+                Objects.equals(this.loadProfile, that.loadProfile) &&
+                Objects.equals(this.flowDuration, that.flowDuration) &&
+                Objects.equals(this.rateShare, that.rateShare) &&
+                this.flowsPerSecond == that.flowsPerSecond &&
+                this.reportsPerSecond == that.reportsPerSecond;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.bytesPerSecond, this.maxFlowCount, this.minFlowDurationMs, this.maxFlowDurationMs, this.activeTimeoutMs);
+        return Objects.hash(this.bytesPerSecond, this.maxFlowCount, this.minFlowDurationMs, this.maxFlowDurationMs, this.activeTimeoutMs, this.loadProfile, this.flowDuration, this.rateShare, this.flowsPerSecond, this.reportsPerSecond);
     }
 
     @Override
@@ -114,6 +185,11 @@ public class FlowGeneratorJson {
                 ", minFlowDurationMs=" + this.minFlowDurationMs +
                 ", maxFlowDurationMs=" + this.maxFlowDurationMs +
                 ", activeTimeoutMs=" + this.activeTimeoutMs +
+                ", loadProfile=" + this.loadProfile +
+                ", flowDuration=" + this.flowDuration +
+                ", rateShare=" + this.rateShare +
+                ", flowsPerSecond=" + this.flowsPerSecond +
+                ", reportsPerSecond=" + this.reportsPerSecond +
                 '}';
     }
 }
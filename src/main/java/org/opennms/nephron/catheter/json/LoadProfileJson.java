@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.json;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@XmlRootElement(name = "loadProfile")
+public class LoadProfileJson {
+    public enum Type {
+        CONSTANT,
+        PIECEWISE_LINEAR,
+        SINE,
+        SUM,
+    }
+
+    private Type type = Type.CONSTANT;
+    private long bytesPerSecond = 0;
+    private long amplitudeBytesPerSecond = 0;
+    private long periodMs = 86_400_000;
+    private long phaseMs = 0;
+    private List<LoadProfilePointJson> points = new ArrayList<>();
+    private long repeatMs = 0;
+    private List<LoadProfileJson> profiles = new ArrayList<>();
+
+    public LoadProfileJson() {
+    }
+
+    @XmlElement(name = "type")
+    public Type getType() {
+        return this.type;
+    }
+
+    public void setType(final Type type) {
+        this.type = type;
+    }
+
+    /**
+     * The rate of a constant profile or the mean rate of a sine profile.
+     */
+    @XmlElement(name = "bytesPerSecond")
+    public long getBytesPerSecond() {
+        return this.bytesPerSecond;
+    }
+
+    public void setBytesPerSecond(final long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    @XmlElement(name = "amplitudeBytesPerSecond")
+    public long getAmplitudeBytesPerSecond() {
+        return this.amplitudeBytesPerSecond;
+    }
+
+    public void setAmplitudeBytesPerSecond(final long amplitudeBytesPerSecond) {
+        this.amplitudeBytesPerSecond = amplitudeBytesPerSecond;
+    }
+
+    @XmlElement(name = "periodMs")
+    public long getPeriodMs() {
+        return this.periodMs;
+    }
+
+    public void setPeriodMs(final long periodMs) {
+        this.periodMs = periodMs;
+    }
+
+    @XmlElement(name = "phaseMs")
+    public long getPhaseMs() {
+        return this.phaseMs;
+    }
+
+    public void setPhaseMs(final long phaseMs) {
+        this.phaseMs = phaseMs;
+    }
+
+    @XmlElement(name = "points")
+    public List<LoadProfilePointJson> getPoints() {
+        return this.points;
+    }
+
+    public void setPoints(final List<LoadProfilePointJson> points) {
+        this.points = points;
+    }
+
+    /**
+     * The interval after which a piecewise linear profile restarts. Zero keeps the rate of the last point.
+     */
+    @XmlElement(name = "repeatMs")
+    public long getRepeatMs() {
+        return this.repeatMs;
+    }
+
+    public void setRepeatMs(final long repeatMs) {
+        this.repeatMs = repeatMs;
+    }
+
+    @XmlElement(name = "profiles")
+    public List<LoadProfileJson> getProfiles() {
+        return this.profiles;
+    }
+
+    public void setProfiles(final List<LoadProfileJson> profiles) {
+        this.profiles = profiles;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final LoadProfileJson that = (LoadProfileJson) o;
+        return this.bytesPerSecond == that.bytesPerSecond &&
+                this.amplitudeBytesPerSecond == that.amplitudeBytesPerSecond &&
+                this.periodMs == that.periodMs &&
+                this.phaseMs == that.phaseMs &&
+                this.repeatMs == that.repeatMs &&
+                this.type == that.type &&
+                Objects.equals(this.points, that.points) &&
+                Objects.equals(this.profiles, that.profiles);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.type, this.bytesPerSecond, this.amplitudeBytesPerSecond, this.periodMs, this.phaseMs, this.points, this.repeatMs, this.profiles);
+    }
+
+    @Override
+    public String toString() {
+        return "LoadProfileJson{" +
+                "type=" + this.type +
+                ", bytesPerSecond=" + this.bytesPerSecond +
+                ", amplitudeBytesPerSecond=" + this.amplitudeBytesPerSecond +
+                ", periodMs=" + this.periodMs +
+                ", phaseMs=" + this.phaseMs +
+                ", points=" + this.points +
+                ", repeatMs=" + this.repeatMs +
+                ", profiles=" + this.profiles +
+                '}';
+    }
+}
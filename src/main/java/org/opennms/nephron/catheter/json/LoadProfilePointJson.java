@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.json;
+
+import java.util.Objects;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@XmlRootElement(name = "point")
+public class LoadProfilePointJson {
+    private long offsetMs = 0;
+    private long bytesPerSecond = 0;
+
+    public LoadProfilePointJson() {
+    }
+
+    @XmlElement(name = "offsetMs")
+    public long getOffsetMs() {
+        return this.offsetMs;
+    }
+
+    public void setOffsetMs(final long offsetMs) {
+        this.offsetMs = offsetMs;
+    }
+
+    @XmlElement(name = "bytesPerSecond")
+    public long getBytesPerSecond() {
+        return this.bytesPerSecond;
+    }
+
+    public void setBytesPerSecond(final long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final LoadProfilePointJson that = (LoadProfilePointJson) o;
+        return this.offsetMs == that.offsetMs &&
+                this.bytesPerSecond == that.bytesPerSecond;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.offsetMs, this.bytesPerSecond);
+    }
+
+    @Override
+    public String toString() {
+        return "LoadProfilePointJson{" +
+                "offsetMs=" + this.offsetMs +
+                ", bytesPerSecond=" + this.bytesPerSecond +
+                '}';
+    }
+}
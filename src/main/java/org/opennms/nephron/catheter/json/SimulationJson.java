@@ -38,15 +38,23 @@ import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
+import org.opennms.nephron.catheter.random.RandomSource;
+
 @XmlRootElement(name = "simulation")
 public class SimulationJson {
     private String bootstrapServers = "";
     private String flowTopic = "";
     private long tickMs = 250;
     private boolean realtime = false;
+    private Double speed = null;
     private Instant startTime = Instant.now();
     private List<ExporterJson> exporters = new ArrayList<>();
+    private List<FleetJson> fleets = new ArrayList<>();
+    private boolean exporterMetrics = true;
     private long seed = new Random().nextLong();
+    private RandomSource.Algorithm randomAlgorithm = RandomSource.Algorithm.SPLITTABLE;
+    private int shardIndex = 0;
+    private int shardCount = 1;
 
     public SimulationJson() {
     }
@@ -87,6 +95,18 @@ public class SimulationJson {
         this.realtime = realtime;
     }
 
+    /**
+     * The ratio of simulated time to wall-clock time. Takes precedence over the realtime flag if set.
+     */
+    @XmlElement(name = "speed")
+    public Double getSpeed() {
+        return this.speed;
+    }
+
+    public void setSpeed(final Double speed) {
+        this.speed = speed;
+    }
+
     @XmlElement(name = "startTime")
     @XmlJavaTypeAdapter(InstantXmlAdapter.class)
     public Instant getStartTime() {
@@ -105,6 +125,30 @@ public class SimulationJson {
         this.exporters = exporters;
     }
 
+    /**
+     * Fleets of exporters described by a template. Their exporters follow the individually listed exporters.
+     */
+    @XmlElement(name = "fleets")
+    public List<FleetJson> getFleets() {
+        return this.fleets;
+    }
+
+    public void setFleets(final List<FleetJson> fleets) {
+        this.fleets = fleets;
+    }
+
+    /**
+     * Whether flows and bytes are counted per exporter in addition to the totals.
+     */
+    @XmlElement(name = "exporterMetrics")
+    public boolean getExporterMetrics() {
+        return this.exporterMetrics;
+    }
+
+    public void setExporterMetrics(final boolean exporterMetrics) {
+        this.exporterMetrics = exporterMetrics;
+    }
+
     @XmlElement(name = "seed")
     public long getSeed() {
         return this.seed;
@@ -114,6 +158,33 @@ public class SimulationJson {
         this.seed = seed;
     }
 
+    @XmlElement(name = "randomAlgorithm")
+    public RandomSource.Algorithm getRandomAlgorithm() {
+        return this.randomAlgorithm;
+    }
+
+    public void setRandomAlgorithm(final RandomSource.Algorithm randomAlgorithm) {
+        this.randomAlgorithm = randomAlgorithm;
+    }
+
+    @XmlElement(name = "shardIndex")
+    public int getShardIndex() {
+        return this.shardIndex;
+    }
+
+    public void setShardIndex(final int shardIndex) {
+        this.shardIndex = shardIndex;
+    }
+
+    @XmlElement(name = "shardCount")
+    public int getShardCount() {
+        return this.shardCount;
+    }
+
+    public void setShardCount(final int shardCount) {
+        this.shardCount = shardCount;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -121,16 +192,22 @@ public class SimulationJson {
         final SimulationJson that = (SimulationJson) o;
         return this.tickMs == that.tickMs &&
                 this.realtime == that.realtime &&
+                Objects.equals(this.speed, that.speed) &&
                 this.seed == that.seed &&
+                this.randomAlgorithm == that.randomAlgorithm &&
+                this.shardIndex == that.shardIndex &&
+                this.shardCount == that.shardCount &&
                 Objects.equals(this.bootstrapServers, that.bootstrapServers) &&
                 Objects.equals(this.flowTopic, that.flowTopic) &&
                 Objects.equals(this.startTime, that.startTime) &&
-                Objects.equals(this.exporters, that.exporters);
+                Objects.equals(this.exporters, that.exporters) &&
+                Objects.equals(this.fleets, that.fleets) &&
+                this.exporterMetrics == that.exporterMetrics;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.bootstrapServers, this.flowTopic, this.tickMs, this.realtime, this.startTime, this.exporters, this.seed);
+        return Objects.hash(this.bootstrapServers, this.flowTopic, this.tickMs, this.realtime, this.speed, this.startTime, this.exporters, this.fleets, this.exporterMetrics, this.seed, this.randomAlgorithm, this.shardIndex, this.shardCount);
     }
 
     @Override
@@ -140,9 +217,15 @@ public class SimulationJson {
                 ", flowTopic='" + this.flowTopic + '\'' +
                 ", tickMs=" + this.tickMs +
                 ", realtime=" + this.realtime +
+                ", speed=" + this.speed +
                 ", startTime=" + this.startTime +
                 ", exporters=" + this.exporters +
+                ", fleets=" + this.fleets +
+                ", exporterMetrics=" + this.exporterMetrics +
                 ", seed=" + this.seed +
+                ", randomAlgorithm=" + this.randomAlgorithm +
+                ", shardIndex=" + this.shardIndex +
+                ", shardCount=" + this.shardCount +
                 '}';
     }
 }
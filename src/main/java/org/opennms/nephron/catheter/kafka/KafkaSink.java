@@ -0,0 +1,320 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.kafka;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.opennms.nephron.catheter.BatchHandler;
+import org.opennms.nephron.catheter.FlowReportBatch;
+import org.opennms.nephron.catheter.encoding.FlowDocumentEncoder;
+import org.opennms.nephron.catheter.encoding.FlowEncoder;
+import org.opennms.nephron.catheter.metrics.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the reports of a simulation to a Kafka topic.
+ *
+ * Every report becomes a record keyed by the node ID of its exporter, so the reports of an exporter stay in order on a
+ * single partition. Records are sent asynchronously. The number of records sent but not yet acknowledged is limited:
+ * once the limit is reached, the handler blocks until the broker catches up, which shows up in the handler latency of
+ * the simulation.
+ *
+ * The sink is thread-safe and can be shared by the workers of a location sharded simulation.
+ */
+public class KafkaSink implements BatchHandler, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(KafkaSink.class);
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    /**
+     * The producer settings applied unless overridden: large, lingering, compressed batches and a leader-only
+     * acknowledgement favour throughput over latency and durability.
+     */
+    public static final Map<String, Object> DEFAULT_PRODUCER_PROPERTIES;
+
+    static {
+        final Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put(ProducerConfig.ACKS_CONFIG, "1");
+        properties.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        properties.put(ProducerConfig.BATCH_SIZE_CONFIG, 256 * 1024);
+        properties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        properties.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 128L * 1024 * 1024);
+        properties.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        properties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false);
+        DEFAULT_PRODUCER_PROPERTIES = Collections.unmodifiableMap(properties);
+    }
+
+    private final Producer<byte[], byte[]> producer;
+    private final String topic;
+    private final FlowEncoder encoder;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+
+    private final Histogram sendLatency = new Histogram();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder acknowledged = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile Exception lastError;
+
+    // every calling thread encodes into its own buffer, which grows to the largest record
+    private final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_BUFFER_SIZE));
+
+    private KafkaSink(final Builder builder) {
+        this.topic = builder.topic;
+        this.encoder = builder.encoder;
+        this.maxInFlight = builder.maxInFlight;
+        this.inFlight = new Semaphore(builder.maxInFlight);
+
+        if (builder.producer != null) {
+            this.producer = builder.producer;
+        } else {
+            final Map<String, Object> properties = new HashMap<>(DEFAULT_PRODUCER_PROPERTIES);
+            properties.putAll(builder.properties);
+            properties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, builder.bootstrapServers);
+            this.producer = new KafkaProducer<>(properties, new ByteArraySerializer(), new ByteArraySerializer());
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public void accept(final FlowReportBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // all records of the batch share the key
+        final byte[] key = ByteBuffer.allocate(Integer.BYTES).putInt(batch.getExporter().getNodeId()).array();
+
+        for (int i = 0; i < batch.size(); i++) {
+            final byte[] value = this.encode(batch, i);
+
+            this.inFlight.acquireUninterruptibly();
+
+            final long started = System.nanoTime();
+            try {
+                this.producer.send(new ProducerRecord<>(this.topic, key, value), (metadata, exception) -> {
+                    this.inFlight.release();
+                    if (exception == null) {
+                        this.acknowledged.increment();
+                        this.sendLatency.record(System.nanoTime() - started);
+                    } else {
+                        this.fail(exception);
+                    }
+                });
+                this.sent.increment();
+            } catch (final RuntimeException e) {
+                this.inFlight.release();
+                this.fail(e);
+            }
+        }
+    }
+
+    private byte[] encode(final FlowReportBatch batch, final int index) {
+        ByteBuffer buffer = this.buffers.get();
+        while (true) {
+            buffer.clear();
+            try {
+                this.encoder.encode(batch.getExporter(), batch.getStartMillis(index), batch.getEndMillis(index), batch.getBytes(index), buffer);
+                return Arrays.copyOf(buffer.array(), buffer.position());
+            } catch (final BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                this.buffers.set(buffer);
+            }
+        }
+    }
+
+    private void fail(final Exception exception) {
+        // only the first failure is logged to not flood the log if the broker is gone
+        if (this.failed.sum() == 0) {
+            LOG.error("Failed to send flow to topic {}", this.topic, exception);
+        }
+        this.failed.increment();
+        this.lastError = exception;
+    }
+
+    /**
+     * Blocks until all records sent so far have been acknowledged or failed.
+     */
+    public void flush() {
+        this.producer.flush();
+    }
+
+    /**
+     * Flushes all pending records and closes the producer.
+     */
+    @Override
+    public void close() {
+        this.producer.flush();
+        this.producer.close(Duration.ofSeconds(30));
+        LOG.info("Sent {} flows to topic {}: {} acknowledged, {} failed", this.getSent(), this.topic, this.getAcknowledged(), this.getFailed());
+    }
+
+    /**
+     * Returns the histogram of the time from handing a record to the producer until it was acknowledged, in
+     * nanoseconds.
+     */
+    public Histogram getSendLatency() {
+        return this.sendLatency;
+    }
+
+    public long getSent() {
+        return this.sent.sum();
+    }
+
+    public long getAcknowledged() {
+        return this.acknowledged.sum();
+    }
+
+    public long getFailed() {
+        return this.failed.sum();
+    }
+
+    /**
+     * Returns the number of records sent but neither acknowledged nor failed yet.
+     */
+    public int getInFlight() {
+        return this.maxInFlight - this.inFlight.availablePermits();
+    }
+
+    public int getMaxInFlight() {
+        return this.maxInFlight;
+    }
+
+    /**
+     * Returns the last error reported by the producer or null if all records were sent successfully.
+     */
+    public Exception getLastError() {
+        return this.lastError;
+    }
+
+    public String getTopic() {
+        return this.topic;
+    }
+
+    @Override
+    public String toString() {
+        return "KafkaSink{" +
+                "topic='" + this.topic + '\'' +
+                ", encoder=" + this.encoder +
+                ", maxInFlight=" + this.maxInFlight +
+                ", sent=" + this.getSent() +
+                ", acknowledged=" + this.getAcknowledged() +
+                ", failed=" + this.getFailed() +
+                ", sendLatency=" + this.sendLatency +
+                '}';
+    }
+
+    public static class Builder {
+        private String bootstrapServers = "localhost:9092";
+        private String topic = "flows";
+        private FlowEncoder encoder = new FlowDocumentEncoder();
+        private int maxInFlight = 64 * 1024;
+        private final Map<String, Object> properties = new HashMap<>();
+        private Producer<byte[], byte[]> producer;
+
+        private Builder() {
+        }
+
+        public Builder withBootstrapServers(final String bootstrapServers) {
+            this.bootstrapServers = Objects.requireNonNull(bootstrapServers);
+            return this;
+        }
+
+        public Builder withTopic(final String topic) {
+            this.topic = Objects.requireNonNull(topic);
+            return this;
+        }
+
+        /**
+         * Sets the encoder of the record values. Reports are encoded as nephron FlowDocuments by default.
+         */
+        public Builder withEncoder(final FlowEncoder encoder) {
+            this.encoder = Objects.requireNonNull(encoder);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of records sent but not yet acknowledged.
+         */
+        public Builder withMaxInFlight(final int maxInFlight) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("maxInFlight must be positive");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Overrides a setting of the producer.
+         *
+         * @see #DEFAULT_PRODUCER_PROPERTIES
+         */
+        public Builder withProducerProperty(final String key, final Object value) {
+            this.properties.put(Objects.requireNonNull(key), Objects.requireNonNull(value));
+            return this;
+        }
+
+        public Builder withProducerProperties(final Map<String, ?> properties) {
+            properties.forEach(this::withProducerProperty);
+            return this;
+        }
+
+        /**
+         * Sends through the given producer instead of creating one from the bootstrap servers and producer settings,
+         * e.g. a {@link org.apache.kafka.clients.producer.MockProducer} in tests.
+         */
+        public Builder withProducer(final Producer<byte[], byte[]> producer) {
+            this.producer = Objects.requireNonNull(producer);
+            return this;
+        }
+
+        public KafkaSink build() {
+            return new KafkaSink(this);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.metrics;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * A per-second rate over a sliding window of wall-clock seconds.
+ *
+ * Marked amounts are counted in one bucket per second. The rate is the sum of the last completed seconds divided by
+ * their number, so it lags behind by up to one second but does not jitter with the tick length. Marking may happen
+ * from multiple threads. An amount marked concurrently with the recycling of its bucket may get lost.
+ */
+public class RollingRate {
+    private static final long SECOND = 1_000_000_000L;
+
+    private final int window;
+    private final LongSupplier nanoTime;
+
+    // one slot more than the window to hold the current, not yet completed second
+    private final AtomicLongArray amounts;
+    private final AtomicLongArray seconds;
+
+    private final long origin;
+
+    public RollingRate(final int window) {
+        this(window, System::nanoTime);
+    }
+
+    public RollingRate(final int window, final LongSupplier nanoTime) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be at least one second");
+        }
+        this.window = window;
+        this.nanoTime = Objects.requireNonNull(nanoTime);
+        this.amounts = new AtomicLongArray(window + 1);
+        this.seconds = new AtomicLongArray(window + 1);
+        this.origin = nanoTime.getAsLong();
+
+        for (int i = 0; i <= window; i++) {
+            this.seconds.set(i, -1);
+        }
+    }
+
+    private long second() {
+        return (this.nanoTime.getAsLong() - this.origin) / SECOND;
+    }
+
+    public void mark(final long amount) {
+        final long second = this.second();
+        final int slot = (int) (second % this.amounts.length());
+
+        final long current = this.seconds.get(slot);
+        if (current != second && this.seconds.compareAndSet(slot, current, second)) {
+            this.amounts.set(slot, 0);
+        }
+        this.amounts.addAndGet(slot, amount);
+    }
+
+    /**
+     * Returns the average amount per second over the completed seconds of the window.
+     */
+    public double getRate() {
+        final long second = this.second();
+        final long seconds = Math.min(this.window, second);
+        if (seconds == 0) {
+            return 0.0;
+        }
+
+        long sum = 0;
+        for (int slot = 0; slot < this.amounts.length(); slot++) {
+            final long s = this.seconds.get(slot);
+            if (s < second && s >= second - seconds) {
+                sum += this.amounts.get(slot);
+            }
+        }
+        return (double) sum / seconds;
+    }
+
+    public void reset() {
+        for (int i = 0; i < this.seconds.length(); i++) {
+            this.seconds.set(i, -1);
+            this.amounts.set(i, 0);
+        }
+    }
+
+    public int getWindow() {
+        return this.window;
+    }
+
+    @Override
+    public String toString() {
+        return "RollingRate{" +
+                "window=" + this.window +
+                ", rate=" + this.getRate() +
+                '}';
+    }
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts flows and bytes and tracks their rolling per-second rates.
+ *
+ * Flows are counted when they are reported, i.e. a flow spanning several active timeouts is counted several times.
+ * The flows spawned by the generators are counted separately.
+ *
+ * Counters are striped, so meters shared by several workers do not contend on a single cache line.
+ */
+public class TrafficMeter {
+    private static final int WINDOW = 10;
+
+    private final LongAdder flows = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder spawnedFlows = new LongAdder();
+    private final RollingRate flowRate;
+    private final RollingRate byteRate;
+    private final RollingRate spawnRate;
+
+    public TrafficMeter() {
+        this(System::nanoTime);
+    }
+
+    public TrafficMeter(final LongSupplier nanoTime) {
+        this.flowRate = new RollingRate(WINDOW, nanoTime);
+        this.byteRate = new RollingRate(WINDOW, nanoTime);
+        this.spawnRate = new RollingRate(WINDOW, nanoTime);
+    }
+
+    public void mark(final long flows, final long bytes) {
+        this.flows.add(flows);
+        this.bytes.add(bytes);
+        this.flowRate.mark(flows);
+        this.byteRate.mark(bytes);
+    }
+
+    public void markSpawned(final long flows) {
+        this.spawnedFlows.add(flows);
+        this.spawnRate.mark(flows);
+    }
+
+    public void reset() {
+        this.flows.reset();
+        this.bytes.reset();
+        this.flowRate.reset();
+        this.byteRate.reset();
+        this.spawnedFlows.reset();
+        this.spawnRate.reset();
+    }
+
+    public long getFlows() {
+        return this.flows.sum();
+    }
+
+    public long getBytes() {
+        return this.bytes.sum();
+    }
+
+    public long getSpawnedFlows() {
+        return this.spawnedFlows.sum();
+    }
+
+    public double getFlowsPerSecond() {
+        return this.flowRate.getRate();
+    }
+
+    public double getBytesPerSecond() {
+        return this.byteRate.getRate();
+    }
+
+    public double getSpawnedFlowsPerSecond() {
+        return this.spawnRate.getRate();
+    }
+
+    @Override
+    public String toString() {
+        return "TrafficMeter{" +
+                "flows=" + this.getFlows() +
+                ", bytes=" + this.getBytes() +
+                ", flowsPerSecond=" + this.getFlowsPerSecond() +
+                ", bytesPerSecond=" + this.getBytesPerSecond() +
+                ", spawnedFlows=" + this.getSpawnedFlows() +
+                ", spawnedFlowsPerSecond=" + this.getSpawnedFlowsPerSecond() +
+                '}';
+    }
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.netflow;
+
+import java.nio.ByteBuffer;
+
+import org.opennms.nephron.catheter.Exporter;
+
+/**
+ * IPFIX: like NetFlow version 9, but with absolute flow timestamps instead of the system uptime. The sequence number
+ * counts the data records exported before, the observation domain ID is the node ID of the exporter.
+ */
+class IpfixFormat extends PacketFormat {
+    private static final int HEADER_SIZE = 16;
+    private static final int TEMPLATE_SET_ID = 2;
+
+    // pairs of information element ID and length
+    private static final int[] FIELDS = {
+            1, 8,   // octetDeltaCount
+            2, 8,   // packetDeltaCount
+            152, 8, // flowStartMilliseconds
+            153, 8, // flowEndMilliseconds
+            10, 4,  // ingressInterface
+            14, 4,  // egressInterface
+    };
+    private static final int RECORD_SIZE = 40;
+
+    IpfixFormat(final long bootMillis) {
+        super(bootMillis);
+    }
+
+    @Override
+    int recordSize() {
+        return RECORD_SIZE;
+    }
+
+    @Override
+    boolean hasTemplate() {
+        return true;
+    }
+
+    @Override
+    void begin(final ByteBuffer packet, final Exporter exporter, final long exportMillis, final boolean template) {
+        packet.putShort((short) 10);
+        packet.putShort((short) 0); // length
+        packet.putInt((int) Math.floorDiv(exportMillis, 1000L));
+        packet.putInt(0); // sequence
+        packet.putInt(exporter.getNodeId());
+
+        if (template) {
+            putTemplate(packet, TEMPLATE_SET_ID, FIELDS);
+        }
+
+        packet.putShort((short) TEMPLATE_ID);
+        packet.putShort((short) 0); // length
+    }
+
+    @Override
+    void putRecord(final ByteBuffer packet, final Exporter exporter, final long startMillis, final long endMillis, final long bytes) {
+        packet.putLong(bytes);
+        packet.putLong(packets(bytes));
+        packet.putLong(startMillis);
+        packet.putLong(endMillis);
+        packet.putInt(exporter.getInputSnmp());
+        packet.putInt(exporter.getOutputSnmp());
+    }
+
+    @Override
+    long finish(final ByteBuffer packet, final boolean template, final int records, final long sequence) {
+        final int set = HEADER_SIZE + (template ? templateSize(FIELDS) : 0);
+
+        packet.putShort(2, (short) packet.position());
+        packet.putInt(8, (int) sequence);
+        packet.putShort(set + 2, (short) (packet.position() - set));
+        return sequence + records;
+    }
+}
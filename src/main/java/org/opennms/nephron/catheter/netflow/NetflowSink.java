@@ -0,0 +1,376 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.netflow;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.opennms.nephron.catheter.BatchHandler;
+import org.opennms.nephron.catheter.Exporter;
+import org.opennms.nephron.catheter.FlowReportBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Sends the reports of a simulation as NetFlow or IPFIX packets to a collector, e.g. the telemetryd listener of
+ * OpenNMS or a Minion, to load the whole flow processing chain.
+ *
+ * Every exporter sends from its own non-blocking UDP socket bound to an ephemeral port, which is opened when the
+ * exporter reports for the first time. The reports of a batch are packed into as few packets as fit into the MTU and
+ * the last, partially filled packet is sent at the end of the batch, so reports are not delayed beyond their tick.
+ * All timestamps are in the clock of the exporter: the export time of a packet is the latest end of the reports of
+ * the batch and the system uptime counts from the boot time of the sink. Packets that do not fit into the send buffer
+ * of a socket are dropped like a real exporter would, which the collector sees as a gap in the sequence numbers.
+ *
+ * The reports carry no addresses, ports or protocol, so these fields are zero or omitted.
+ */
+public class NetflowSink implements BatchHandler, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(NetflowSink.class);
+
+    // IP and UDP header
+    private static final int IPV4_OVERHEAD = 20 + 8;
+    private static final int IPV6_OVERHEAD = 40 + 8;
+
+    /**
+     * The flow export protocols.
+     */
+    public enum Protocol {
+        V5 {
+            @Override
+            PacketFormat format(final long bootMillis) {
+                return new NetflowV5Format(bootMillis);
+            }
+        },
+
+        V9 {
+            @Override
+            PacketFormat format(final long bootMillis) {
+                return new NetflowV9Format(bootMillis);
+            }
+        },
+
+        IPFIX {
+            @Override
+            PacketFormat format(final long bootMillis) {
+                return new IpfixFormat(bootMillis);
+            }
+        };
+
+        abstract PacketFormat format(final long bootMillis);
+    }
+
+    private static class Source {
+        private final DatagramChannel channel;
+        private long sequence;
+        private long templateMillis = Long.MIN_VALUE;
+
+        private Source(final DatagramChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final InetSocketAddress target;
+    private final InetAddress bindAddress;
+    private final Protocol protocol;
+    private final PacketFormat format;
+    private final int mtu;
+    private final int maxPacketSize;
+    private final long templateRefreshMillis;
+
+    // sources are looked up by exporter identity, as the equality of an exporter covers the state of its generator;
+    // the queue keeps every source for the lifetime of the sink, so close() also closes the sockets of exporters
+    // collected in the meantime
+    private final Map<Exporter, Source> sources = new MapMaker().weakKeys().makeMap();
+    private final Queue<Source> opened = new ConcurrentLinkedQueue<>();
+
+    // direct buffers are handed to the socket without copying
+    private final ThreadLocal<ByteBuffer> packets;
+
+    private final LongAdder sentPackets = new LongAdder();
+    private final LongAdder sentRecords = new LongAdder();
+    private final LongAdder sentBytes = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private NetflowSink(final Builder builder) {
+        this.target = builder.target;
+        this.bindAddress = builder.bindAddress;
+        this.protocol = builder.protocol;
+        this.format = builder.protocol.format(builder.bootTime.toEpochMilli());
+        this.mtu = builder.mtu;
+        this.maxPacketSize = builder.mtu - (builder.target.getAddress() instanceof Inet6Address ? IPV6_OVERHEAD : IPV4_OVERHEAD);
+        this.templateRefreshMillis = builder.templateRefresh.toMillis();
+
+        this.packets = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(this.maxPacketSize));
+    }
+
+    public static Builder builder(final InetSocketAddress target) {
+        return new Builder(target);
+    }
+
+    @Override
+    public void accept(final FlowReportBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        final Exporter exporter = batch.getExporter();
+        final long offset = exporter.getClockOffset().toMillis();
+
+        long exportMillis = Long.MIN_VALUE;
+        for (int i = 0; i < batch.size(); i++) {
+            exportMillis = Math.max(exportMillis, batch.getEndMillis(i));
+        }
+        exportMillis += offset;
+
+        final Source source = this.sources.computeIfAbsent(exporter, this::open);
+        final ByteBuffer packet = this.packets.get();
+
+        synchronized (source) {
+            boolean template = this.format.hasTemplate()
+                    && (source.templateMillis == Long.MIN_VALUE || exportMillis - source.templateMillis >= this.templateRefreshMillis);
+            if (template) {
+                source.templateMillis = exportMillis;
+            }
+
+            packet.clear();
+            this.format.begin(packet, exporter, exportMillis, template);
+            int records = 0;
+
+            for (int i = 0; i < batch.size(); i++) {
+                final long startMillis = batch.getStartMillis(i) + offset;
+                final long endMillis = batch.getEndMillis(i) + offset;
+
+                long remaining = batch.getBytes(i);
+                do {
+                    if (records == this.format.maxRecords() || packet.remaining() < this.format.recordSize()) {
+                        this.send(source, packet, template, records);
+                        template = false;
+                        records = 0;
+
+                        packet.clear();
+                        this.format.begin(packet, exporter, exportMillis, false);
+                    }
+
+                    final long bytes = Math.min(remaining, this.format.maxBytes());
+                    this.format.putRecord(packet, exporter, startMillis, endMillis, bytes);
+                    records++;
+                    remaining -= bytes;
+                } while (remaining > 0);
+            }
+
+            this.send(source, packet, template, records);
+        }
+    }
+
+    private Source open(final Exporter exporter) {
+        try {
+            final DatagramChannel channel = DatagramChannel.open(this.target.getAddress() instanceof Inet6Address
+                                                                 ? StandardProtocolFamily.INET6
+                                                                 : StandardProtocolFamily.INET);
+            channel.configureBlocking(false);
+            channel.bind(new InetSocketAddress(this.bindAddress, 0));
+
+            final Source source = new Source(channel);
+            this.opened.add(source);
+            return source;
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to open socket for exporter " + exporter.getNodeId(), e);
+        }
+    }
+
+    private void send(final Source source, final ByteBuffer packet, final boolean template, final int records) {
+        source.sequence = this.format.finish(packet, template, records, source.sequence);
+
+        packet.flip();
+        final int size = packet.remaining();
+        try {
+            if (source.channel.send(packet, this.target) == 0) {
+                this.dropped.increment();
+                return;
+            }
+            this.sentPackets.increment();
+            this.sentRecords.add(records);
+            this.sentBytes.add(size);
+        } catch (final IOException e) {
+            // only the first failure is logged to not flood the log if the collector is unreachable
+            if (this.failed.sum() == 0) {
+                LOG.error("Failed to send packet to {}", this.target, e);
+            }
+            this.failed.increment();
+        }
+    }
+
+    /**
+     * Closes the sockets of all exporters.
+     */
+    @Override
+    public void close() {
+        Source source;
+        while ((source = this.opened.poll()) != null) {
+            try {
+                source.channel.close();
+            } catch (final IOException e) {
+                LOG.warn("Failed to close socket", e);
+            }
+        }
+        this.sources.clear();
+        LOG.info("Sent {} records in {} packets to {}: {} dropped, {} failed", this.getSentRecords(), this.getSentPackets(), this.target, this.getDropped(), this.getFailed());
+    }
+
+    public long getSentPackets() {
+        return this.sentPackets.sum();
+    }
+
+    public long getSentRecords() {
+        return this.sentRecords.sum();
+    }
+
+    /**
+     * Returns the size of all packets sent, without IP and UDP headers.
+     */
+    public long getSentBytes() {
+        return this.sentBytes.sum();
+    }
+
+    /**
+     * Returns the number of packets dropped because the send buffer of the socket was full.
+     */
+    public long getDropped() {
+        return this.dropped.sum();
+    }
+
+    public long getFailed() {
+        return this.failed.sum();
+    }
+
+    public InetSocketAddress getTarget() {
+        return this.target;
+    }
+
+    public Protocol getProtocol() {
+        return this.protocol;
+    }
+
+    public int getMtu() {
+        return this.mtu;
+    }
+
+    @Override
+    public String toString() {
+        return "NetflowSink{" +
+                "target=" + this.target +
+                ", protocol=" + this.protocol +
+                ", mtu=" + this.mtu +
+                ", sentPackets=" + this.getSentPackets() +
+                ", sentRecords=" + this.getSentRecords() +
+                ", dropped=" + this.getDropped() +
+                ", failed=" + this.getFailed() +
+                '}';
+    }
+
+    public static class Builder {
+        private final InetSocketAddress target;
+        private InetAddress bindAddress;
+        private Protocol protocol = Protocol.V9;
+        private int mtu = 1500;
+        private Duration templateRefresh = Duration.ofMinutes(1);
+        private Instant bootTime = Instant.EPOCH;
+
+        private Builder(final InetSocketAddress target) {
+            this.target = Objects.requireNonNull(target);
+            if (target.isUnresolved()) {
+                throw new IllegalArgumentException("Unresolved target address: " + target);
+            }
+        }
+
+        /**
+         * Sets the local address the sockets of the exporters are bound to. Defaults to the wildcard address.
+         */
+        public Builder withBindAddress(final InetAddress bindAddress) {
+            this.bindAddress = Objects.requireNonNull(bindAddress);
+            return this;
+        }
+
+        /**
+         * Sets the protocol to send. Defaults to NetFlow version 9.
+         */
+        public Builder withProtocol(final Protocol protocol) {
+            this.protocol = Objects.requireNonNull(protocol);
+            return this;
+        }
+
+        /**
+         * Sets the MTU of the path to the collector. Packets are filled up to the MTU minus the IP and UDP headers.
+         */
+        public Builder withMtu(final int mtu) {
+            if (mtu < 576) {
+                throw new IllegalArgumentException("mtu must be at least 576");
+            }
+            this.mtu = mtu;
+            return this;
+        }
+
+        /**
+         * Sets the interval in exporter time after which NetFlow version 9 and IPFIX templates are sent again.
+         */
+        public Builder withTemplateRefresh(final Duration templateRefresh) {
+            this.templateRefresh = Objects.requireNonNull(templateRefresh);
+            return this;
+        }
+
+        /**
+         * Sets the time in exporter time the system uptime of the exporters counts from. Defaults to the epoch, in
+         * which case the uptime wraps around every 2^32 milliseconds like a real uptime counter.
+         */
+        public Builder withBootTime(final Instant bootTime) {
+            this.bootTime = Objects.requireNonNull(bootTime);
+            return this;
+        }
+
+        public NetflowSink build() {
+            return new NetflowSink(this);
+        }
+    }
+}
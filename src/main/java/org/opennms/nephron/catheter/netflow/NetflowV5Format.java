@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.netflow;
+
+import java.nio.ByteBuffer;
+
+import org.opennms.nephron.catheter.Exporter;
+
+/**
+ * NetFlow version 5: a fixed record layout of at most 30 records per packet. The sequence number counts the flows
+ * exported before the packet.
+ */
+class NetflowV5Format extends PacketFormat {
+    private static final int RECORD_SIZE = 48;
+    private static final int MAX_RECORDS = 30;
+
+    NetflowV5Format(final long bootMillis) {
+        super(bootMillis);
+    }
+
+    @Override
+    int recordSize() {
+        return RECORD_SIZE;
+    }
+
+    @Override
+    int maxRecords() {
+        return MAX_RECORDS;
+    }
+
+    @Override
+    long maxBytes() {
+        // dOctets is an unsigned 32 bit counter
+        return 0xFFFF_FFFFL;
+    }
+
+    @Override
+    void begin(final ByteBuffer packet, final Exporter exporter, final long exportMillis, final boolean template) {
+        packet.putShort((short) 5);
+        packet.putShort((short) 0); // count
+        packet.putInt(this.uptime(exportMillis));
+        packet.putInt((int) Math.floorDiv(exportMillis, 1000L));
+        packet.putInt((int) (Math.floorMod(exportMillis, 1000L) * 1_000_000L));
+        packet.putInt(0); // flow_sequence
+        packet.put((byte) 0); // engine_type
+        packet.put((byte) 0); // engine_id
+        packet.putShort((short) 0); // sampling_interval
+    }
+
+    @Override
+    void putRecord(final ByteBuffer packet, final Exporter exporter, final long startMillis, final long endMillis, final long bytes) {
+        packet.putInt(0); // srcaddr
+        packet.putInt(0); // dstaddr
+        packet.putInt(0); // nexthop
+        packet.putShort((short) exporter.getInputSnmp());
+        packet.putShort((short) exporter.getOutputSnmp());
+        packet.putInt((int) packets(bytes));
+        packet.putInt((int) bytes);
+        packet.putInt(this.uptime(startMillis));
+        packet.putInt(this.uptime(endMillis));
+        packet.putShort((short) 0); // srcport
+        packet.putShort((short) 0); // dstport
+        packet.put((byte) 0); // pad1
+        packet.put((byte) 0); // tcp_flags
+        packet.put((byte) 0); // prot
+        packet.put((byte) 0); // tos
+        packet.putShort((short) 0); // src_as
+        packet.putShort((short) 0); // dst_as
+        packet.put((byte) 0); // src_mask
+        packet.put((byte) 0); // dst_mask
+        packet.putShort((short) 0); // pad2
+    }
+
+    @Override
+    long finish(final ByteBuffer packet, final boolean template, final int records, final long sequence) {
+        packet.putShort(2, (short) records);
+        packet.putInt(16, (int) sequence);
+        return sequence + records;
+    }
+}
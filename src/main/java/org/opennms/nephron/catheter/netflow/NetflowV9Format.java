@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.netflow;
+
+import java.nio.ByteBuffer;
+
+import org.opennms.nephron.catheter.Exporter;
+
+/**
+ * NetFlow version 9: records follow a template, which is sent in the first packet and then periodically. The
+ * sequence number counts the packets exported before, the source ID is the node ID of the exporter.
+ */
+class NetflowV9Format extends PacketFormat {
+    private static final int HEADER_SIZE = 20;
+    private static final int TEMPLATE_FLOWSET_ID = 0;
+
+    // pairs of field type and length
+    private static final int[] FIELDS = {
+            1, 8,  // IN_BYTES
+            2, 8,  // IN_PKTS
+            22, 4, // FIRST_SWITCHED
+            21, 4, // LAST_SWITCHED
+            10, 4, // INPUT_SNMP
+            14, 4, // OUTPUT_SNMP
+    };
+    private static final int RECORD_SIZE = 32;
+
+    NetflowV9Format(final long bootMillis) {
+        super(bootMillis);
+    }
+
+    @Override
+    int recordSize() {
+        return RECORD_SIZE;
+    }
+
+    @Override
+    boolean hasTemplate() {
+        return true;
+    }
+
+    @Override
+    void begin(final ByteBuffer packet, final Exporter exporter, final long exportMillis, final boolean template) {
+        packet.putShort((short) 9);
+        packet.putShort((short) 0); // count
+        packet.putInt(this.uptime(exportMillis));
+        packet.putInt((int) Math.floorDiv(exportMillis, 1000L));
+        packet.putInt(0); // sequence
+        packet.putInt(exporter.getNodeId());
+
+        if (template) {
+            putTemplate(packet, TEMPLATE_FLOWSET_ID, FIELDS);
+        }
+
+        packet.putShort((short) TEMPLATE_ID);
+        packet.putShort((short) 0); // length
+    }
+
+    @Override
+    void putRecord(final ByteBuffer packet, final Exporter exporter, final long startMillis, final long endMillis, final long bytes) {
+        packet.putLong(bytes);
+        packet.putLong(packets(bytes));
+        packet.putInt(this.uptime(startMillis));
+        packet.putInt(this.uptime(endMillis));
+        packet.putInt(exporter.getInputSnmp());
+        packet.putInt(exporter.getOutputSnmp());
+    }
+
+    @Override
+    long finish(final ByteBuffer packet, final boolean template, final int records, final long sequence) {
+        final int flowset = HEADER_SIZE + (template ? templateSize(FIELDS) : 0);
+
+        // the count includes the template record
+        packet.putShort(2, (short) (records + (template ? 1 : 0)));
+        packet.putInt(12, (int) sequence);
+        packet.putShort(flowset + 2, (short) (packet.position() - flowset));
+        return sequence + 1;
+    }
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.netflow;
+
+import java.nio.ByteBuffer;
+
+import org.opennms.nephron.catheter.Exporter;
+
+/**
+ * Lays out the export packets of a flow protocol.
+ *
+ * A packet is written in three steps: {@link #begin} writes the header and optionally the template, every
+ * {@link #putRecord} appends a data record and {@link #finish} fills in the counts, lengths and sequence number that
+ * are only known at the end. Formats are stateless and shared by all threads; the sequence number is kept by the
+ * caller.
+ */
+abstract class PacketFormat {
+    /**
+     * The reports carry no packet count, so they are assumed to consist of packets of this size.
+     */
+    static final int PACKET_SIZE = 1500;
+
+    // the ID of the only template
+    static final int TEMPLATE_ID = 256;
+
+    private final long bootMillis;
+
+    PacketFormat(final long bootMillis) {
+        this.bootMillis = bootMillis;
+    }
+
+    /**
+     * Returns the system uptime of an exporter at the given time in milliseconds, which wraps around after 2^32
+     * milliseconds like a real uptime counter.
+     */
+    int uptime(final long millis) {
+        return (int) (millis - this.bootMillis);
+    }
+
+    static long packets(final long bytes) {
+        return Math.max(1, (bytes + PACKET_SIZE - 1) / PACKET_SIZE);
+    }
+
+    /**
+     * Writes a template set or flow set with a single template.
+     */
+    static void putTemplate(final ByteBuffer packet, final int setId, final int[] fields) {
+        packet.putShort((short) setId);
+        packet.putShort((short) templateSize(fields));
+        packet.putShort((short) TEMPLATE_ID);
+        packet.putShort((short) (fields.length / 2));
+        for (final int field : fields) {
+            packet.putShort((short) field);
+        }
+    }
+
+    static int templateSize(final int[] fields) {
+        return 8 + fields.length * 2;
+    }
+
+    abstract int recordSize();
+
+    /**
+     * Returns the maximum number of data records in a packet regardless of its size.
+     */
+    int maxRecords() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the maximum byte count of a record. Larger reports are split into several records.
+     */
+    long maxBytes() {
+        return Long.MAX_VALUE;
+    }
+
+    boolean hasTemplate() {
+        return false;
+    }
+
+    abstract void begin(final ByteBuffer packet, final Exporter exporter, final long exportMillis, final boolean template);
+
+    abstract void putRecord(final ByteBuffer packet, final Exporter exporter, final long startMillis, final long endMillis, final long bytes);
+
+    /**
+     * Completes the packet and returns the sequence number of the next packet.
+     */
+    abstract long finish(final ByteBuffer packet, final boolean template, final int records, final long sequence);
+}
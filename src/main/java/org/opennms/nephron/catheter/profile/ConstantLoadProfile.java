@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.profile;
+
+import java.util.Objects;
+
+public class ConstantLoadProfile implements LoadProfile {
+    private final long bytesPerSecond;
+
+    public ConstantLoadProfile(final long bytesPerSecond) {
+        if (bytesPerSecond < 0) {
+            throw new IllegalArgumentException("bytesPerSecond must not be negative");
+        }
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    @Override
+    public long bytesPerSecond(final long elapsedMillis) {
+        return this.bytesPerSecond;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ConstantLoadProfile that = (ConstantLoadProfile) o;
+        return this.bytesPerSecond == that.bytesPerSecond;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.bytesPerSecond);
+    }
+
+    @Override
+    public String toString() {
+        return "ConstantLoadProfile{" +
+                "bytesPerSecond=" + this.bytesPerSecond +
+                '}';
+    }
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.profile;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.opennms.nephron.catheter.json.LoadProfileJson;
+
+/**
+ * The target byte rate of a flow generator over time.
+ *
+ * Profiles are evaluated with the time elapsed since the start of the simulation, once per tick.
+ */
+@FunctionalInterface
+public interface LoadProfile {
+
+    /**
+     * Returns the target byte rate at the given offset from the start of the simulation.
+     */
+    long bytesPerSecond(final long elapsedMillis);
+
+    static LoadProfile constant(final long bytesPerSecond) {
+        return new ConstantLoadProfile(bytesPerSecond);
+    }
+
+    /**
+     * Creates a profile interpolating linearly between the given points.
+     *
+     * Steps can be modelled by two points with the same offset. If a repeat interval is given, the profile restarts
+     * after this interval, otherwise the rate of the last point is kept.
+     */
+    static LoadProfile piecewiseLinear(final List<PiecewiseLinearLoadProfile.Point> points, final Duration repeat) {
+        return new PiecewiseLinearLoadProfile(points, repeat);
+    }
+
+    static LoadProfile sine(final long meanBytesPerSecond, final long amplitudeBytesPerSecond, final Duration period, final Duration phase) {
+        return new SineLoadProfile(meanBytesPerSecond, amplitudeBytesPerSecond, period, phase);
+    }
+
+    /**
+     * Creates a profile summing up the rates of the given profiles, e.g. a spike on top of a diurnal wave.
+     */
+    static LoadProfile sum(final LoadProfile... profiles) {
+        return new SumLoadProfile(Arrays.asList(profiles));
+    }
+
+    static LoadProfile fromJson(final LoadProfileJson loadProfileJson) {
+        switch (loadProfileJson.getType()) {
+            case CONSTANT:
+                return constant(loadProfileJson.getBytesPerSecond());
+            case PIECEWISE_LINEAR:
+                return piecewiseLinear(loadProfileJson.getPoints().stream()
+                                .map(p -> new PiecewiseLinearLoadProfile.Point(Duration.ofMillis(p.getOffsetMs()), p.getBytesPerSecond()))
+                                .collect(Collectors.toList()),
+                        Duration.ofMillis(loadProfileJson.getRepeatMs()));
+            case SINE:
+                return sine(loadProfileJson.getBytesPerSecond(),
+                        loadProfileJson.getAmplitudeBytesPerSecond(),
+                        Duration.ofMillis(loadProfileJson.getPeriodMs()),
+                        Duration.ofMillis(loadProfileJson.getPhaseMs()));
+            case SUM:
+                return new SumLoadProfile(loadProfileJson.getProfiles().stream()
+                        .map(LoadProfile::fromJson)
+                        .collect(Collectors.toList()));
+            default:
+                throw new IllegalArgumentException("Unknown load profile type: " + loadProfileJson.getType());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.profile;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+public class PiecewiseLinearLoadProfile implements LoadProfile {
+
+    public static class Point {
+        private final long offsetMillis;
+        private final long bytesPerSecond;
+
+        public Point(final Duration offset, final long bytesPerSecond) {
+            if (offset.isNegative()) {
+                throw new IllegalArgumentException("offset must not be negative");
+            }
+            if (bytesPerSecond < 0) {
+                throw new IllegalArgumentException("bytesPerSecond must not be negative");
+            }
+            this.offsetMillis = offset.toMillis();
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        public long getOffsetMillis() {
+            return this.offsetMillis;
+        }
+
+        public long getBytesPerSecond() {
+            return this.bytesPerSecond;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Point that = (Point) o;
+            return this.offsetMillis == that.offsetMillis &&
+                    this.bytesPerSecond == that.bytesPerSecond;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.offsetMillis, this.bytesPerSecond);
+        }
+
+        @Override
+        public String toString() {
+            return "Point{" +
+                    "offsetMillis=" + this.offsetMillis +
+                    ", bytesPerSecond=" + this.bytesPerSecond +
+                    '}';
+        }
+    }
+
+    private final long[] offsets;
+    private final long[] rates;
+    private final long repeatMillis;
+
+    public PiecewiseLinearLoadProfile(final List<Point> points, final Duration repeat) {
+        if (points.isEmpty()) {
+            throw new IllegalArgumentException("at least one point is required");
+        }
+
+        // stable sort keeps the order of points with the same offset which model steps
+        final List<Point> sorted = new ArrayList<>(points);
+        sorted.sort(Comparator.comparingLong(Point::getOffsetMillis));
+
+        this.offsets = sorted.stream().mapToLong(Point::getOffsetMillis).toArray();
+        this.rates = sorted.stream().mapToLong(Point::getBytesPerSecond).toArray();
+        this.repeatMillis = repeat != null ? repeat.toMillis() : 0;
+
+        if (this.repeatMillis < 0) {
+            throw new IllegalArgumentException("repeat must not be negative");
+        }
+    }
+
+    @Override
+    public long bytesPerSecond(final long elapsedMillis) {
+        final long t = this.repeatMillis > 0 ? Math.floorMod(elapsedMillis, this.repeatMillis) : elapsedMillis;
+
+        if (t < this.offsets[0]) {
+            return this.rates[0];
+        }
+
+        // find the last point at or before t
+        int i = 0;
+        while (i + 1 < this.offsets.length && this.offsets[i + 1] <= t) {
+            i++;
+        }
+
+        if (i + 1 == this.offsets.length) {
+            return this.rates[i];
+        }
+
+        final long dt = this.offsets[i + 1] - this.offsets[i];
+        return this.rates[i] + Math.round((double) (this.rates[i + 1] - this.rates[i]) * (t - this.offsets[i]) / dt);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final PiecewiseLinearLoadProfile that = (PiecewiseLinearLoadProfile) o;
+        return this.repeatMillis == that.repeatMillis &&
+                Arrays.equals(this.offsets, that.offsets) &&
+                Arrays.equals(this.rates, that.rates);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.repeatMillis, Arrays.hashCode(this.offsets), Arrays.hashCode(this.rates));
+    }
+
+    @Override
+    public String toString() {
+        return "PiecewiseLinearLoadProfile{" +
+                "offsets=" + Arrays.toString(this.offsets) +
+                ", rates=" + Arrays.toString(this.rates) +
+                ", repeatMillis=" + this.repeatMillis +
+                '}';
+    }
+}
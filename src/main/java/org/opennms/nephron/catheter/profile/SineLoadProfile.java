@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.profile;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * A periodic profile oscillating around a mean rate, e.g. a diurnal traffic pattern.
+ *
+ * Negative rates are clamped to zero.
+ */
+public class SineLoadProfile implements LoadProfile {
+    private final long meanBytesPerSecond;
+    private final long amplitudeBytesPerSecond;
+    private final long periodMillis;
+    private final long phaseMillis;
+
+    public SineLoadProfile(final long meanBytesPerSecond, final long amplitudeBytesPerSecond, final Duration period, final Duration phase) {
+        this.meanBytesPerSecond = meanBytesPerSecond;
+        this.amplitudeBytesPerSecond = amplitudeBytesPerSecond;
+        this.periodMillis = period.toMillis();
+        this.phaseMillis = phase.toMillis();
+
+        if (this.periodMillis <= 0) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+    }
+
+    @Override
+    public long bytesPerSecond(final long elapsedMillis) {
+        final double angle = 2.0 * Math.PI * Math.floorMod(elapsedMillis + this.phaseMillis, this.periodMillis) / this.periodMillis;
+        return Math.max(0, this.meanBytesPerSecond + Math.round(this.amplitudeBytesPerSecond * Math.sin(angle)));
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final SineLoadProfile that = (SineLoadProfile) o;
+        return this.meanBytesPerSecond == that.meanBytesPerSecond &&
+                this.amplitudeBytesPerSecond == that.amplitudeBytesPerSecond &&
+                this.periodMillis == that.periodMillis &&
+                this.phaseMillis == that.phaseMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.meanBytesPerSecond, this.amplitudeBytesPerSecond, this.periodMillis, this.phaseMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "SineLoadProfile{" +
+                "meanBytesPerSecond=" + this.meanBytesPerSecond +
+                ", amplitudeBytesPerSecond=" + this.amplitudeBytesPerSecond +
+                ", periodMillis=" + this.periodMillis +
+                ", phaseMillis=" + this.phaseMillis +
+                '}';
+    }
+}
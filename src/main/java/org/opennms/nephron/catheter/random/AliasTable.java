@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.random;
+
+import java.util.Arrays;
+
+/**
+ * Draws indexes with probabilities proportional to given weights in constant time.
+ *
+ * Implements the alias method as described by Vose: every column of the table holds the probability of its own index
+ * and the index of an alias covering the rest of the column. A draw picks a column uniformly and decides between the
+ * column and its alias with a single biased coin.
+ */
+class AliasTable {
+    private final double[] probability;
+    private final int[] alias;
+
+    AliasTable(final double[] weights) {
+        final int n = weights.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("weights must not be empty");
+        }
+
+        double sum = 0.0;
+        for (final double weight : weights) {
+            if (!(weight >= 0.0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("weights must be finite and non-negative");
+            }
+            sum += weight;
+        }
+        if (sum <= 0.0) {
+            throw new IllegalArgumentException("weights must not all be zero");
+        }
+
+        this.probability = new double[n];
+        this.alias = new int[n];
+
+        // scale the weights to an average of one and separate the columns below and above the average
+        final double[] scaled = new double[n];
+        final int[] small = new int[n];
+        final int[] large = new int[n];
+        int smalls = 0;
+        int larges = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1.0) {
+                small[smalls++] = i;
+            } else {
+                large[larges++] = i;
+            }
+        }
+
+        // fill up every small column with a large one
+        while (smalls > 0 && larges > 0) {
+            final int s = small[--smalls];
+            final int l = large[--larges];
+            this.probability[s] = scaled[s];
+            this.alias[s] = l;
+
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+            if (scaled[l] < 1.0) {
+                small[smalls++] = l;
+            } else {
+                large[larges++] = l;
+            }
+        }
+
+        // the remaining columns are full up to rounding errors
+        while (larges > 0) {
+            final int l = large[--larges];
+            this.probability[l] = 1.0;
+            this.alias[l] = l;
+        }
+        while (smalls > 0) {
+            final int s = small[--smalls];
+            this.probability[s] = 1.0;
+            this.alias[s] = s;
+        }
+    }
+
+    public int size() {
+        return this.probability.length;
+    }
+
+    public int sample(final RandomSource random) {
+        final int column = random.nextInt(this.probability.length);
+        return random.nextDouble() < this.probability[column] ? column : this.alias[column];
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final AliasTable that = (AliasTable) o;
+        return Arrays.equals(this.probability, that.probability) &&
+                Arrays.equals(this.alias, that.alias);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(this.probability) + Arrays.hashCode(this.alias);
+    }
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.random;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.opennms.nephron.catheter.json.DistributionJson;
+
+/**
+ * A distribution of non-negative values.
+ *
+ * All samplers need a constant number of draws from the random source per sample, so the cost of a sample does not
+ * depend on the parameters of the distribution.
+ */
+@FunctionalInterface
+public interface Distribution {
+
+    /**
+     * Draws a value from this distribution.
+     */
+    double sample(final RandomSource random);
+
+    /**
+     * Creates a distribution of values uniformly distributed in {@code [min, max]}.
+     */
+    static Distribution uniform(final double min, final double max) {
+        return new UniformDistribution(min, max);
+    }
+
+    /**
+     * Creates a Pareto distribution with the given minimum (scale) and tail index (shape).
+     *
+     * The smaller the shape, the heavier the tail: for a shape of at most 1 the mean is infinite. If a maximum is
+     * given, the distribution is truncated at this value.
+     */
+    static Distribution pareto(final double scale, final double shape, final double max) {
+        return new ParetoDistribution(scale, shape, max);
+    }
+
+    static Distribution pareto(final double scale, final double shape) {
+        return new ParetoDistribution(scale, shape, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Creates a log-normal distribution with the given median and standard deviation of the logarithm.
+     */
+    static Distribution logNormal(final double median, final double sigma) {
+        return new LogNormalDistribution(median, sigma);
+    }
+
+    /**
+     * Creates a Zipf distribution of the ranks {@code 1..count} with {@code P(k) ~ 1 / k^exponent}. The drawn rank
+     * is multiplied by the given scale.
+     */
+    static Distribution zipf(final int count, final double exponent, final double scale) {
+        return new ZipfDistribution(count, exponent, scale);
+    }
+
+    /**
+     * Creates a distribution following the given histogram. Values are uniformly distributed within a bucket.
+     */
+    static Distribution empirical(final List<EmpiricalDistribution.Bucket> buckets) {
+        return new EmpiricalDistribution(buckets);
+    }
+
+    static Distribution fromJson(final DistributionJson distributionJson) {
+        Objects.requireNonNull(distributionJson.getType(), "type");
+        switch (distributionJson.getType()) {
+            case UNIFORM:
+                return uniform(distributionJson.getMin(), distributionJson.getMax());
+            case PARETO:
+                return pareto(distributionJson.getScale(),
+                        distributionJson.getShape(),
+                        distributionJson.getMax() > 0.0 ? distributionJson.getMax() : Double.POSITIVE_INFINITY);
+            case LOG_NORMAL:
+                return logNormal(distributionJson.getMedian(), distributionJson.getSigma());
+            case ZIPF:
+                return zipf(distributionJson.getCount(), distributionJson.getExponent(), distributionJson.getScale());
+            case EMPIRICAL:
+                return empirical(distributionJson.getBuckets().stream()
+                        .map(b -> new EmpiricalDistribution.Bucket(b.getLower(), b.getUpper(), b.getWeight()))
+                        .collect(Collectors.toList()));
+            default:
+                throw new IllegalArgumentException("Unknown distribution type: " + distributionJson.getType());
+        }
+    }
+}
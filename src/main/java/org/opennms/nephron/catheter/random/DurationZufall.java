@@ -36,6 +36,17 @@ public class DurationZufall extends Zufall<Duration> {
         super(random, min, max);
     }
 
+    public DurationZufall(final RandomSource random, final Duration min, final Duration max) {
+        super(random, min, max);
+    }
+
+    /**
+     * Returns a random duration in milliseconds without boxing.
+     */
+    public long nextMillis() {
+        return this.nextLong();
+    }
+
     @Override
     protected long toLong(final Duration duration) {
         return duration.toMillis();
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.random;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A distribution following a histogram, e.g. of flow durations measured in a real network.
+ *
+ * A bucket is drawn from an alias table and the value is distributed uniformly within the bucket.
+ */
+public class EmpiricalDistribution implements Distribution {
+    private final List<Bucket> buckets;
+    private final double[] lower;
+    private final double[] width;
+    private final AliasTable table;
+
+    public EmpiricalDistribution(final List<Bucket> buckets) {
+        if (buckets.isEmpty()) {
+            throw new IllegalArgumentException("buckets must not be empty");
+        }
+        this.buckets = new ArrayList<>(buckets);
+        this.lower = new double[buckets.size()];
+        this.width = new double[buckets.size()];
+
+        final double[] weights = new double[buckets.size()];
+        for (int i = 0; i < buckets.size(); i++) {
+            final Bucket bucket = Objects.requireNonNull(buckets.get(i));
+            this.lower[i] = bucket.lower;
+            this.width[i] = bucket.upper - bucket.lower;
+            weights[i] = bucket.weight;
+        }
+        this.table = new AliasTable(weights);
+    }
+
+    @Override
+    public double sample(final RandomSource random) {
+        final int bucket = this.table.sample(random);
+        return this.lower[bucket] + random.nextDouble() * this.width[bucket];
+    }
+
+    public List<Bucket> getBuckets() {
+        return this.buckets;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final EmpiricalDistribution that = (EmpiricalDistribution) o;
+        return Objects.equals(this.buckets, that.buckets);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.buckets);
+    }
+
+    @Override
+    public String toString() {
+        return "EmpiricalDistribution{" +
+                "buckets=" + this.buckets +
+                '}';
+    }
+
+    public static class Bucket {
+        private final double lower;
+        private final double upper;
+        private final double weight;
+
+        public Bucket(final double lower, final double upper, final double weight) {
+            if (!(lower >= 0.0) || !(upper >= lower) || Double.isInfinite(upper)) {
+                throw new IllegalArgumentException("bounds must be finite with 0 <= lower <= upper");
+            }
+            this.lower = lower;
+            this.upper = upper;
+            this.weight = weight;
+        }
+
+        public double getLower() {
+            return this.lower;
+        }
+
+        public double getUpper() {
+            return this.upper;
+        }
+
+        public double getWeight() {
+            return this.weight;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Bucket bucket = (Bucket) o;
+            return this.lower == bucket.lower &&
+                    this.upper == bucket.upper &&
+                    this.weight == bucket.weight;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.lower, this.upper, this.weight);
+        }
+
+        @Override
+        public String toString() {
+            return "Bucket{" +
+                    "lower=" + this.lower +
+                    ", upper=" + this.upper +
+                    ", weight=" + this.weight +
+                    '}';
+        }
+    }
+}
@@ -36,6 +36,17 @@ public class InstantZufall extends Zufall<Instant> {
         super(random, min, max);
     }
 
+    public InstantZufall(final RandomSource random, final Instant min, final Instant max) {
+        super(random, min, max);
+    }
+
+    /**
+     * Returns a random instant in epoch milliseconds without boxing.
+     */
+    public long nextEpochMilli() {
+        return this.nextLong();
+    }
+
     @Override
     protected long toLong(final Instant instant) {
         return instant.toEpochMilli();
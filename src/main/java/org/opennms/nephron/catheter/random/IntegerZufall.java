@@ -35,6 +35,17 @@ public class IntegerZufall extends Zufall<Integer> {
         super(random, min, max);
     }
 
+    public IntegerZufall(final RandomSource random, final Integer min, final Integer max) {
+        super(random, min, max);
+    }
+
+    /**
+     * Returns a random int without boxing.
+     */
+    public int nextInt() {
+        return (int) this.nextLong();
+    }
+
     @Override
     protected long toLong(final Integer integer) {
         return integer;
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.random;
+
+import java.util.Objects;
+
+/**
+ * A log-normal distribution sampled by inverting the CDF of the standard normal distribution.
+ */
+public class LogNormalDistribution implements Distribution {
+    // coefficients of the rational approximations of the normal quantile function by Acklam
+    private static final double[] A = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02, 1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+    private static final double[] B = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02, 6.680131188771972e+01, -1.328068155288572e+01};
+    private static final double[] C = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00, -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+    private static final double[] D = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00, 3.754408661907416e+00};
+    private static final double P_LOW = 0.02425;
+
+    private final double median;
+    private final double sigma;
+    private final double mu;
+
+    public LogNormalDistribution(final double median, final double sigma) {
+        if (!(median > 0.0) || Double.isInfinite(median)) {
+            throw new IllegalArgumentException("median must be positive and finite");
+        }
+        if (!(sigma >= 0.0) || Double.isInfinite(sigma)) {
+            throw new IllegalArgumentException("sigma must be finite and non-negative");
+        }
+        this.median = median;
+        this.sigma = sigma;
+        this.mu = Math.log(median);
+    }
+
+    @Override
+    public double sample(final RandomSource random) {
+        // exclude 0 to keep the quantile finite
+        final double u = ((random.nextLong() >>> 11) + 0.5) * 0x1.0p-53;
+        return Math.exp(this.mu + this.sigma * normalQuantile(u));
+    }
+
+    /**
+     * Approximates the quantile function of the standard normal distribution with a relative error below 1.15e-9.
+     */
+    static double normalQuantile(final double p) {
+        if (p < P_LOW) {
+            final double q = Math.sqrt(-2 * Math.log(p));
+            return (((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4]) * q + C[5]) /
+                    ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1);
+        }
+        if (p > 1 - P_LOW) {
+            final double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4]) * q + C[5]) /
+                    ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1);
+        }
+        final double q = p - 0.5;
+        final double r = q * q;
+        return (((((A[0] * r + A[1]) * r + A[2]) * r + A[3]) * r + A[4]) * r + A[5]) * q /
+                (((((B[0] * r + B[1]) * r + B[2]) * r + B[3]) * r + B[4]) * r + 1);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final LogNormalDistribution that = (LogNormalDistribution) o;
+        return this.median == that.median &&
+                this.sigma == that.sigma;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.median, this.sigma);
+    }
+
+    @Override
+    public String toString() {
+        return "LogNormalDistribution{" +
+                "median=" + this.median +
+                ", sigma=" + this.sigma +
+                '}';
+    }
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.random;
+
+import java.util.Objects;
+
+/**
+ * A Pareto distribution, optionally truncated at a maximum, sampled by inverting its CDF.
+ */
+public class ParetoDistribution implements Distribution {
+    private final double scale;
+    private final double shape;
+    private final double max;
+
+    // the probability mass below the maximum
+    private final double mass;
+
+    public ParetoDistribution(final double scale, final double shape, final double max) {
+        if (!(scale > 0.0) || Double.isInfinite(scale)) {
+            throw new IllegalArgumentException("scale must be positive and finite");
+        }
+        if (!(shape > 0.0) || Double.isInfinite(shape)) {
+            throw new IllegalArgumentException("shape must be positive and finite");
+        }
+        if (!(max > scale)) {
+            throw new IllegalArgumentException("max must be greater than scale");
+        }
+        this.scale = scale;
+        this.shape = shape;
+        this.max = max;
+        this.mass = 1.0 - Math.pow(scale / max, shape);
+    }
+
+    @Override
+    public double sample(final RandomSource random) {
+        // F(x) = (1 - (scale / x)^shape) / mass  =>  x = scale / (1 - u * mass)^(1 / shape)
+        final double u = random.nextDouble();
+        return Math.min(this.max, this.scale / Math.pow(1.0 - u * this.mass, 1.0 / this.shape));
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ParetoDistribution that = (ParetoDistribution) o;
+        return this.scale == that.scale &&
+                this.shape == that.shape &&
+                this.max == that.max;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.scale, this.shape, this.max);
+    }
+
+    @Override
+    public String toString() {
+        return "ParetoDistribution{" +
+                "scale=" + this.scale +
+                ", shape=" + this.shape +
+                ", max=" + this.max +
+                '}';
+    }
+}
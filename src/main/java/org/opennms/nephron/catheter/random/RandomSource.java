@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.random;
+
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * A source of random numbers owned by a single thread.
+ *
+ * In contrast to {@link Random}, implementations are not required to be thread-safe and can therefore keep their state
+ * in plain fields. Independent streams for other threads or exporters are derived by {@link #split()}.
+ *
+ * All bounded methods are unbiased.
+ */
+public interface RandomSource {
+
+    /**
+     * The algorithms available to a simulation.
+     */
+    enum Algorithm {
+        /**
+         * {@link java.util.SplittableRandom} of the JDK.
+         */
+        SPLITTABLE {
+            @Override
+            public RandomSource create(final long seed) {
+                return new SplittableRandomSource(seed);
+            }
+        },
+
+        /**
+         * The xoroshiro128++ generator.
+         */
+        XOROSHIRO {
+            @Override
+            public RandomSource create(final long seed) {
+                return new XoroshiroRandomSource(seed);
+            }
+        },
+
+        /**
+         * {@link Random} of the JDK as used before the random source became pluggable.
+         */
+        JDK {
+            @Override
+            public RandomSource create(final long seed) {
+                return new JdkRandomSource(new Random(seed));
+            }
+        };
+
+        public abstract RandomSource create(final long seed);
+    }
+
+    /**
+     * Returns a uniformly distributed long.
+     */
+    long nextLong();
+
+    /**
+     * Returns a new, statistically independent source. The state of this source advances.
+     */
+    RandomSource split();
+
+    /**
+     * Returns a uniformly distributed int.
+     */
+    default int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    /**
+     * Returns a uniformly distributed int in {@code [0, bound)}.
+     *
+     * Uses the multiply-and-shift method by Lemire which only needs a division for the rare rejection check.
+     */
+    default int nextInt(final int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        long m = (nextLong() >>> 32) * bound;
+        long l = m & 0xFFFFFFFFL;
+        if (l < bound) {
+            final long threshold = (0x100000000L - bound) % bound;
+            while (l < threshold) {
+                m = (nextLong() >>> 32) * bound;
+                l = m & 0xFFFFFFFFL;
+            }
+        }
+        return (int) (m >>> 32);
+    }
+
+    /**
+     * Returns a uniformly distributed long in {@code [0, bound)}.
+     */
+    default long nextLong(final long bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        final long mask = bound - 1;
+        long r = nextLong();
+        if ((bound & mask) == 0L) {
+            // power of two
+            return r & mask;
+        }
+        // reject the values of the last incomplete interval
+        for (long u = r >>> 1; u + mask - (r = u % bound) < 0L; u = nextLong() >>> 1) ;
+        return r;
+    }
+
+    /**
+     * Returns a uniformly distributed long in {@code [min, max]}. Both bounds are inclusive.
+     */
+    default long nextLong(final long min, final long max) {
+        if (min > max) {
+            throw new IllegalArgumentException("min must not be greater than max");
+        }
+        final long range = max - min + 1;
+        if (range > 0L) {
+            return min + nextLong(range);
+        }
+        if (range == 0L) {
+            // the full range of long
+            return nextLong();
+        }
+        // the range does not fit into a long but covers more than half of all values
+        long r;
+        do {
+            r = nextLong();
+        } while (r < min || r > max);
+        return r;
+    }
+
+    /**
+     * Returns a uniformly distributed double in {@code [0, 1)}.
+     */
+    default double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Adapts a {@link Random}. The draws are delegated to the given instance, so the adapter produces the same
+     * values as code using the instance directly.
+     */
+    static RandomSource of(final Random random) {
+        return new JdkRandomSource(Objects.requireNonNull(random));
+    }
+}
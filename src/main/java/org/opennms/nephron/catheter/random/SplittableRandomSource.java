@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.random;
+
+import java.util.SplittableRandom;
+
+/**
+ * A {@link RandomSource} backed by {@link SplittableRandom}.
+ */
+public class SplittableRandomSource implements RandomSource {
+    private final SplittableRandom random;
+
+    public SplittableRandomSource(final long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private SplittableRandomSource(final SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public long nextLong() {
+        return this.random.nextLong();
+    }
+
+    @Override
+    public int nextInt() {
+        return this.random.nextInt();
+    }
+
+    @Override
+    public double nextDouble() {
+        return this.random.nextDouble();
+    }
+
+    @Override
+    public RandomSource split() {
+        return new SplittableRandomSource(this.random.split());
+    }
+
+    @Override
+    public String toString() {
+        return "SplittableRandomSource{}";
+    }
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.random;
+
+import java.util.Objects;
+
+public class UniformDistribution implements Distribution {
+    private final double min;
+    private final double max;
+
+    public UniformDistribution(final double min, final double max) {
+        if (!(min >= 0.0) || !(max >= min) || Double.isInfinite(max)) {
+            throw new IllegalArgumentException("min and max must be finite with 0 <= min <= max");
+        }
+        this.min = min;
+        this.max = max;
+    }
+
+    @Override
+    public double sample(final RandomSource random) {
+        return this.min + random.nextDouble() * (this.max - this.min);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final UniformDistribution that = (UniformDistribution) o;
+        return this.min == that.min &&
+                this.max == that.max;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.min, this.max);
+    }
+
+    @Override
+    public String toString() {
+        return "UniformDistribution{" +
+                "min=" + this.min +
+                ", max=" + this.max +
+                '}';
+    }
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.random;
+
+/**
+ * A {@link RandomSource} implementing xoroshiro128++ by Blackman and Vigna.
+ *
+ * The 128 bits of state are initialized from the seed by SplitMix64, which guarantees a non-zero state.
+ */
+public class XoroshiroRandomSource implements RandomSource {
+    private long s0;
+    private long s1;
+
+    public XoroshiroRandomSource(final long seed) {
+        long x = seed;
+        this.s0 = mix(x += 0x9E3779B97F4A7C15L);
+        this.s1 = mix(x + 0x9E3779B97F4A7C15L);
+        if ((this.s0 | this.s1) == 0L) {
+            this.s1 = 0x9E3779B97F4A7C15L;
+        }
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public long nextLong() {
+        final long s0 = this.s0;
+        long s1 = this.s1;
+        final long result = Long.rotateLeft(s0 + s1, 17) + s0;
+
+        s1 ^= s0;
+        this.s0 = Long.rotateLeft(s0, 49) ^ s1 ^ (s1 << 21);
+        this.s1 = Long.rotateLeft(s1, 28);
+
+        return result;
+    }
+
+    @Override
+    public RandomSource split() {
+        // the seed is scrambled again by SplitMix64, so the new stream is not a shifted copy of this one
+        return new XoroshiroRandomSource(nextLong());
+    }
+
+    @Override
+    public String toString() {
+        return "XoroshiroRandomSource{}";
+    }
+}
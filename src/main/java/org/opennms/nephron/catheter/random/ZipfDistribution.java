@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.random;
+
+import java.util.Objects;
+
+/**
+ * A Zipf distribution of ranks sampled from an alias table.
+ */
+public class ZipfDistribution implements Distribution {
+    private static final int MAX_COUNT = 1 << 24;
+
+    private final int count;
+    private final double exponent;
+    private final double scale;
+    private final AliasTable table;
+
+    public ZipfDistribution(final int count, final double exponent, final double scale) {
+        if (count < 1 || count > MAX_COUNT) {
+            throw new IllegalArgumentException("count must be between 1 and " + MAX_COUNT);
+        }
+        if (!(exponent >= 0.0) || Double.isInfinite(exponent)) {
+            throw new IllegalArgumentException("exponent must be finite and non-negative");
+        }
+        if (!(scale > 0.0) || Double.isInfinite(scale)) {
+            throw new IllegalArgumentException("scale must be positive and finite");
+        }
+        this.count = count;
+        this.exponent = exponent;
+        this.scale = scale;
+
+        final double[] weights = new double[count];
+        for (int k = 0; k < count; k++) {
+            weights[k] = Math.pow(k + 1, -exponent);
+        }
+        this.table = new AliasTable(weights);
+    }
+
+    @Override
+    public double sample(final RandomSource random) {
+        return (this.table.sample(random) + 1) * this.scale;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ZipfDistribution that = (ZipfDistribution) o;
+        return this.count == that.count &&
+                this.exponent == that.exponent &&
+                this.scale == that.scale;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.count, this.exponent, this.scale);
+    }
+
+    @Override
+    public String toString() {
+        return "ZipfDistribution{" +
+                "count=" + this.count +
+                ", exponent=" + this.exponent +
+                ", scale=" + this.scale +
+                '}';
+    }
+}
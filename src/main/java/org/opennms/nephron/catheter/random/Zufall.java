@@ -31,20 +31,36 @@ package org.opennms.nephron.catheter.random;
 import java.util.Objects;
 import java.util.Random;
 
+/**
+ * Draws uniformly distributed values between an inclusive minimum and maximum.
+ *
+ * The subclasses offer primitive variants of {@link #random()} that do not box.
+ */
 public abstract class Zufall<T> {
     private final long start;
-    private final long range;
-    private final Random random;
+    private final long end;
+    private final RandomSource random;
 
     public Zufall(final Random random, final T min, final T max) {
+        this(RandomSource.of(random), min, max);
+    }
+
+    public Zufall(final RandomSource random, final T min, final T max) {
         this.start = this.toLong(min);
-        this.range = this.toLong(max) - this.start;
-        this.random = random;
+        this.end = this.toLong(max);
+        this.random = Objects.requireNonNull(random);
+
+        if (this.start > this.end) {
+            throw new IllegalArgumentException("min must not be greater than max");
+        }
     }
 
     public T random() {
-        final long l = this.start + Math.abs(this.random.nextLong()) % (this.range + 1);
-        return this.fromLong(l);
+        return this.fromLong(this.nextLong());
+    }
+
+    protected final long nextLong() {
+        return this.random.nextLong(this.start, this.end);
     }
 
     protected abstract long toLong(final T t);
@@ -57,19 +73,19 @@ public abstract class Zufall<T> {
         if (o == null || getClass() != o.getClass()) return false;
         final Zufall<?> zufall = (Zufall<?>) o;
         return this.start == zufall.start &&
-                this.range == zufall.range;
+                this.end == zufall.end;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.start, this.range);
+        return Objects.hash(this.start, this.end);
     }
 
     @Override
     public String toString() {
         return "Zufall{" +
                 "start=" + this.start +
-                ", range=" + this.range +
+                ", end=" + this.end +
                 '}';
     }
 }
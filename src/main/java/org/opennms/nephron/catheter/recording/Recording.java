@@ -0,0 +1,397 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.recording;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.opennms.nephron.catheter.Exporter;
+import org.opennms.nephron.catheter.FlowReport;
+import org.opennms.nephron.catheter.random.RandomSource;
+
+/**
+ * A recording written by {@link RecordingSink}.
+ *
+ * Opening a recording reads the exporter dictionary and the block index and maps the blocks into memory. Blocks are
+ * then inflated straight from the mapping and decoded on demand into a {@link Block}, which is reused for subsequent
+ * blocks. A recording can be read by several threads concurrently as long as every thread uses its own block.
+ *
+ * Files larger than a single mapping are mapped in segments of whole blocks. The mappings are released by the garbage
+ * collector once the recording is no longer referenced.
+ */
+public class Recording implements AutoCloseable {
+
+    /**
+     * The decoded reports of a block in columnar form.
+     */
+    public static class Block {
+        private final Recording recording;
+        private final Inflater inflater = new Inflater();
+
+        private ByteBuffer encoded = ByteBuffer.allocate(0);
+
+        private int index = -1;
+        private int size;
+        private int[] exporter = new int[0];
+        private long[] start = new long[0];
+        private long[] end = new long[0];
+        private long[] bytes = new long[0];
+
+        private Block(final Recording recording) {
+            this.recording = recording;
+        }
+
+        private void read(final int index) throws IOException {
+            final int segment = this.recording.blockSegments[index];
+            final ByteBuffer compressed = this.recording.segments[segment].duplicate();
+            final int offset = (int) (this.recording.blockOffsets[index] - this.recording.segmentOffsets[segment]);
+
+            final int uncompressedLength = compressed.getInt(offset);
+            final int compressedLength = compressed.getInt(offset + 4);
+            final int count = compressed.getInt(offset + 8);
+            compressed.limit(offset + RecordingFormat.BLOCK_HEADER_SIZE + compressedLength);
+            compressed.position(offset + RecordingFormat.BLOCK_HEADER_SIZE);
+
+            if (this.encoded.capacity() < uncompressedLength) {
+                this.encoded = ByteBuffer.allocate(uncompressedLength);
+            }
+            this.encoded.clear().limit(uncompressedLength);
+            this.inflater.reset();
+            this.inflater.setInput(compressed);
+            try {
+                while (this.encoded.hasRemaining() && !this.inflater.finished()) {
+                    if (this.inflater.inflate(this.encoded) == 0 && this.inflater.needsInput()) {
+                        throw new EOFException("Truncated block " + index + " in " + this.recording.path);
+                    }
+                }
+            } catch (final DataFormatException e) {
+                throw new IOException("Corrupt block " + index + " in " + this.recording.path, e);
+            }
+            this.encoded.flip();
+
+            if (this.exporter.length < count) {
+                this.exporter = new int[count];
+                this.start = new long[count];
+                this.end = new long[count];
+                this.bytes = new long[count];
+            }
+            RecordingFormat.decode(this.encoded, count, this.exporter, this.start, this.end, this.bytes);
+
+            this.index = index;
+            this.size = count;
+        }
+
+        /**
+         * Returns the index of the block last read or -1 if none was read yet.
+         */
+        public int getIndex() {
+            return this.index;
+        }
+
+        public int size() {
+            return this.size;
+        }
+
+        public Exporter getExporter(final int index) {
+            Objects.checkIndex(index, this.size);
+            return this.recording.exporters.get(this.exporter[index]);
+        }
+
+        public long getStartMillis(final int index) {
+            Objects.checkIndex(index, this.size);
+            return this.start[index];
+        }
+
+        public long getEndMillis(final int index) {
+            Objects.checkIndex(index, this.size);
+            return this.end[index];
+        }
+
+        public long getBytes(final int index) {
+            Objects.checkIndex(index, this.size);
+            return this.bytes[index];
+        }
+
+        /**
+         * Materializes a single report.
+         */
+        public FlowReport getReport(final int index) {
+            return new FlowReport(this.getStartMillis(index), this.getEndMillis(index), this.getBytes(index));
+        }
+
+        @Override
+        public String toString() {
+            return "Block{" +
+                    "index=" + this.index +
+                    ", size=" + this.size +
+                    '}';
+        }
+    }
+
+    // the largest mapping of blocks
+    private static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long records;
+    private final List<Exporter> exporters;
+
+    private final long[] blockOffsets;
+    private final int[] blockCounts;
+    private final long[] blockMinEnds;
+    private final long[] blockMaxEnds;
+
+    // the maximum end of all blocks up to an index, which does not decrease and can be searched
+    private final long[] blockMaxEndsSoFar;
+
+    private final MappedByteBuffer[] segments;
+    private final long[] segmentOffsets;
+    private final int[] blockSegments;
+
+    private Recording(final Path path, final FileChannel channel, final long maxSegmentSize) throws IOException {
+        this.path = path;
+        this.channel = channel;
+
+        final ByteBuffer header = ByteBuffer.allocate(RecordingFormat.HEADER_SIZE);
+        this.readFully(header, 0);
+        header.flip();
+        if (header.getInt() != RecordingFormat.MAGIC) {
+            throw new IOException("Not a recording: " + path);
+        }
+        final short version = header.getShort();
+        if (version != RecordingFormat.VERSION) {
+            throw new IOException("Unsupported recording version " + version + ": " + path);
+        }
+        header.getShort();
+        final long dictionaryOffset = header.getLong();
+        final long indexOffset = header.getLong();
+        this.records = header.getLong();
+        if (dictionaryOffset == 0) {
+            throw new IOException("Incomplete recording, the sink was not closed: " + path);
+        }
+
+        final ByteBuffer dictionary = ByteBuffer.allocate((int) (indexOffset - dictionaryOffset));
+        this.readFully(dictionary, dictionaryOffset);
+        dictionary.flip();
+        final int exporterCount = dictionary.getInt();
+        final List<Exporter> exporters = new ArrayList<>(exporterCount);
+        final RandomSource random = RandomSource.Algorithm.SPLITTABLE.create(0);
+        for (int i = 0; i < exporterCount; i++) {
+            exporters.add(Exporter.builder()
+                    .withNodeId(dictionary.getInt())
+                    .withForeignSource(RecordingFormat.getString(dictionary))
+                    .withForeignId(RecordingFormat.getString(dictionary))
+                    .withLocation(RecordingFormat.getString(dictionary))
+                    .withInputSnmp(dictionary.getInt())
+                    .withOutputSnmp(dictionary.getInt())
+                    .withClockOffset(Duration.ofMillis(dictionary.getLong()))
+                    .build(Instant.EPOCH, random));
+        }
+        this.exporters = Collections.unmodifiableList(exporters);
+
+        final ByteBuffer count = ByteBuffer.allocate(4);
+        this.readFully(count, indexOffset);
+        final int blocks = count.getInt(0);
+        final ByteBuffer index = ByteBuffer.allocate(blocks * RecordingFormat.INDEX_ENTRY_SIZE);
+        this.readFully(index, indexOffset + 4);
+        index.flip();
+
+        this.blockOffsets = new long[blocks];
+        this.blockCounts = new int[blocks];
+        this.blockMinEnds = new long[blocks];
+        this.blockMaxEnds = new long[blocks];
+        this.blockMaxEndsSoFar = new long[blocks];
+        for (int i = 0; i < blocks; i++) {
+            this.blockOffsets[i] = index.getLong();
+            this.blockCounts[i] = index.getInt();
+            this.blockMinEnds[i] = index.getLong();
+            this.blockMaxEnds[i] = index.getLong();
+            this.blockMaxEndsSoFar[i] = i == 0 ? this.blockMaxEnds[i] : Math.max(this.blockMaxEndsSoFar[i - 1], this.blockMaxEnds[i]);
+        }
+
+        // group consecutive blocks into segments, the blocks end where the dictionary starts
+        this.blockSegments = new int[blocks];
+        final List<Long> segmentOffsets = new ArrayList<>();
+        final List<MappedByteBuffer> segments = new ArrayList<>();
+        long segmentOffset = RecordingFormat.HEADER_SIZE;
+        for (int i = 0; i < blocks; i++) {
+            final long blockEnd = i + 1 < blocks ? this.blockOffsets[i + 1] : dictionaryOffset;
+            if (blockEnd - segmentOffset > maxSegmentSize && this.blockOffsets[i] > segmentOffset) {
+                segmentOffsets.add(segmentOffset);
+                segments.add(channel.map(FileChannel.MapMode.READ_ONLY, segmentOffset, this.blockOffsets[i] - segmentOffset));
+                segmentOffset = this.blockOffsets[i];
+            }
+            this.blockSegments[i] = segments.size();
+        }
+        if (blocks > 0) {
+            segmentOffsets.add(segmentOffset);
+            segments.add(channel.map(FileChannel.MapMode.READ_ONLY, segmentOffset, dictionaryOffset - segmentOffset));
+        }
+        this.segments = segments.toArray(new MappedByteBuffer[0]);
+        this.segmentOffsets = segmentOffsets.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    public static Recording open(final Path path) throws IOException {
+        return open(path, MAX_SEGMENT_SIZE);
+    }
+
+    static Recording open(final Path path, final long maxSegmentSize) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new Recording(path, channel, maxSegmentSize);
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void readFully(final ByteBuffer buffer, final long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            final int read = this.channel.read(buffer, offset);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of " + this.path);
+            }
+            offset += read;
+        }
+    }
+
+    /**
+     * Creates a block to read into. Blocks are not thread-safe.
+     */
+    public Block newBlock() {
+        return new Block(this);
+    }
+
+    /**
+     * Decodes the block with the given index.
+     */
+    public void read(final int index, final Block block) throws IOException {
+        Objects.checkIndex(index, this.getBlockCount());
+        if (block.recording != this) {
+            throw new IllegalArgumentException("Block belongs to another recording");
+        }
+        block.read(index);
+    }
+
+    /**
+     * Returns the index of the first block containing reports ending at or after the given time, or the number of
+     * blocks if there is none. All reports of the blocks before end earlier.
+     */
+    public int findBlock(final long millis) {
+        int low = 0;
+        int high = this.blockMaxEndsSoFar.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (this.blockMaxEndsSoFar[mid] < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Returns the exporters in the order they reported first.
+     */
+    public List<Exporter> getExporters() {
+        return this.exporters;
+    }
+
+    public long getRecords() {
+        return this.records;
+    }
+
+    public int getBlockCount() {
+        return this.blockOffsets.length;
+    }
+
+    public int getBlockRecords(final int index) {
+        return this.blockCounts[index];
+    }
+
+    public long getBlockMinEndMillis(final int index) {
+        return this.blockMinEnds[index];
+    }
+
+    public long getBlockMaxEndMillis(final int index) {
+        return this.blockMaxEnds[index];
+    }
+
+    /**
+     * Returns the earliest end of all reports or {@link Long#MAX_VALUE} if the recording is empty.
+     */
+    public long getMinEndMillis() {
+        long min = Long.MAX_VALUE;
+        for (final long end : this.blockMinEnds) {
+            min = Math.min(min, end);
+        }
+        return min;
+    }
+
+    /**
+     * Returns the latest end of all reports or {@link Long#MIN_VALUE} if the recording is empty.
+     */
+    public long getMaxEndMillis() {
+        return this.blockMaxEndsSoFar.length > 0 ? this.blockMaxEndsSoFar[this.blockMaxEndsSoFar.length - 1] : Long.MIN_VALUE;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "Recording{" +
+                "path=" + this.path +
+                ", records=" + this.records +
+                ", blocks=" + this.getBlockCount() +
+                ", exporters=" + this.exporters.size() +
+                '}';
+    }
+}
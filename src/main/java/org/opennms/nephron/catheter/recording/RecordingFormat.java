@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.recording;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The layout of a recording file and the codec of its blocks.
+ *
+ * <pre>
+ * header      magic (int), version (short), reserved (short), dictionary offset (long), index offset (long),
+ *             record count (long)
+ * block*      uncompressed length (int), compressed length (int), record count (int), min end (long), max end (long),
+ *             deflated columns
+ * dictionary  exporter count (int), per exporter: node ID (int), foreign source, foreign ID, location (strings),
+ *             input SNMP (int), output SNMP (int), clock offset in ms (long)
+ * index       block count (int), per block: offset (long), record count (int), min end (long), max end (long)
+ * </pre>
+ *
+ * Exporters are only known once they report, so the dictionary and the index are written behind the blocks when the
+ * recording is closed and referenced from the fixed-size header. Strings are written as their UTF-8 length (short)
+ * followed by the bytes.
+ *
+ * The columns of a block are, each for all records of the block: the dictionary index of the exporter, the end, the
+ * duration and the byte count. Exporter and end are encoded as the zig-zag delta to the previous record and all
+ * values as base 128 varints, so the reports of an exporter and tick mostly take a single byte for the exporter and
+ * the end.
+ */
+final class RecordingFormat {
+    static final int MAGIC = 0x43415448; // "CATH"
+    static final short VERSION = 1;
+
+    static final int HEADER_SIZE = 4 + 2 + 2 + 8 + 8 + 8;
+    static final int BLOCK_HEADER_SIZE = 4 + 4 + 4 + 8 + 8;
+    static final int INDEX_ENTRY_SIZE = 8 + 4 + 8 + 8;
+
+    // exporter and bytes take at most 5 and 10 bytes, end and duration 10 bytes each
+    static final int MAX_RECORD_SIZE = 5 + 10 + 10 + 10;
+
+    private RecordingFormat() {
+    }
+
+    /**
+     * Encodes the columns of a block.
+     */
+    static void encode(final ByteBuffer buffer, final int count, final int[] exporters, final long[] start, final long[] end, final long[] bytes) {
+        int previousExporter = 0;
+        for (int i = 0; i < count; i++) {
+            putVarint(buffer, zigZag(exporters[i] - previousExporter));
+            previousExporter = exporters[i];
+        }
+
+        long previousEnd = 0;
+        for (int i = 0; i < count; i++) {
+            putVarint(buffer, zigZag(end[i] - previousEnd));
+            previousEnd = end[i];
+        }
+
+        for (int i = 0; i < count; i++) {
+            putVarint(buffer, zigZag(end[i] - start[i]));
+        }
+
+        for (int i = 0; i < count; i++) {
+            putVarint(buffer, bytes[i]);
+        }
+    }
+
+    /**
+     * Decodes the columns of a block encoded by {@link #encode}.
+     */
+    static void decode(final ByteBuffer buffer, final int count, final int[] exporters, final long[] start, final long[] end, final long[] bytes) {
+        int previousExporter = 0;
+        for (int i = 0; i < count; i++) {
+            previousExporter += (int) unZigZag(getVarint(buffer));
+            exporters[i] = previousExporter;
+        }
+
+        long previousEnd = 0;
+        for (int i = 0; i < count; i++) {
+            previousEnd += unZigZag(getVarint(buffer));
+            end[i] = previousEnd;
+        }
+
+        for (int i = 0; i < count; i++) {
+            start[i] = end[i] - unZigZag(getVarint(buffer));
+        }
+
+        for (int i = 0; i < count; i++) {
+            bytes[i] = getVarint(buffer);
+        }
+    }
+
+    static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void putVarint(final ByteBuffer buffer, final long value) {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            buffer.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buffer.put((byte) v);
+    }
+
+    static long getVarint(final ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    static void putString(final ByteBuffer buffer, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String too long: " + value);
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String getString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int stringSize(final String value) {
+        return 2 + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,351 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.recording;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.Deflater;
+
+import org.opennms.nephron.catheter.BatchHandler;
+import org.opennms.nephron.catheter.Exporter;
+import org.opennms.nephron.catheter.FlowReportBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the reports of a simulation to a file, to be read by {@link Recording}.
+ *
+ * Reports are collected in columns until a block is full. The block is then delta and varint encoded, deflated and
+ * appended to the file in a single write. The encoding and compression buffers are reused, so recording does not
+ * allocate per report. The sink is thread-safe; concurrent workers are serialized.
+ *
+ * The file is only complete once the sink is closed, which appends the exporter dictionary and the block index.
+ *
+ * @see RecordingFormat
+ */
+public class RecordingSink implements BatchHandler, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(RecordingSink.class);
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int blockSize;
+    private final Deflater deflater;
+
+    // the columns of the current block
+    private final int[] exporterColumn;
+    private final long[] startColumn;
+    private final long[] endColumn;
+    private final long[] bytesColumn;
+    private int size;
+
+    private final ByteBuffer encoded;
+    private ByteBuffer compressed;
+
+    private final Map<Exporter, Integer> dictionary = new IdentityHashMap<>();
+    private final List<Exporter> exporters = new ArrayList<>();
+
+    // the block index
+    private int blocks;
+    private long[] blockOffsets = new long[16];
+    private int[] blockCounts = new int[16];
+    private long[] blockMinEnds = new long[16];
+    private long[] blockMaxEnds = new long[16];
+
+    private long records;
+    private long position = RecordingFormat.HEADER_SIZE;
+    private boolean closed;
+
+    private RecordingSink(final Builder builder) throws IOException {
+        this.path = builder.path;
+        this.blockSize = builder.blockSize;
+        this.deflater = new Deflater(builder.compressionLevel);
+
+        this.exporterColumn = new int[builder.blockSize];
+        this.startColumn = new long[builder.blockSize];
+        this.endColumn = new long[builder.blockSize];
+        this.bytesColumn = new long[builder.blockSize];
+
+        this.encoded = ByteBuffer.allocateDirect(builder.blockSize * RecordingFormat.MAX_RECORD_SIZE);
+        this.compressed = ByteBuffer.allocateDirect(RecordingFormat.BLOCK_HEADER_SIZE + builder.blockSize * RecordingFormat.MAX_RECORD_SIZE / 2);
+
+        this.channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.channel.position(RecordingFormat.HEADER_SIZE);
+    }
+
+    public static Builder builder(final Path path) {
+        return new Builder(path);
+    }
+
+    @Override
+    public synchronized void accept(final FlowReportBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (this.closed) {
+            throw new IllegalStateException("Recording is closed");
+        }
+
+        Integer exporter = this.dictionary.get(batch.getExporter());
+        if (exporter == null) {
+            exporter = this.exporters.size();
+            this.exporters.add(batch.getExporter());
+            this.dictionary.put(batch.getExporter(), exporter);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            this.exporterColumn[this.size] = exporter;
+            this.startColumn[this.size] = batch.getStartMillis(i);
+            this.endColumn[this.size] = batch.getEndMillis(i);
+            this.bytesColumn[this.size] = batch.getBytes(i);
+
+            if (++this.size == this.blockSize) {
+                this.flush();
+            }
+        }
+    }
+
+    private void flush() {
+        if (this.size == 0) {
+            return;
+        }
+
+        long minEnd = Long.MAX_VALUE;
+        long maxEnd = Long.MIN_VALUE;
+        for (int i = 0; i < this.size; i++) {
+            minEnd = Math.min(minEnd, this.endColumn[i]);
+            maxEnd = Math.max(maxEnd, this.endColumn[i]);
+        }
+
+        this.encoded.clear();
+        RecordingFormat.encode(this.encoded, this.size, this.exporterColumn, this.startColumn, this.endColumn, this.bytesColumn);
+        this.encoded.flip();
+        final int uncompressedLength = this.encoded.remaining();
+
+        this.compressed.clear();
+        this.compressed.position(RecordingFormat.BLOCK_HEADER_SIZE);
+        this.deflater.reset();
+        this.deflater.setInput(this.encoded);
+        this.deflater.finish();
+        while (!this.deflater.finished()) {
+            if (!this.compressed.hasRemaining()) {
+                // incompressible data - grow once and keep the larger buffer
+                final ByteBuffer larger = ByteBuffer.allocateDirect(this.compressed.capacity() * 2);
+                this.compressed.flip();
+                larger.put(this.compressed);
+                this.compressed = larger;
+            }
+            this.deflater.deflate(this.compressed);
+        }
+
+        final int compressedLength = this.compressed.position() - RecordingFormat.BLOCK_HEADER_SIZE;
+        this.compressed.putInt(0, uncompressedLength);
+        this.compressed.putInt(4, compressedLength);
+        this.compressed.putInt(8, this.size);
+        this.compressed.putLong(12, minEnd);
+        this.compressed.putLong(20, maxEnd);
+        this.compressed.flip();
+
+        this.addToIndex(this.position, this.size, minEnd, maxEnd);
+        this.position += this.compressed.remaining();
+        this.write(this.compressed);
+
+        this.records += this.size;
+        this.size = 0;
+    }
+
+    private void addToIndex(final long offset, final int count, final long minEnd, final long maxEnd) {
+        if (this.blocks == this.blockOffsets.length) {
+            final int capacity = this.blocks * 2;
+            this.blockOffsets = Arrays.copyOf(this.blockOffsets, capacity);
+            this.blockCounts = Arrays.copyOf(this.blockCounts, capacity);
+            this.blockMinEnds = Arrays.copyOf(this.blockMinEnds, capacity);
+            this.blockMaxEnds = Arrays.copyOf(this.blockMaxEnds, capacity);
+        }
+        this.blockOffsets[this.blocks] = offset;
+        this.blockCounts[this.blocks] = count;
+        this.blockMinEnds[this.blocks] = minEnd;
+        this.blockMaxEnds[this.blocks] = maxEnd;
+        this.blocks++;
+    }
+
+    private void write(final ByteBuffer buffer) {
+        try {
+            while (buffer.hasRemaining()) {
+                this.channel.write(buffer);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to write to " + this.path, e);
+        }
+    }
+
+    /**
+     * Writes the last block, the exporter dictionary and the block index and closes the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        try {
+            this.flush();
+
+            final long dictionaryOffset = this.position;
+            int dictionarySize = 4;
+            for (final Exporter exporter : this.exporters) {
+                dictionarySize += 4 + RecordingFormat.stringSize(exporter.getForeignSource())
+                                  + RecordingFormat.stringSize(exporter.getForeignId())
+                                  + RecordingFormat.stringSize(exporter.getLocation())
+                                  + 4 + 4 + 8;
+            }
+            final ByteBuffer dictionary = ByteBuffer.allocate(dictionarySize);
+            dictionary.putInt(this.exporters.size());
+            for (final Exporter exporter : this.exporters) {
+                dictionary.putInt(exporter.getNodeId());
+                RecordingFormat.putString(dictionary, exporter.getForeignSource());
+                RecordingFormat.putString(dictionary, exporter.getForeignId());
+                RecordingFormat.putString(dictionary, exporter.getLocation());
+                dictionary.putInt(exporter.getInputSnmp());
+                dictionary.putInt(exporter.getOutputSnmp());
+                dictionary.putLong(exporter.getClockOffset().toMillis());
+            }
+            dictionary.flip();
+            this.write(dictionary);
+
+            final long indexOffset = dictionaryOffset + dictionarySize;
+            final ByteBuffer index = ByteBuffer.allocate(4 + this.blocks * RecordingFormat.INDEX_ENTRY_SIZE);
+            index.putInt(this.blocks);
+            for (int i = 0; i < this.blocks; i++) {
+                index.putLong(this.blockOffsets[i]);
+                index.putInt(this.blockCounts[i]);
+                index.putLong(this.blockMinEnds[i]);
+                index.putLong(this.blockMaxEnds[i]);
+            }
+            index.flip();
+            this.write(index);
+
+            final ByteBuffer header = ByteBuffer.allocate(RecordingFormat.HEADER_SIZE);
+            header.putInt(RecordingFormat.MAGIC);
+            header.putShort(RecordingFormat.VERSION);
+            header.putShort((short) 0);
+            header.putLong(dictionaryOffset);
+            header.putLong(indexOffset);
+            header.putLong(this.records);
+            header.flip();
+            while (header.hasRemaining()) {
+                this.channel.write(header, header.position());
+            }
+
+            LOG.info("Recorded {} reports of {} exporters in {} blocks to {} ({} bytes)", this.records, this.exporters.size(), this.blocks, this.path, this.channel.size());
+        } finally {
+            this.deflater.end();
+            this.channel.close();
+        }
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Returns the number of reports written to the file so far, not counting the reports of the current block.
+     */
+    public synchronized long getRecords() {
+        return this.records;
+    }
+
+    public synchronized int getBlocks() {
+        return this.blocks;
+    }
+
+    /**
+     * Returns the number of bytes written to the file so far.
+     */
+    public synchronized long getSize() {
+        return this.position;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RecordingSink{" +
+                "path=" + this.path +
+                ", blockSize=" + this.blockSize +
+                ", records=" + this.records +
+                ", blocks=" + this.blocks +
+                ", exporters=" + this.exporters.size() +
+                '}';
+    }
+
+    public static class Builder {
+        private final Path path;
+        private int blockSize = 64 * 1024;
+        private int compressionLevel = Deflater.BEST_SPEED;
+
+        private Builder(final Path path) {
+            this.path = Objects.requireNonNull(path);
+        }
+
+        /**
+         * Sets the number of reports per block. Larger blocks compress better, smaller blocks allow finer seeking.
+         */
+        public Builder withBlockSize(final int blockSize) {
+            if (blockSize < 1) {
+                throw new IllegalArgumentException("blockSize must be positive");
+            }
+            this.blockSize = blockSize;
+            return this;
+        }
+
+        /**
+         * Sets the deflate compression level between 0 and 9. Defaults to the fastest compression.
+         */
+        public Builder withCompressionLevel(final int compressionLevel) {
+            if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+                throw new IllegalArgumentException("compressionLevel must be between 0 and 9");
+            }
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
+        public RecordingSink build() throws IOException {
+            return new RecordingSink(this);
+        }
+    }
+}
@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+import org.opennms.nephron.catheter.BatchHandler;
+import org.opennms.nephron.catheter.Exporter;
+import org.opennms.nephron.catheter.FlowReport;
+import org.opennms.nephron.catheter.FlowReportBatch;
+import org.opennms.nephron.catheter.WallClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays recordings to a handler without generating the flows again.
+ *
+ * Every recording is read by its own thread, so the handler must be thread-safe if more than one recording is
+ * replayed. Reports are handed over in the order they were recorded, in batches of consecutive reports of the same
+ * exporter. They are paced by their end time: a report is handed over once the wall clock advanced by the time since
+ * the start of the replay divided by the speed. All recordings share the start of the replay, which is the given start
+ * time or the earliest report of all recordings, so they stay in step.
+ */
+public class Replay implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(Replay.class);
+
+    // upper bound of a single wait, so stopping does not wait for a far away report
+    private static final long MAX_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final BatchHandler handler;
+    private final List<Recording> recordings;
+    private final double speed;
+    private final WallClock clock;
+    private final long startMillis;
+
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicInteger activeThreads = new AtomicInteger();
+    private volatile long originNanos;
+
+    private final LongAdder reports = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    private Replay(final Builder builder, final List<Recording> recordings) {
+        this.handler = builder.handler;
+        this.recordings = Collections.unmodifiableList(recordings);
+        this.speed = builder.speed;
+        this.clock = builder.clock;
+
+        if (builder.startTime != null) {
+            this.startMillis = builder.startTime.toEpochMilli();
+        } else {
+            this.startMillis = recordings.stream().mapToLong(Recording::getMinEndMillis).min().orElse(Long.MAX_VALUE);
+        }
+    }
+
+    public static Builder builder(final BatchHandler handler) {
+        return new Builder(handler);
+    }
+
+    public static Builder builder(final BiConsumer<Exporter, FlowReport> handler) {
+        return new Builder(BatchHandler.of(handler));
+    }
+
+    /**
+     * Starts replaying all recordings from the start time.
+     */
+    public void start() {
+        if (!this.running.get()) {
+            this.running.set(true);
+            this.threads.clear();
+            this.activeThreads.set(this.recordings.size());
+            this.reports.reset();
+            this.bytes.reset();
+            this.originNanos = this.clock.nanoTime();
+
+            if (this.recordings.isEmpty()) {
+                this.running.set(false);
+            }
+
+            for (final Recording recording : this.recordings) {
+                final Thread thread = new Thread(() -> this.run(recording), "catheter-replay-" + recording.getPath().getFileName());
+                this.threads.add(thread);
+                thread.start();
+            }
+        }
+    }
+
+    private void run(final Recording recording) {
+        try {
+            this.replay(recording);
+        } catch (final IOException e) {
+            LOG.error("Replay: failed to read {}", recording.getPath(), e);
+        } finally {
+            if (this.activeThreads.decrementAndGet() == 0) {
+                this.running.set(false);
+            }
+        }
+    }
+
+    private void replay(final Recording recording) throws IOException {
+        final Recording.Block block = recording.newBlock();
+        final FlowReportBatch batch = new FlowReportBatch();
+
+        // reports ending up to this time are due
+        long dueMillis = this.speed > 0.0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+
+        for (int b = recording.findBlock(this.startMillis); b < recording.getBlockCount() && this.running.get(); b++) {
+            recording.read(b, block);
+
+            for (int i = 0; i < block.size(); i++) {
+                final long endMillis = block.getEndMillis(i);
+                if (endMillis < this.startMillis) {
+                    continue;
+                }
+
+                if (endMillis > dueMillis) {
+                    this.dispatch(batch);
+                    dueMillis = this.await(endMillis);
+                    if (!this.running.get()) {
+                        return;
+                    }
+                }
+
+                final Exporter exporter = block.getExporter(i);
+                if (batch.getExporter() != exporter) {
+                    this.dispatch(batch);
+                    batch.reset(exporter);
+                }
+                batch.add(block.getStartMillis(i), endMillis, block.getBytes(i));
+            }
+
+            this.dispatch(batch);
+        }
+    }
+
+    private void dispatch(final FlowReportBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        this.handler.accept(batch);
+        this.reports.add(batch.size());
+        this.bytes.add(batch.getTotalBytes());
+        batch.reset(batch.getExporter());
+    }
+
+    /**
+     * Waits until the report ending at the given time is due and returns the time up to which reports are due then.
+     */
+    private long await(final long endMillis) {
+        final long due = this.originNanos + (long) ((endMillis - this.startMillis) * 1_000_000.0 / this.speed);
+
+        long now = this.clock.nanoTime();
+        while (now < due && this.running.get()) {
+            now = this.clock.sleepUntil(Math.min(due, now + MAX_SLEEP_NANOS));
+        }
+
+        return Math.max(endMillis, this.startMillis + (long) ((now - this.originNanos) * this.speed / 1_000_000.0));
+    }
+
+    public void join() throws InterruptedException {
+        for (final Thread thread : this.threads) {
+            thread.join();
+        }
+    }
+
+    public void stop() {
+        if (this.running.get()) {
+            this.running.set(false);
+        }
+    }
+
+    public boolean isRunning() {
+        return this.running.get();
+    }
+
+    /**
+     * Stops the replay and closes all recordings.
+     */
+    @Override
+    public void close() throws IOException {
+        this.stop();
+        try {
+            this.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (final Recording recording : this.recordings) {
+            recording.close();
+        }
+    }
+
+    public List<Recording> getRecordings() {
+        return this.recordings;
+    }
+
+    /**
+     * Returns the time the replay starts at, i.e. the time that is due when the replay is started.
+     */
+    public Instant getStartTime() {
+        return Instant.ofEpochMilli(this.startMillis);
+    }
+
+    public double getSpeed() {
+        return this.speed;
+    }
+
+    /**
+     * Returns the number of reports handed to the handler since the replay was started.
+     */
+    public long getReports() {
+        return this.reports.sum();
+    }
+
+    /**
+     * Returns the sum of the bytes of the reports handed to the handler since the replay was started.
+     */
+    public long getBytes() {
+        return this.bytes.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "Replay{" +
+                "recordings=" + this.recordings +
+                ", speed=" + this.speed +
+                ", startMillis=" + this.startMillis +
+                ", running=" + this.running +
+                '}';
+    }
+
+    public static class Builder {
+        private final BatchHandler handler;
+        private final List<Path> paths = new ArrayList<>();
+        private double speed = 1.0;
+        private WallClock clock = WallClock.SYSTEM;
+        private Instant startTime;
+
+        private Builder(final BatchHandler handler) {
+            this.handler = Objects.requireNonNull(handler);
+        }
+
+        /**
+         * Adds recordings to replay. Every recording is read by its own thread.
+         */
+        public Builder withRecordings(final Path... paths) {
+            for (final Path path : paths) {
+                this.paths.add(Objects.requireNonNull(path));
+            }
+            return this;
+        }
+
+        public Builder withRecordings(final Collection<Path> paths) {
+            return this.withRecordings(paths.toArray(new Path[0]));
+        }
+
+        /**
+         * Sets the ratio of recorded time to wall-clock time.
+         *
+         * A speed of 1 (default) replays the reports at the pace they were recorded, a speed of 10 ten times as fast.
+         * A speed of 0 replays the reports as fast as the handler takes them.
+         */
+        public Builder withSpeed(final double speed) {
+            if (!(speed >= 0.0) || Double.isInfinite(speed)) {
+                throw new IllegalArgumentException("speed must be a finite non-negative number");
+            }
+            this.speed = speed;
+            return this;
+        }
+
+        /**
+         * Sets the wall clock used to pace the replay.
+         */
+        public Builder withClock(final WallClock clock) {
+            this.clock = Objects.requireNonNull(clock);
+            return this;
+        }
+
+        /**
+         * Skips all reports ending before the given time. The block index is used to find the first block to read.
+         * Defaults to the earliest report of all recordings.
+         */
+        public Builder withStartTime(final Instant startTime) {
+            this.startTime = Objects.requireNonNull(startTime);
+            return this;
+        }
+
+        /**
+         * Opens the recordings.
+         */
+        public Replay build() throws IOException {
+            final List<Recording> recordings = new ArrayList<>(this.paths.size());
+            try {
+                for (final Path path : this.paths) {
+                    recordings.add(Recording.open(path));
+                }
+            } catch (final IOException | RuntimeException e) {
+                for (final Recording recording : recordings) {
+                    recording.close();
+                }
+                throw e;
+            }
+            return new Replay(this, recordings);
+        }
+    }
+}
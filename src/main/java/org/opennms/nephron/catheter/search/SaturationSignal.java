@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.search;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+
+import org.opennms.nephron.catheter.DispatchRing;
+import org.opennms.nephron.catheter.Simulation;
+
+/**
+ * Decides whether the pipeline fed by a simulation keeps up with the generated traffic.
+ *
+ * A signal is asked once per measurement window of a {@link ThroughputSearch}: {@link #begin(Simulation)} is called
+ * when the window starts and {@link #isSaturated(Simulation)} when it ends.
+ */
+@FunctionalInterface
+public interface SaturationSignal {
+
+    /**
+     * Called at the start of a measurement window.
+     */
+    default void begin(final Simulation simulation) {
+    }
+
+    /**
+     * Returns whether the pipeline fell behind during the measurement window that just ended.
+     */
+    boolean isSaturated(final Simulation simulation);
+
+    /**
+     * Saturated if the given percentile of the time the handler took to accept a batch exceeds the given limit.
+     *
+     * Resets the handler latency histogram of the simulation at the start of every window.
+     */
+    static SaturationSignal handlerLatency(final Duration limit, final double percentile) {
+        Objects.requireNonNull(limit);
+        return new SaturationSignal() {
+            @Override
+            public void begin(final Simulation simulation) {
+                simulation.getHandlerLatency().reset();
+            }
+
+            @Override
+            public boolean isSaturated(final Simulation simulation) {
+                return simulation.getHandlerLatency().getValueAtPercentile(percentile) > limit.toNanos();
+            }
+        };
+    }
+
+    /**
+     * Saturated if the given percentile of the schedule lag exceeds the given limit, i.e. if ticks start late
+     * because generating and handling the previous ticks took too long.
+     *
+     * Resets the schedule lag histogram of the simulation at the start of every window.
+     */
+    static SaturationSignal scheduleLag(final Duration limit, final double percentile) {
+        Objects.requireNonNull(limit);
+        return new SaturationSignal() {
+            @Override
+            public void begin(final Simulation simulation) {
+                simulation.getScheduleLag().reset();
+            }
+
+            @Override
+            public boolean isSaturated(final Simulation simulation) {
+                return simulation.getScheduleLag().getValueAtPercentile(percentile) > limit.toNanos();
+            }
+        };
+    }
+
+    /**
+     * Saturated if any dispatch ring is filled above the given fraction of its capacity at the end of the window or
+     * if any report was dropped during the window.
+     *
+     * A pipeline that keeps up drains the rings between ticks. The simulation must use dispatch rings.
+     */
+    static SaturationSignal queueOccupancy(final double fraction) {
+        if (fraction <= 0.0 || fraction > 1.0) {
+            throw new IllegalArgumentException("fraction must be in (0, 1]");
+        }
+        return new SaturationSignal() {
+            private long dropped;
+
+            @Override
+            public void begin(final Simulation simulation) {
+                if (simulation.getDispatchRings().isEmpty()) {
+                    throw new IllegalStateException("queue occupancy requires a simulation with dispatch rings");
+                }
+                this.dropped = simulation.getDroppedReports();
+            }
+
+            @Override
+            public boolean isSaturated(final Simulation simulation) {
+                if (simulation.getDroppedReports() > this.dropped) {
+                    return true;
+                }
+                for (final DispatchRing ring : simulation.getDispatchRings().values()) {
+                    if (ring.getOccupancy() > fraction * ring.getCapacity()) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Saturated if the given probe returns {@code true}, e.g. if the consumer lag of the pipeline grows.
+     */
+    static SaturationSignal probe(final BooleanSupplier probe) {
+        Objects.requireNonNull(probe);
+        return simulation -> probe.getAsBoolean();
+    }
+
+    /**
+     * Saturated if any of the given signals is saturated.
+     */
+    static SaturationSignal anyOf(final SaturationSignal... signals) {
+        final List<SaturationSignal> all = Arrays.asList(signals);
+        return new SaturationSignal() {
+            @Override
+            public void begin(final Simulation simulation) {
+                all.forEach(signal -> signal.begin(simulation));
+            }
+
+            @Override
+            public boolean isSaturated(final Simulation simulation) {
+                // ask all signals to not leave any of them in a half-finished window
+                boolean saturated = false;
+                for (final SaturationSignal signal : all) {
+                    saturated |= signal.isSaturated(simulation);
+                }
+                return saturated;
+            }
+        };
+    }
+}
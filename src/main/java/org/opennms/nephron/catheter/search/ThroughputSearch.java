@@ -0,0 +1,389 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.search;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.opennms.nephron.catheter.Simulation;
+import org.opennms.nephron.catheter.WallClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Searches the highest traffic rate a pipeline sustains.
+ *
+ * The search scales the traffic of a paced simulation and measures each scale for a window of wall-clock time. It
+ * grows the scale exponentially until the saturation signal fires, or shrinks it until the signal clears if the
+ * initial scale is already saturated, and then bisects between the steady and the saturated scale until both are
+ * closer than the configured precision. The result holds the flow and byte rates measured at the highest steady
+ * scale.
+ */
+public class ThroughputSearch {
+    private static final Logger LOG = LoggerFactory.getLogger(ThroughputSearch.class);
+
+    private final SaturationSignal signal;
+    private final double initialScale;
+    private final double growthFactor;
+    private final double minScale;
+    private final double maxScale;
+    private final double precision;
+    private final Duration warmup;
+    private final Duration window;
+
+    private ThroughputSearch(final Builder builder) {
+        this.signal = builder.signal;
+        this.initialScale = builder.initialScale;
+        this.growthFactor = builder.growthFactor;
+        this.minScale = builder.minScale;
+        this.maxScale = builder.maxScale;
+        this.precision = builder.precision;
+        this.warmup = builder.warmup;
+        this.window = builder.window;
+    }
+
+    public static Builder builder(final SaturationSignal signal) {
+        return new Builder(signal);
+    }
+
+    /**
+     * Runs the search against the given simulation.
+     *
+     * The simulation is started if it is not running yet and stopped again after the search. Otherwise, its rate
+     * scale is restored when the search is done.
+     */
+    public Result run(final Simulation simulation) throws InterruptedException {
+        if (!simulation.isRealtime()) {
+            throw new IllegalStateException("throughput search requires a paced simulation");
+        }
+
+        final boolean started = !simulation.isRunning();
+        final double originalScale = simulation.getRateScale();
+        if (started) {
+            simulation.start();
+        }
+
+        final List<Step> steps = new ArrayList<>();
+        try {
+            Step steady = null;
+            Step step = measure(simulation, this.initialScale, steps);
+            if (step.isSaturated()) {
+                // ramp down until the pipeline keeps up
+                Step saturated = step;
+                while (steady == null && saturated.getScale() > this.minScale) {
+                    step = measure(simulation, Math.max(saturated.getScale() / this.growthFactor, this.minScale), steps);
+                    if (step.isSaturated()) {
+                        saturated = step;
+                    } else {
+                        steady = step;
+                    }
+                }
+
+                if (steady == null) {
+                    LOG.info("Search: saturated down to the minimum scale of {}", this.minScale);
+                    return new Result(null, true, steps);
+                }
+                step = saturated;
+            } else {
+                // ramp up until the pipeline saturates
+                while (!step.isSaturated() && step.getScale() < this.maxScale) {
+                    steady = step;
+                    step = measure(simulation, Math.min(step.getScale() * this.growthFactor, this.maxScale), steps);
+                }
+
+                if (!step.isSaturated()) {
+                    LOG.info("Search: not saturated up to the maximum scale of {}", this.maxScale);
+                    return new Result(step, false, steps);
+                }
+            }
+
+            // bisect between the last steady and the first saturated scale
+            double lower = steady.getScale();
+            double upper = step.getScale();
+            while (upper - lower > this.precision * upper) {
+                step = measure(simulation, (lower + upper) / 2.0, steps);
+                if (step.isSaturated()) {
+                    upper = step.getScale();
+                } else {
+                    steady = step;
+                    lower = step.getScale();
+                }
+            }
+
+            return new Result(steady, true, steps);
+        } finally {
+            if (started) {
+                simulation.stop();
+                simulation.join();
+            }
+            simulation.setRateScale(originalScale);
+        }
+    }
+
+    private Step measure(final Simulation simulation, final double scale, final List<Step> steps) throws InterruptedException {
+        final WallClock clock = simulation.getClock();
+
+        simulation.setRateScale(scale);
+        sleep(clock, this.warmup);
+
+        this.signal.begin(simulation);
+
+        final long flows = simulation.getFlowsSent();
+        final long bytes = simulation.getBytesSent();
+        final long begin = clock.nanoTime();
+
+        sleep(clock, this.window);
+
+        final double seconds = (clock.nanoTime() - begin) / 1e9;
+        final Step step = new Step(scale,
+                (simulation.getFlowsSent() - flows) / seconds,
+                (simulation.getBytesSent() - bytes) / seconds,
+                this.signal.isSaturated(simulation));
+
+        if (!simulation.isRunning()) {
+            throw new IllegalStateException("simulation stopped during throughput search");
+        }
+
+        LOG.debug("Search: {}", step);
+        steps.add(step);
+        return step;
+    }
+
+    private static void sleep(final WallClock clock, final Duration duration) throws InterruptedException {
+        clock.sleepUntil(clock.nanoTime() + duration.toNanos());
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * The rates measured for a single scale.
+     */
+    public static class Step {
+        private final double scale;
+        private final double flowsPerSecond;
+        private final double bytesPerSecond;
+        private final boolean saturated;
+
+        private Step(final double scale, final double flowsPerSecond, final double bytesPerSecond, final boolean saturated) {
+            this.scale = scale;
+            this.flowsPerSecond = flowsPerSecond;
+            this.bytesPerSecond = bytesPerSecond;
+            this.saturated = saturated;
+        }
+
+        public double getScale() {
+            return this.scale;
+        }
+
+        public double getFlowsPerSecond() {
+            return this.flowsPerSecond;
+        }
+
+        public double getBytesPerSecond() {
+            return this.bytesPerSecond;
+        }
+
+        public boolean isSaturated() {
+            return this.saturated;
+        }
+
+        @Override
+        public String toString() {
+            return "Step{" +
+                    "scale=" + this.scale +
+                    ", flowsPerSecond=" + this.flowsPerSecond +
+                    ", bytesPerSecond=" + this.bytesPerSecond +
+                    ", saturated=" + this.saturated +
+                    '}';
+        }
+    }
+
+    /**
+     * The outcome of a search.
+     */
+    public static class Result {
+        private final Step sustained;
+        private final boolean saturationFound;
+        private final List<Step> steps;
+
+        private Result(final Step sustained, final boolean saturationFound, final List<Step> steps) {
+            this.sustained = sustained;
+            this.saturationFound = saturationFound;
+            this.steps = Collections.unmodifiableList(steps);
+        }
+
+        /**
+         * Returns the highest scale that did not saturate the pipeline or {@code 0.0} if even the minimum scale did.
+         */
+        public double getSustainedScale() {
+            return this.sustained != null ? this.sustained.getScale() : 0.0;
+        }
+
+        public double getFlowsPerSecond() {
+            return this.sustained != null ? this.sustained.getFlowsPerSecond() : 0.0;
+        }
+
+        public double getBytesPerSecond() {
+            return this.sustained != null ? this.sustained.getBytesPerSecond() : 0.0;
+        }
+
+        /**
+         * Returns whether the pipeline saturated at all. If not, the sustained scale is the maximum scale.
+         */
+        public boolean isSaturationFound() {
+            return this.saturationFound;
+        }
+
+        public List<Step> getSteps() {
+            return this.steps;
+        }
+
+        /**
+         * Writes a human readable report of the search.
+         */
+        public void writeReport(final Appendable out) {
+            try {
+                out.append(String.format("%10s %16s %16s %10s%n", "scale", "flows/sec", "bytes/sec", "saturated"));
+                for (final Step step : this.steps) {
+                    out.append(String.format("%10.4f %16.1f %16.1f %10s%n", step.getScale(), step.getFlowsPerSecond(), step.getBytesPerSecond(), step.isSaturated()));
+                }
+                out.append(String.format("%nsustained: scale=%.4f flows/sec=%.1f bytes/sec=%.1f%s%n",
+                        getSustainedScale(), getFlowsPerSecond(), getBytesPerSecond(),
+                        !this.saturationFound ? " (maximum scale reached without saturation)"
+                                : this.sustained == null ? " (saturated down to the minimum scale)" : ""));
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "sustained=" + this.sustained +
+                    ", saturationFound=" + this.saturationFound +
+                    ", steps=" + this.steps +
+                    '}';
+        }
+    }
+
+    public static class Builder {
+        private final SaturationSignal signal;
+        private double initialScale = 1.0;
+        private double growthFactor = 2.0;
+        private double minScale = 1.0 / 1024.0;
+        private double maxScale = 1024.0;
+        private double precision = 0.05;
+        private Duration warmup = Duration.ofSeconds(10);
+        private Duration window = Duration.ofSeconds(30);
+
+        private Builder(final SaturationSignal signal) {
+            this.signal = Objects.requireNonNull(signal);
+        }
+
+        public Builder withInitialScale(final double initialScale) {
+            if (initialScale <= 0.0) {
+                throw new IllegalArgumentException("initialScale must be positive");
+            }
+            this.initialScale = initialScale;
+            return this;
+        }
+
+        public Builder withGrowthFactor(final double growthFactor) {
+            if (growthFactor <= 1.0) {
+                throw new IllegalArgumentException("growthFactor must be greater than 1");
+            }
+            this.growthFactor = growthFactor;
+            return this;
+        }
+
+        /**
+         * Sets the lowest scale measured if the initial scale already saturates the pipeline.
+         */
+        public Builder withMinScale(final double minScale) {
+            if (minScale <= 0.0) {
+                throw new IllegalArgumentException("minScale must be positive");
+            }
+            this.minScale = minScale;
+            return this;
+        }
+
+        public Builder withMaxScale(final double maxScale) {
+            if (maxScale <= 0.0) {
+                throw new IllegalArgumentException("maxScale must be positive");
+            }
+            this.maxScale = maxScale;
+            return this;
+        }
+
+        /**
+         * Sets the relative distance between the steady and the saturated scale at which the bisection stops.
+         */
+        public Builder withPrecision(final double precision) {
+            if (precision <= 0.0 || precision >= 1.0) {
+                throw new IllegalArgumentException("precision must be in (0, 1)");
+            }
+            this.precision = precision;
+            return this;
+        }
+
+        /**
+         * Sets the time given to the pipeline to settle after the scale changed.
+         */
+        public Builder withWarmup(final Duration warmup) {
+            this.warmup = Objects.requireNonNull(warmup);
+            return this;
+        }
+
+        /**
+         * Sets the time a scale is measured for.
+         *
+         * Flows are reported when they end or hit the active timeout, so the window should span several active
+         * timeouts to measure stable rates.
+         */
+        public Builder withWindow(final Duration window) {
+            this.window = Objects.requireNonNull(window);
+            return this;
+        }
+
+        public ThroughputSearch build() {
+            if (this.initialScale > this.maxScale) {
+                throw new IllegalArgumentException("initialScale must not exceed maxScale");
+            }
+            if (this.minScale > this.initialScale) {
+                throw new IllegalArgumentException("minScale must not exceed initialScale");
+            }
+            return new ThroughputSearch(this);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Asserts that generating and dispatching reports does not allocate once the simulation reached its steady state.
+ */
+public class AllocationTest {
+    private final static Instant PIT = Instant.ofEpochMilli(1500_000_000_000L);
+
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static FlowGenerator.Builder generator() {
+        return FlowGenerator.builder()
+                .withBytesPerSecond(10_000_000L)
+                .withMaxFlowCount(1000)
+                .withMinFlowDuration(Duration.ofSeconds(1))
+                .withMaxFlowDuration(Duration.ofSeconds(20))
+                .withActiveTimeout(Duration.ofSeconds(2));
+    }
+
+    @Test
+    public void testTick() {
+        final FlowGenerator generator = generator().build(PIT, new Random(42L));
+        final FlowReportBatch batch = new FlowReportBatch();
+
+        // grow the flow table and the batch to their steady-state size
+        long now = FlowGenerator.epochNanos(PIT);
+        for (int i = 0; i < 10_000; i++) {
+            generator.tickNanos(now += 250_000_000L, batch.reset(null));
+        }
+
+        final long overhead = -allocatedBytes() + allocatedBytes();
+
+        long reports = 0;
+        final long before = allocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            generator.tickNanos(now += 250_000_000L, batch.reset(null));
+            reports += batch.size();
+        }
+        final long allocated = allocatedBytes() - before - overhead;
+
+        assertThat(reports, greaterThan(0L));
+        assertThat(allocated, is(0L));
+    }
+
+    @Test
+    public void testSimulation() throws Exception {
+        final int warmup = 10_000;
+        final int window = 10_000;
+        final int windows = 5;
+
+        // the handler runs on the worker thread and sees all allocations of generating and dispatching the reports
+        final long[] allocated = new long[windows + 1];
+        final int[] calls = new int[1];
+        final BatchHandler handler = batch -> {
+            final int call = ++calls[0] - warmup;
+            if (call >= 0 && call % window == 0 && call / window <= windows) {
+                allocated[call / window] = allocatedBytes();
+            }
+        };
+
+        final Simulation simulation = Simulation.builder(handler)
+                .withSeed(42L)
+                .withRealtime(false)
+                .withStartTime(PIT)
+                .withExporters(
+                        Exporter.builder().withNodeId(1).withGenerator(generator()),
+                        Exporter.builder().withNodeId(2).withGenerator(generator()))
+                .build();
+
+        simulation.start(warmup + windows * window);
+        simulation.join();
+
+        assertThat(calls[0], greaterThan(warmup + windows * window));
+
+        // the batches may still grow once in a while if a tick produces more reports than any tick before
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < windows; i++) {
+            min = Math.min(min, allocated[i + 1] - allocated[i]);
+        }
+        assertThat(min, is(0L));
+    }
+}
@@ -39,11 +39,16 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 
 import org.junit.Test;
+import org.opennms.nephron.catheter.json.ExporterJson;
+import org.opennms.nephron.catheter.json.FlowGeneratorJson;
+import org.opennms.nephron.catheter.json.SimulationJson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -238,6 +243,151 @@ public class CatheterIT {
         assertEquals(handler1.getReceivedFlows(), handler2.getReceivedFlows());
     }
 
+    @Test
+    public void testSeedParallel() throws Exception {
+        // create random seed
+        long seed = new Random().nextLong();
+
+        // run simulation with same seed but different number of threads
+        final TrackingHandler handler1 = runSimulation( false, false, seed, null, 100_000L, 1);
+        final TrackingHandler handler2 = runSimulation( false, false, seed, null, 100_000L, 4);
+
+        // check whether the results ot the two simulation runs are the same
+        assertEquals(handler1.getReceivedBytes(), handler2.getReceivedBytes());
+        assertEquals(handler1.getReceivedCount(), handler2.getReceivedCount());
+        assertEquals(handler1.getReceivedFlows(), handler2.getReceivedFlows());
+    }
+
+    @Test
+    public void testLocationSharding() throws Exception {
+        final long seed = new Random().nextLong();
+
+        final Map<Integer, List<FlowReport>> unsharded = runLocations(seed, false);
+        final Map<Integer, List<FlowReport>> sharded = runLocations(seed, true);
+
+        // the flows of each exporter must be the same, only the interleaving of exporters may differ
+        assertEquals(unsharded, sharded);
+    }
+
+    private Map<Integer, List<FlowReport>> runLocations(final long seed, final boolean locationSharding) throws Exception {
+        final Map<Integer, List<FlowReport>> flows = new ConcurrentHashMap<>();
+
+        final Simulation simulation = Simulation.builder((exporter, report) -> flows.computeIfAbsent(exporter.getNodeId(), k -> new ArrayList<>()).add(report))
+                .withRealtime(false)
+                .withLocationSharding(locationSharding)
+                .withStartTime(Instant.ofEpochMilli(1_500_000_000_000L))
+                .withTickMs(Duration.ofMillis(250))
+                .withExporters(
+                        Exporter.builder()
+                                .withNodeId(1)
+                                .withLocation("Fulda")
+                                .withBytesPerSecond(750_000L),
+                        Exporter.builder()
+                                .withNodeId(2)
+                                .withLocation("Ottawa")
+                                .withBytesPerSecond(250_000L),
+                        Exporter.builder()
+                                .withNodeId(3)
+                                .withLocation("Fulda")
+                                .withBytesPerSecond(500_000L))
+                .withSeed(seed)
+                .build();
+
+        simulation.start(10_000);
+        simulation.join();
+
+        assertThat(simulation.getLocationLags().keySet().size(), is(locationSharding ? 2 : 1));
+        assertThat(flows.values().stream().mapToLong(List::size).sum(), is(simulation.getFlowsSent()));
+
+        return flows;
+    }
+
+    @Test
+    public void testSharding() throws Exception {
+        final SimulationJson simulationJson = new SimulationJson();
+        simulationJson.setStartTime(Instant.ofEpochMilli(1_500_000_000_000L));
+        simulationJson.setSeed(new Random().nextLong());
+        for (int i = 1; i <= 5; i++) {
+            final FlowGeneratorJson flowGeneratorJson = new FlowGeneratorJson();
+            flowGeneratorJson.setBytesPerSecond(i * 100_000L);
+
+            final ExporterJson exporterJson = new ExporterJson();
+            exporterJson.setNodeId(i);
+            exporterJson.setFlowGenerator(flowGeneratorJson);
+            simulationJson.getExporters().add(exporterJson);
+        }
+
+        final Map<Integer, List<FlowReport>> unsharded = runShard(simulationJson);
+
+        // the union of all shards must be the same as the unsharded simulation
+        final Map<Integer, List<FlowReport>> sharded = new ConcurrentHashMap<>();
+        simulationJson.setShardCount(3);
+        for (int shard = 0; shard < 3; shard++) {
+            simulationJson.setShardIndex(shard);
+            final Map<Integer, List<FlowReport>> flows = runShard(simulationJson);
+
+            // shards are disjoint
+            assertTrue(Collections.disjoint(sharded.keySet(), flows.keySet()));
+            sharded.putAll(flows);
+        }
+
+        assertEquals(unsharded, sharded);
+    }
+
+    private Map<Integer, List<FlowReport>> runShard(final SimulationJson simulationJson) throws Exception {
+        final Map<Integer, List<FlowReport>> flows = new ConcurrentHashMap<>();
+
+        final Simulation simulation = Simulation.fromJson(simulationJson, (exporter, report) -> flows.computeIfAbsent(exporter.getNodeId(), k -> new ArrayList<>()).add(report))
+                .withRealtime(false)
+                .build();
+
+        simulation.start(1_000);
+        simulation.join();
+
+        return flows;
+    }
+
+    @Test
+    public void testBatchHandler() throws Exception {
+        final long seed = new Random().nextLong();
+
+        final TrackingHandler handler = runSimulation(false, false, seed, null, 10_000L);
+
+        // the same simulation delivered in batches must yield the same reports
+        final List<FlowReport> flows = new ArrayList<>();
+        final Simulation simulation = Simulation.builder(batch -> {
+                    assertTrue(batch.size() > 0);
+                    flows.addAll(batch.toReports());
+                })
+                .withRealtime(false)
+                .withStartTime(Instant.ofEpochMilli(1_500_000_000_000L))
+                .withTickMs(Duration.ofMillis(250))
+                .withExporters(
+                        Exporter.builder()
+                                .withNodeId(1)
+                                .withGenerator(FlowGenerator.builder()
+                                        .withBytesPerSecond(750_000L)
+                                        .withMaxFlowCount(10)
+                                        .withActiveTimeout(Duration.ofSeconds(2))
+                                        .withMinFlowDuration(Duration.ofSeconds(1))
+                                        .withMaxFlowDuration(Duration.ofSeconds(20))),
+                        Exporter.builder()
+                                .withNodeId(2)
+                                .withGenerator(FlowGenerator.builder()
+                                        .withBytesPerSecond(250_000L)
+                                        .withMaxFlowCount(10)
+                                        .withActiveTimeout(Duration.ofSeconds(1))
+                                        .withMinFlowDuration(Duration.ofSeconds(2))
+                                        .withMaxFlowDuration(Duration.ofSeconds(15))))
+                .withSeed(seed)
+                .build();
+
+        simulation.start(10_000L);
+        simulation.join();
+
+        assertEquals(handler.getReceivedFlows(), flows);
+    }
+
     @Test
     public void testRealtime() {
         runSimulation(true, false, null, Duration.ofSeconds(5), null);
@@ -259,10 +409,15 @@ public class CatheterIT {
     }
 
     public TrackingHandler runSimulation(final boolean realtime, final boolean clockSkew, final Long seed, final Duration duration, final Long iterations) {
+        return runSimulation(realtime, clockSkew, seed, duration, iterations, 1);
+    }
+
+    public TrackingHandler runSimulation(final boolean realtime, final boolean clockSkew, final Long seed, final Duration duration, final Long iterations, final int parallelism) {
         final TrackingHandler handler = new TrackingHandler();
 
         final Simulation simulation = Simulation.builder(handler)
                                                 .withRealtime(realtime)
+                                                .withParallelism(parallelism)
                                                 .withStartTime(realtime ? Instant.now() : Instant.ofEpochMilli(1_500_000_000_000L))
                                                 .withTickMs(Duration.ofMillis(250))
                                                 .withExporters(
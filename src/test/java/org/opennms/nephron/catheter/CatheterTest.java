@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+
+import org.junit.Test;
+import org.opennms.nephron.catheter.json.SimulationJson;
+
+public class CatheterTest {
+
+    @Test
+    public void testReadConfig() throws Exception {
+        final Path path = Paths.get(CatheterTest.class.getResource("/simulation.json").toURI());
+        final SimulationJson simulationJson = Catheter.readConfig(path);
+
+        assertThat(simulationJson.getBootstrapServers(), is("bootstrapServers"));
+        assertThat(simulationJson.getFlowTopic(), is("flowTopic"));
+        assertThat(simulationJson.getRealtime(), is(true));
+        assertThat(simulationJson.getSeed(), is(1606468591122L));
+        assertThat(simulationJson.getStartTime(), is(Instant.parse("2020-11-27T09:16:31.122Z")));
+        assertThat(simulationJson.getTickMs(), is(250L));
+
+        assertThat(simulationJson.getExporters().size(), is(2));
+        assertThat(simulationJson.getExporters().get(0).getForeignId(), is("foreignId1"));
+        assertThat(simulationJson.getExporters().get(0).getClockOffsetMs(), is(10000L));
+        assertThat(simulationJson.getExporters().get(0).getFlowGenerator().getBytesPerSecond(), is(1000000L));
+        assertThat(simulationJson.getExporters().get(1).getLocation(), is("Minion"));
+        assertThat(simulationJson.getExporters().get(1).getFlowGenerator().getMaxFlowDurationMs(), is(15000L));
+
+        final Simulation simulation = Simulation.fromJson(simulationJson, (exporter, report) -> {}).build();
+        assertThat(simulation.getExporters().size(), is(2));
+    }
+}
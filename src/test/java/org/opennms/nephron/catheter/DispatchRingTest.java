@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class DispatchRingTest {
+    private final static Instant PIT = Instant.ofEpochMilli(1500_000_000_000L);
+
+    private static FlowReportBatch report(final long bytes) {
+        final FlowReportBatch batch = new FlowReportBatch();
+        batch.add(PIT.toEpochMilli(), PIT.toEpochMilli() + 1, bytes);
+        return batch;
+    }
+
+    @Test
+    public void testBlock() throws Exception {
+        final List<Long> received = new ArrayList<>();
+
+        final DispatchRing ring = DispatchRing.builder()
+                .withCapacity(16)
+                .withWaitStrategy(DispatchRing.WaitStrategy.YIELD)
+                .withOverflowPolicy(DispatchRing.OverflowPolicy.BLOCK)
+                .build("test", BatchHandler.of((exporter, report) -> received.add(report.getBytes())));
+
+        ring.start();
+        for (long i = 0; i < 100_000; i++) {
+            ring.accept(report(i));
+        }
+        ring.close();
+
+        // all reports arrive in order
+        assertThat(received.size(), is(100_000));
+        for (int i = 0; i < received.size(); i++) {
+            assertThat(received.get(i), is((long) i));
+        }
+        assertThat(ring.getDropped(), is(0L));
+        assertThat(ring.getPublished(), is(100_000L));
+        assertThat(ring.getHighWaterMark(), lessThanOrEqualTo(16L));
+    }
+
+    @Test
+    public void testDropNewest() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<Long> received = new ArrayList<>();
+
+        final DispatchRing ring = DispatchRing.builder()
+                .withCapacity(16)
+                .withOverflowPolicy(DispatchRing.OverflowPolicy.DROP_NEWEST)
+                .build("test", BatchHandler.of((exporter, report) -> {
+                    try {
+                        latch.await();
+                    } catch (final InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    received.add(report.getBytes());
+                }));
+
+        ring.start();
+        for (long i = 0; i < 100; i++) {
+            ring.accept(report(i));
+        }
+        latch.countDown();
+        ring.close();
+
+        // the handler blocks on the first report, so at most the capacity plus the report in hand get through
+        assertThat(ring.getPublished() + ring.getDropped(), is(100L));
+        assertThat(ring.getPublished(), lessThanOrEqualTo(17L));
+        assertThat((long) received.size(), is(ring.getPublished()));
+        assertThat(received.get(0), is(0L));
+    }
+
+    @Test
+    public void testSample() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<Long> received = new ArrayList<>();
+
+        final DispatchRing ring = DispatchRing.builder()
+                .withCapacity(64)
+                .withOverflowPolicy(DispatchRing.OverflowPolicy.SAMPLE)
+                .withSampleRate(4)
+                .build("test", BatchHandler.of((exporter, report) -> {
+                    try {
+                        latch.await();
+                    } catch (final InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    received.add(report.getBytes());
+                }));
+
+        ring.start();
+        for (long i = 0; i < 100; i++) {
+            ring.accept(report(i));
+        }
+        latch.countDown();
+        ring.close();
+
+        // once half full, only every fourth report gets published until the ring is full
+        assertThat(ring.getPublished() + ring.getDropped(), is(100L));
+        assertThat(ring.getPublished(), greaterThan(32L));
+        assertThat(ring.getPublished(), lessThanOrEqualTo(65L));
+        assertThat((long) received.size(), is(ring.getPublished()));
+    }
+
+    @Test
+    public void testHighWaterMark() throws Exception {
+        final DispatchRing ring = DispatchRing.builder()
+                .withCapacity(64)
+                .withWaitStrategy(DispatchRing.WaitStrategy.YIELD)
+                .build("test", BatchHandler.of((exporter, report) -> {}));
+
+        // the handler keeps up with every single report
+        ring.start();
+        for (long i = 0; i < 50; i++) {
+            ring.accept(report(i));
+            while (ring.getOccupancy() > 0) {
+                Thread.yield();
+            }
+        }
+        ring.close();
+
+        assertThat(ring.getPublished(), is(50L));
+        assertThat(ring.getHighWaterMark(), is(1L));
+    }
+}
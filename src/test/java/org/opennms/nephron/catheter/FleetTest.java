@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.opennms.nephron.catheter.json.FleetJson;
+import org.opennms.nephron.catheter.json.FlowGeneratorJson;
+import org.opennms.nephron.catheter.json.SimulationJson;
+
+public class FleetTest {
+    private static final Instant START = Instant.ofEpochMilli(1_500_000_000_000L);
+
+    private static FlowGenerator.Builder generator() {
+        return FlowGenerator.builder()
+                .withBytesPerSecond(100_000L)
+                .withMaxFlowCount(10)
+                .withActiveTimeout(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void testExporters() {
+        final Fleet fleet = Fleet.builder()
+                .withSize(10)
+                .withNodeIdOffset(100)
+                .withForeignSource("fleet")
+                .withForeignIdPrefix("exporter-")
+                .withLocations("A", "B", "C")
+                .withInputSnmp(1)
+                .withOutputSnmp(2)
+                .build();
+
+        assertThat(fleet.size(), is(10));
+
+        final List<Exporter> exporters = fleet.stream()
+                .map(builder -> builder.build(START, new Random(0)))
+                .collect(Collectors.toList());
+
+        assertThat(exporters.stream().map(Exporter::getNodeId).collect(Collectors.toList()),
+                contains(100, 101, 102, 103, 104, 105, 106, 107, 108, 109));
+        assertThat(exporters.stream().map(Exporter::getForeignId).collect(Collectors.toList()),
+                contains("exporter-0", "exporter-1", "exporter-2", "exporter-3", "exporter-4", "exporter-5", "exporter-6", "exporter-7", "exporter-8", "exporter-9"));
+        assertThat(exporters.stream().map(Exporter::getLocation).collect(Collectors.toList()),
+                contains("A", "B", "C", "A", "B", "C", "A", "B", "C", "A"));
+
+        for (final Exporter exporter : exporters) {
+            assertThat(exporter.getForeignSource(), is("fleet"));
+            assertThat(exporter.getInputSnmp(), is(1));
+            assertThat(exporter.getOutputSnmp(), is(2));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfBounds() {
+        Fleet.builder().withSize(10).build().get(10);
+    }
+
+    @Test
+    public void testSameFlowsAsExporters() throws Exception {
+        final List<String> fleetReports = new ArrayList<>();
+        final Simulation fleetSimulation = Simulation.builder((exporter, report) -> fleetReports.add(exporter.getForeignId() + ":" + report))
+                .withSeed(42L)
+                .withStartTime(START)
+                .withExporterMetrics(false)
+                .withExporters(Exporter.builder().withForeignId("first").withGenerator(generator()))
+                .withFleet(Fleet.builder().withSize(0).build())
+                .withFleet(Fleet.builder().withSize(5).withForeignIdPrefix("fleet-").withGenerator(generator()).build())
+                .withExporters(Exporter.builder().withForeignId("last").withGenerator(generator()))
+                .build();
+
+        final List<String> exporterReports = new ArrayList<>();
+        final Simulation exporterSimulation = Simulation.builder((exporter, report) -> exporterReports.add(exporter.getForeignId() + ":" + report))
+                .withSeed(42L)
+                .withStartTime(START)
+                .withExporters(Exporter.builder().withForeignId("first").withGenerator(generator()))
+                .withExporters(Arrays.asList(
+                        Exporter.builder().withForeignId("fleet-0").withNodeId(0).withGenerator(generator()),
+                        Exporter.builder().withForeignId("fleet-1").withNodeId(1).withGenerator(generator()),
+                        Exporter.builder().withForeignId("fleet-2").withNodeId(2).withGenerator(generator()),
+                        Exporter.builder().withForeignId("fleet-3").withNodeId(3).withGenerator(generator()),
+                        Exporter.builder().withForeignId("fleet-4").withNodeId(4).withGenerator(generator())))
+                .withExporters(Exporter.builder().withForeignId("last").withGenerator(generator()))
+                .build();
+
+        for (final Simulation simulation : Arrays.asList(fleetSimulation, exporterSimulation)) {
+            simulation.start(100);
+            simulation.join();
+        }
+
+        assertThat(fleetSimulation.getExporters().size(), is(7));
+        assertThat(fleetReports.size(), greaterThan(0));
+        assertThat(fleetReports, is(exporterReports));
+
+        // the totals are counted without per-exporter metrics
+        assertThat(fleetSimulation.getMetrics().getExporterTraffic().keySet(), is(empty()));
+        assertThat(fleetSimulation.getFlowsSent(), is(exporterSimulation.getFlowsSent()));
+        assertThat(fleetSimulation.getBytesSent(), is(exporterSimulation.getBytesSent()));
+    }
+
+    @Test
+    public void testJson() {
+        final FleetJson fleetJson = new FleetJson();
+        fleetJson.setSize(1000);
+        fleetJson.setNodeIdOffset(1);
+        fleetJson.setForeignSource("fleet");
+        fleetJson.setForeignIdPrefix("exporter-");
+        fleetJson.setLocations(Arrays.asList("A", "B"));
+        fleetJson.setFlowGenerator(new FlowGeneratorJson());
+
+        final SimulationJson simulationJson = new SimulationJson();
+        simulationJson.setStartTime(START);
+        simulationJson.setFleets(Arrays.asList(fleetJson));
+        simulationJson.setExporterMetrics(false);
+
+        final Simulation simulation = Simulation.fromJson(simulationJson, (exporter, report) -> {}).build();
+
+        assertThat(simulation.getExporters().size(), is(1000));
+        assertThat(simulation.isExporterMetrics(), is(false));
+        assertThat(simulation.getExporters().get(999).getNodeId(), is(1000));
+        assertThat(simulation.getExporters().get(999).getForeignId(), is("exporter-999"));
+        assertThat(simulation.getExporters().get(999).getLocation(), is("B"));
+    }
+}
@@ -29,17 +29,25 @@
 package org.opennms.nephron.catheter;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 
+import java.math.BigInteger;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
 import org.junit.Test;
+import org.opennms.nephron.catheter.profile.LoadProfile;
+import org.opennms.nephron.catheter.profile.PiecewiseLinearLoadProfile;
+import org.opennms.nephron.catheter.random.Distribution;
 
 public class FlowGeneratorTest {
     private final static long BPS = 1_000_000;
@@ -97,6 +105,152 @@ public class FlowGeneratorTest {
         assertThat((long) rate, is(BPS));
     }
 
+    @Test
+    public void heavyTailTest() {
+        final Random random = new Random(12345L);
+        final FlowGenerator flowGenerator = FlowGenerator.builder()
+                .withMaxFlowCount(1000)
+                .withFlowDuration(Distribution.logNormal(5000, 1.0))
+                .withRateShare(Distribution.pareto(1.0, 1.1))
+                .withActiveTimeout(Duration.ofSeconds(1))
+                .withBytesPerSecond(BPS)
+                .build(PIT, random);
+
+        final List<FlowReport> flowReportList = new ArrayList<>();
+
+        int i;
+        for (i = 1; i < 1000; i++) {
+            flowReportList.addAll(flowGenerator.tick(PIT.plus(Duration.ofMillis(i * TICK_MS))));
+        }
+        flowReportList.addAll(flowGenerator.shutdown(PIT.plus(Duration.ofMillis(i * TICK_MS))));
+
+        // the rate is met exactly regardless of the distribution of the shares
+        final double rate = flowReportList.stream().mapToDouble(FlowReport::getBytes).sum() / ((double) ((i - 1) * TICK_MS) / 1000.0);
+        assertThat((long) rate, is(BPS));
+
+        // a few elephants carry much more than the typical flow
+        final long[] bytes = flowReportList.stream().mapToLong(FlowReport::getBytes).sorted().toArray();
+        assertThat(bytes[bytes.length - 1], greaterThan(100 * bytes[bytes.length / 2]));
+    }
+
+    @Test
+    public void flowRateTest() {
+        final Random random = new Random(12345L);
+        final FlowGenerator flowGenerator = FlowGenerator.builder()
+                .withMaxFlowCount(10_000)
+                .withMinFlowDuration(Duration.ofSeconds(2))
+                .withMaxFlowDuration(Duration.ofSeconds(10))
+                .withActiveTimeout(Duration.ofSeconds(1))
+                .withFlowsPerSecond(40)
+                .withBytesPerSecond(BPS)
+                .build(PIT, random);
+
+        final List<FlowReport> flowReportList = new ArrayList<>();
+
+        // the first tick spawns the initial flows in addition to the flows of the target rate
+        flowReportList.addAll(flowGenerator.tick(PIT.plus(Duration.ofMillis(TICK_MS))));
+        final long initial = flowGenerator.getSpawnedFlows();
+
+        int i;
+        for (i = 2; i < 1000; i++) {
+            flowReportList.addAll(flowGenerator.tick(PIT.plus(Duration.ofMillis(i * TICK_MS))));
+        }
+        flowReportList.addAll(flowGenerator.shutdown(PIT.plus(Duration.ofMillis(i * TICK_MS))));
+
+        // 40 flows per second are 10 flows per tick
+        assertThat(flowGenerator.getSpawnedFlows() - initial, is(998L * 10L));
+
+        // the byte rate is still met
+        final double rate = flowReportList.stream().mapToDouble(FlowReport::getBytes).sum() / ((double) ((i - 1) * TICK_MS) / 1000.0);
+        assertThat((long) rate, is(BPS));
+    }
+
+    @Test
+    public void reportRateTest() {
+        final Random random = new Random(12345L);
+        final FlowGenerator flowGenerator = FlowGenerator.builder()
+                .withMaxFlowCount(10_000)
+                .withMinFlowDuration(Duration.ofSeconds(2))
+                .withMaxFlowDuration(Duration.ofSeconds(10))
+                .withActiveTimeout(Duration.ofSeconds(1))
+                .withReportsPerSecond(100)
+                .withBytesPerSecond(BPS)
+                .build(PIT, random);
+
+        long reports = 0;
+        for (int i = 1; i <= 1000; i++) {
+            final int n = flowGenerator.tick(PIT.plus(Duration.ofMillis(i * TICK_MS))).size();
+
+            // skip the first minute until the initial flows have ended
+            if (i > 240) {
+                reports += n;
+            }
+        }
+
+        // 760 ticks of 250ms at 100 reports per second
+        assertThat((double) reports, closeTo(19_000.0, 19_000.0 * 0.02));
+    }
+
+    @Test
+    public void extremeRateTest() {
+        // 1 Tbit/s, 1 Tbyte/s and an odd rate that does not divide evenly into ticks
+        for (final long bps : new long[]{125_000_000_000L, 1_000_000_000_000L, 333_333_333_333L}) {
+            final FlowGenerator flowGenerator = FlowGenerator.builder()
+                    .withMaxFlowCount(1000)
+                    .withMinFlowDuration(Duration.ofSeconds(2))
+                    .withMaxFlowDuration(Duration.ofSeconds(10))
+                    .withActiveTimeout(Duration.ofSeconds(1))
+                    .withBytesPerSecond(bps)
+                    .build(PIT, new Random(12345L));
+
+            final FlowReportBatch batch = new FlowReportBatch();
+            long bytes = 0;
+
+            int i;
+            for (i = 1; i < 1000; i++) {
+                flowGenerator.tick(PIT.plus(Duration.ofMillis(i * TICK_MS)), batch.reset(null));
+                bytes += batch.getTotalBytes();
+            }
+            flowGenerator.shutdown(PIT.plus(Duration.ofMillis(i * TICK_MS)), batch.reset(null));
+            bytes += batch.getTotalBytes();
+
+            assertThat(bytes, is(bps * (i - 1) * TICK_MS / 1000));
+        }
+    }
+
+    @Test
+    public void subMillisecondTickTest() {
+        final long tickNanos = 7_777;
+        final long bps = 100_000_000_001L;
+        final FlowGenerator flowGenerator = FlowGenerator.builder()
+                .withMaxFlowCount(100)
+                .withMinFlowDuration(Duration.ofMillis(100))
+                .withMaxFlowDuration(Duration.ofMillis(500))
+                .withActiveTimeout(Duration.ofMillis(200))
+                .withBytesPerSecond(bps)
+                .build(PIT, new Random(12345L));
+
+        final long start = FlowGenerator.epochNanos(PIT);
+        final FlowReportBatch batch = new FlowReportBatch();
+        long bytes = 0;
+        long reports = 0;
+
+        long now = start;
+        for (int i = 0; i < 128_000; i++) {
+            now += tickNanos;
+            flowGenerator.tickNanos(now, batch.reset(null));
+            bytes += batch.getTotalBytes();
+            reports += batch.size();
+        }
+        flowGenerator.shutdownNanos(now + tickNanos, batch.reset(null));
+        bytes += batch.getTotalBytes();
+
+        // the ticks add up to about a second, which is not a whole number of milliseconds
+        final long elapsed = now - start;
+        assertThat(reports, greaterThan(100L));
+        assertThat(bytes, is(BigInteger.valueOf(bps).multiply(BigInteger.valueOf(elapsed)).divide(BigInteger.valueOf(1_000_000_000L)).longValueExact()));
+    }
+
     @Test
     public void generatorTest() {
         final Random random = new Random(12345L);
@@ -124,4 +278,129 @@ public class FlowGeneratorTest {
 
     }
 
+    @Test
+    public void loadProfileTest() {
+        // ramp up from 1 MB/s to 3 MB/s, then drop to 0.5 MB/s
+        final LoadProfile profile = LoadProfile.piecewiseLinear(Arrays.asList(
+                new PiecewiseLinearLoadProfile.Point(Duration.ofSeconds(10), 1_000_000),
+                new PiecewiseLinearLoadProfile.Point(Duration.ofSeconds(40), 3_000_000),
+                new PiecewiseLinearLoadProfile.Point(Duration.ofSeconds(60), 3_000_000),
+                new PiecewiseLinearLoadProfile.Point(Duration.ofSeconds(60), 500_000)), null);
+
+        final Random random = new Random(12345L);
+        final FlowGenerator flowGenerator = FlowGenerator.builder()
+                .withMaxFlowCount(20)
+                .withMinFlowDuration(Duration.ofSeconds(2))
+                .withMaxFlowDuration(Duration.ofSeconds(10))
+                .withActiveTimeout(Duration.ofSeconds(1))
+                .withLoadProfile(profile)
+                .build(PIT, random);
+
+        long reportedBytes = 0;
+        long expectedMilliBytes = 0;
+        for (int i = 1; i < 400; i++) {
+            // the rate for a tick is determined at the start of the tick
+            expectedMilliBytes += profile.bytesPerSecond((i - 1) * TICK_MS) * TICK_MS;
+
+            reportedBytes += flowGenerator.tick(PIT.plus(Duration.ofMillis(i * TICK_MS))).stream().mapToLong(FlowReport::getBytes).sum();
+            assertThat(reportedBytes + flowGenerator.notYetReportedBytes(), is(expectedMilliBytes / 1000));
+        }
+    }
+
+    @Test
+    public void rateScaleTest() {
+        final Random random = new Random(12345L);
+        final FlowGenerator flowGenerator = FlowGenerator.builder()
+                .withMaxFlowCount(10)
+                .withMinFlowDuration(Duration.ofSeconds(2))
+                .withMaxFlowDuration(Duration.ofSeconds(10))
+                .withActiveTimeout(Duration.ofSeconds(1))
+                .withBytesPerSecond(BPS)
+                .build(PIT, random);
+
+        long reportedBytes = 0;
+        long expectedMilliBytes = 0;
+        for (int i = 1; i < 400; i++) {
+            // triple the rate after 100 ticks and go back to half of it after 200 ticks
+            // -> the flows are adjusted at the end of the tick following the change
+            final double scale = i <= 101 ? 1.0 : i <= 201 ? 3.0 : 0.5;
+            expectedMilliBytes += Math.round(BPS * scale) * TICK_MS;
+
+            reportedBytes += flowGenerator.tick(PIT.plus(Duration.ofMillis(i * TICK_MS))).stream().mapToLong(FlowReport::getBytes).sum();
+            assertThat(reportedBytes + flowGenerator.notYetReportedBytes(), is(expectedMilliBytes / 1000));
+
+            if (i == 100) {
+                flowGenerator.setRateScale(3.0);
+            } else if (i == 200) {
+                flowGenerator.setRateScale(0.5);
+            }
+        }
+    }
+
+    @Test
+    public void flowDurationTest() {
+        final long min = 2_000;
+        final long max = 10_000;
+        final double[] survival = FlowGenerator.survival(min, max, TICK_MS);
+
+        // run the per tick end check with a uniform duration for many flows
+        final Random random = new Random(12345L);
+        final int flows = 200_000;
+        final long[] ended = new long[survival.length];
+        for (int f = 0; f < flows; f++) {
+            int k = 1;
+            while (k * TICK_MS <= min + (long) (random.nextDouble() * (max - min + 1))) {
+                k++;
+            }
+            ended[k]++;
+        }
+
+        // the survival function matches the observed fraction of flows alive after each tick
+        long alive = flows;
+        for (int k = 1; k < survival.length; k++) {
+            alive -= ended[k];
+            assertThat(Math.abs((double) alive / flows - survival[k]) < 0.005, is(true));
+        }
+        assertThat(survival[survival.length - 1], is(0.0));
+    }
+
+    @Test
+    public void coalescedTickTest() {
+        final FlowGenerator.Builder builder = FlowGenerator.builder()
+                .withMaxFlowCount(100)
+                .withMinFlowDuration(Duration.ofSeconds(2))
+                .withMaxFlowDuration(Duration.ofSeconds(10))
+                .withActiveTimeout(Duration.ofSeconds(1))
+                .withBytesPerSecond(BPS);
+        final FlowGenerator first = builder.build(PIT, new Random(12345L));
+        final FlowGenerator second = builder.build(PIT, new Random(54321L));
+
+        final List<FlowReport> flowReportList = new ArrayList<>();
+
+        // every other tick is three ticks coalesced into one
+        long millis = 0;
+        flowReportList.addAll(first.tick(PIT.plus(Duration.ofMillis(millis += TICK_MS))));
+        second.tick(PIT.plus(Duration.ofMillis(millis)));
+        final double[] survival = first.getSurvival();
+
+        for (int i = 1; i < 1000; i++) {
+            millis += i % 2 == 0 ? TICK_MS : 3 * TICK_MS;
+            flowReportList.addAll(first.tick(PIT.plus(Duration.ofMillis(millis))));
+            second.tick(PIT.plus(Duration.ofMillis(millis)));
+        }
+        flowReportList.addAll(first.shutdown(PIT.plus(Duration.ofMillis(millis + TICK_MS))));
+
+        // the table for the initial tick is computed once and shared by generators with equal settings
+        assertThat(first.getSurvival(), is(sameInstance(survival)));
+        assertThat(second.getSurvival(), is(sameInstance(survival)));
+        assertThat(Arrays.equals(survival, FlowGenerator.survival(2_000_000_000L, 10_000_000_000L, TICK_MS * 1_000_000L)), is(true));
+
+        // flows end at tick instants
+        for (final FlowReport report : flowReportList) {
+            assertThat((report.getEnd().toEpochMilli() - PIT.toEpochMilli()) % TICK_MS, is(0L));
+        }
+
+        final double rate = flowReportList.stream().mapToDouble(FlowReport::getBytes).sum() / (millis / 1000.0);
+        assertThat((long) rate, is(BPS));
+    }
 }
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.math.BigInteger;
+
+import org.junit.Test;
+
+public class FlowTableTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void testSwapRemove() {
+        final FlowTable table = new FlowTable(4);
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(table.add(i, 1000 + i), is(i));
+        }
+        assertThat(table.size(), is(100_000));
+
+        // remove all even flows from the front, the last flows take their slots
+        for (int i = 0; i < table.size(); ) {
+            if (table.getStart(i) % 2 == 0) {
+                table.remove(i);
+            } else {
+                i++;
+            }
+        }
+
+        assertThat(table.size(), is(50_000));
+
+        long totalRate = 0;
+        for (int i = 0; i < table.size(); i++) {
+            assertThat(table.getStart(i) % 2, is(1L));
+            assertThat(table.getRate(i), is(1000 + table.getStart(i)));
+            totalRate += table.getRate(i);
+        }
+        assertThat(table.getTotalRate(), is(totalRate));
+
+        table.clear();
+        assertThat(table.isEmpty(), is(true));
+        assertThat(table.getTotalRate(), is(0L));
+    }
+
+    @Test
+    public void testReport() {
+        final FlowTable table = new FlowTable(4);
+        table.add(1000 * MS, 100);
+        table.add(2000 * MS, 200);
+
+        // bytes are accrued at the rate of a flow and fractions of bytes are carried over between reports
+        table.setRate(1, 300, 3500 * MS);
+        assertThat(table.getTotalRate(), is(400L));
+        assertThat(table.getUnreportedBytes(4000 * MS), is(300L + 300L + 150L));
+
+        final FlowReportBatch batch = new FlowReportBatch();
+        table.report(1, 4005 * MS, batch);
+        table.report(1, 4007 * MS, batch);
+
+        assertThat(batch.size(), is(2));
+        assertThat(batch.getStartMillis(0), is(2000L));
+        assertThat(batch.getEndMillis(0), is(4005L));
+        assertThat(batch.getBytes(0), is(300L + 151L));
+        assertThat(batch.getStartMillis(1), is(4005L));
+        assertThat(batch.getBytes(1), is(1L));
+        assertThat(table.getReported(1), is(4007L * MS));
+
+        table.report(0, 4007 * MS, batch);
+        assertThat(batch.getBytes(2), is(300L));
+        assertThat(table.getUnreportedBytes(4007 * MS), is(0L));
+    }
+
+    @Test
+    public void testWheel() {
+        final FlowTable table = new FlowTable(4);
+        table.configure(0, 10 * MS, 100 * MS);
+
+        // ends within the horizon, beyond the horizon and hits the active timeout before its end
+        table.schedule(table.add(0, 1000), 50 * MS, 1000 * MS);
+        table.schedule(table.add(0, 1000), 250 * MS, 1000 * MS);
+        table.schedule(table.add(0, 1000), 80 * MS, 30 * MS);
+
+        final FlowReportBatch batch = new FlowReportBatch();
+        for (long now = 10; now <= 300; now += 10) {
+            batch.reset(null);
+            table.advance(now * MS, 30 * MS, batch);
+
+            if (now == 30 || now == 60) {
+                // active timeout of the third flow
+                assertThat(batch.size(), is(1));
+                assertThat(batch.getEndMillis(0), is(now));
+                assertThat(table.size(), is(now == 30 ? 3 : 2));
+            } else if (now == 50) {
+                assertThat(batch.size(), is(1));
+                assertThat(batch.getStartMillis(0), is(0L));
+                assertThat(batch.getBytes(0), is(50L));
+                assertThat(table.size(), is(2));
+            } else if (now == 80) {
+                assertThat(batch.size(), is(1));
+                assertThat(batch.getStartMillis(0), is(60L));
+                assertThat(table.size(), is(1));
+            } else if (now == 250) {
+                assertThat(batch.size(), is(1));
+                assertThat(batch.getBytes(0), is(250L));
+                assertThat(table.size(), is(0));
+            } else {
+                assertThat(batch.size(), is(0));
+            }
+        }
+    }
+
+    @Test
+    public void testFixedPoint() {
+        // 1 Tbit/s and 1 Tbyte/s reported after an hour would overflow a plain product of rate and nanoseconds
+        final FlowTable table = new FlowTable(4);
+        table.add(0, 125_000_000_000L);
+        table.add(0, 1_000_000_000_000L);
+
+        final FlowReportBatch batch = new FlowReportBatch();
+        table.report(0, 3_600_000 * MS, batch);
+        table.report(1, 3_600_000 * MS, batch);
+        assertThat(batch.getBytes(0), is(125_000_000_000L * 3600));
+        assertThat(batch.getBytes(1), is(1_000_000_000_000L * 3600));
+
+        // the fractions of odd rates and sub-millisecond intervals add up exactly
+        table.clear();
+        table.add(0, 333_333_333_333L);
+        long bytes = 0;
+        for (long now = 7_777; now <= 1_000_000_000L; now += 7_777) {
+            table.report(0, now, batch.reset(null));
+            bytes += batch.getBytes(0);
+        }
+        final long end = 1_000_000_000L / 7_777 * 7_777;
+        assertThat(bytes, is(FlowTable.bytesOf(333_333_333_333L, end)));
+        assertThat(bytes, is(BigInteger.valueOf(333_333_333_333L).multiply(BigInteger.valueOf(end)).divide(BigInteger.valueOf(1_000_000_000L)).longValueExact()));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testOverflow() {
+        FlowTable.bytesOf(Long.MAX_VALUE / 2, 3 * 1_000_000_000L);
+    }
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the heap retained per exporter of large fleets to size the heap of a simulation.
+ *
+ * The footprint is measured right after the simulation was built and after the flow tables have filled up. The
+ * fleet size is configured by the {@code footprint.exporters} system property, see the README. Measured values are
+ * written to {@code target/footprint-results.properties} and compared against {@code scale-baselines.properties}.
+ */
+public class FootprintIT {
+    private static final Logger LOG = LoggerFactory.getLogger(FootprintIT.class);
+
+    private static final String BASELINES = "/scale-baselines.properties";
+    private static final Path RESULTS = Paths.get("target", "footprint-results.properties");
+
+    private static final Instant START = Instant.ofEpochMilli(1_500_000_000_000L);
+    private static final Duration TICK = Duration.ofMillis(1000);
+
+    private static final Properties baselines = new Properties();
+    private static final Properties results = new Properties();
+
+    @BeforeClass
+    public static void loadBaselines() throws IOException {
+        try (final InputStream in = FootprintIT.class.getResourceAsStream(BASELINES)) {
+            if (in != null) {
+                baselines.load(in);
+            }
+        }
+    }
+
+    @AfterClass
+    public static void storeResults() throws IOException {
+        Files.createDirectories(RESULTS.getParent());
+        try (final OutputStream out = Files.newOutputStream(RESULTS)) {
+            results.store(out, "catheter footprint results");
+        }
+        LOG.info("Footprint results written to {}", RESULTS.toAbsolutePath());
+    }
+
+    @Test
+    public void testFleet() throws Exception {
+        measure("fleet", true);
+    }
+
+    @Test
+    public void testFleetWithoutExporterMetrics() throws Exception {
+        measure("fleetWithoutExporterMetrics", false);
+    }
+
+    private void measure(final String name, final boolean exporterMetrics) throws Exception {
+        final int size = Integer.getInteger("footprint.exporters", 100_000);
+        final int maxFlowCount = Integer.getInteger("footprint.flows", 10);
+
+        final long empty = usedHeap();
+
+        Simulation simulation = Simulation.builder((BatchHandler) batch -> {})
+                .withSeed(42L)
+                .withStartTime(START)
+                .withTickMs(TICK)
+                .withExporterMetrics(exporterMetrics)
+                .withFleet(Fleet.builder()
+                        .withSize(size)
+                        .withForeignSource("fleet")
+                        .withForeignIdPrefix("exporter-")
+                        .withLocations("Minion-1", "Minion-2", "Minion-3", "Minion-4")
+                        .withGenerator(FlowGenerator.builder()
+                                .withBytesPerSecond(maxFlowCount * 10_000L)
+                                .withMaxFlowCount(maxFlowCount)
+                                .withActiveTimeout(Duration.ofSeconds(10))
+                                .withMinFlowDuration(Duration.ofSeconds(1))
+                                .withMaxFlowDuration(Duration.ofSeconds(30)))
+                        .build())
+                .build();
+
+        final long built = usedHeap();
+
+        // drive the exporters directly until the flow tables have filled up
+        final List<Exporter> exporters = simulation.getExporters();
+        final FlowReportBatch batch = new FlowReportBatch();
+        long now = FlowGenerator.epochNanos(START);
+        for (int tick = 0; tick < Integer.getInteger("footprint.ticks", 30); tick++) {
+            now += TICK.toNanos();
+            for (final Exporter exporter : exporters) {
+                exporter.tickNanos(now, batch);
+            }
+        }
+
+        long flows = 0;
+        for (final Exporter exporter : exporters) {
+            flows += exporter.getSpawnedFlows();
+        }
+
+        final long ticked = usedHeap();
+
+        final Properties measured = new Properties();
+        measured.setProperty("footprint." + name + ".builtBytesPerExporter", Long.toString((built - empty) / size));
+        measured.setProperty("footprint." + name + ".tickedBytesPerExporter", Long.toString((ticked - empty) / size));
+
+        LOG.info("{}: {} exporters, {} flows spawned, {} bytes per exporter after build, {} bytes per exporter with flows",
+                name, simulation.getExporters().size(), flows,
+                measured.getProperty("footprint." + name + ".builtBytesPerExporter"),
+                measured.getProperty("footprint." + name + ".tickedBytesPerExporter"));
+
+        results.putAll(measured);
+
+        for (final String key : measured.stringPropertyNames()) {
+            final String baseline = baselines.getProperty(key);
+            if (baseline == null) {
+                LOG.warn("No baseline for {}", key);
+                continue;
+            }
+
+            final double tolerance = Double.parseDouble(System.getProperty("footprint.tolerance", "0.25"));
+            final double actual = Double.parseDouble(measured.getProperty(key));
+            assertTrue(key + " regressed: " + actual + " > " + baseline + " * " + (1.0 + tolerance),
+                    actual <= Double.parseDouble(baseline) * (1.0 + tolerance));
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.Test;
+import org.opennms.nephron.catheter.metrics.Histogram;
+
+public class PacerTest {
+    private final static Duration TICK = Duration.ofMillis(10);
+
+    @Test
+    public void testOnSchedule() {
+        final Histogram lag = new Histogram();
+        final Pacer pacer = new Pacer(TICK, 1.0, WallClock.SYSTEM, Pacer.CatchUpPolicy.BURST, lag);
+
+        Instant now = Instant.ofEpochMilli(System.currentTimeMillis());
+        pacer.start(now);
+        final long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            now = pacer.awaitNext(now);
+        }
+
+        assertThat(System.nanoTime() - start, greaterThanOrEqualTo(19 * TICK.toNanos()));
+        assertThat(lag.getCount(), is(20L));
+        assertThat(pacer.getSkippedTicks(), is(0L));
+    }
+
+    @Test
+    public void testBurst() throws Exception {
+        final Pacer pacer = new Pacer(TICK, 1.0, WallClock.SYSTEM, Pacer.CatchUpPolicy.BURST, new Histogram());
+
+        final Instant now = Instant.ofEpochMilli(System.currentTimeMillis());
+        pacer.start(now);
+        Thread.sleep(100);
+
+        // every overdue tick is returned one after another
+        assertThat(pacer.awaitNext(now), is(now.plus(TICK)));
+        assertThat(pacer.getLastLag(), greaterThanOrEqualTo(TICK.toNanos()));
+        assertThat(pacer.getSkippedTicks(), is(0L));
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        final Pacer pacer = new Pacer(TICK, 1.0, WallClock.SYSTEM, Pacer.CatchUpPolicy.COALESCE, new Histogram());
+
+        final Instant now = Instant.ofEpochMilli(System.currentTimeMillis());
+        pacer.start(now);
+        Thread.sleep(100);
+
+        // all overdue ticks are merged into a single one
+        final Instant next = pacer.awaitNext(now);
+        assertThat(pacer.getLastSkippedTicks(), greaterThanOrEqualTo(8L));
+        assertThat(next, is(now.plus(TICK.multipliedBy(pacer.getLastSkippedTicks() + 1))));
+        assertThat(pacer.getLastLag() - pacer.getLastSkippedTicks() * TICK.toNanos(), lessThan(TICK.toNanos()));
+    }
+
+    @Test
+    public void testSpeed() {
+        final ManualClock clock = new ManualClock();
+
+        // a day in an hour
+        final Pacer fast = new Pacer(TICK, 24.0, clock, Pacer.CatchUpPolicy.BURST, new Histogram());
+        Instant now = Instant.EPOCH;
+        fast.start(now);
+        for (int i = 0; i < 24_000; i++) {
+            now = fast.awaitNext(now);
+        }
+        assertThat(now, is(Instant.EPOCH.plus(TICK.multipliedBy(24_000))));
+        assertThat(clock.nanos, is(TICK.multipliedBy(1_000).toNanos()));
+
+        // half the pace
+        final Pacer slow = new Pacer(TICK, 0.5, clock, Pacer.CatchUpPolicy.BURST, new Histogram());
+        final long origin = clock.nanos;
+        now = Instant.EPOCH;
+        slow.start(now);
+        for (int i = 0; i < 100; i++) {
+            now = slow.awaitNext(now);
+        }
+        assertThat(clock.nanos - origin, is(TICK.multipliedBy(200).toNanos()));
+    }
+
+    @Test
+    public void testSubMillisecond() {
+        final ManualClock clock = new ManualClock();
+        final Duration tick = Duration.ofNanos(250_000);
+
+        final Pacer pacer = new Pacer(tick, 1.0, clock, Pacer.CatchUpPolicy.BURST, new Histogram());
+        long now = 0;
+        pacer.startNanos(now);
+        for (int i = 0; i < 4_000; i++) {
+            now = pacer.awaitNextNanos(now);
+        }
+        assertThat(now, is(1_000_000_000L));
+        assertThat(clock.nanos, is(1_000_000_000L));
+    }
+
+    private static class ManualClock implements WallClock {
+        private long nanos = 0;
+
+        @Override
+        public long nanoTime() {
+            return this.nanos;
+        }
+
+        @Override
+        public long sleepUntil(final long deadline) {
+            this.nanos = Math.max(this.nanos, deadline);
+            return this.nanos;
+        }
+    }
+
+    @Test
+    public void testHistogram() {
+        final Histogram histogram = new Histogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertThat(histogram.getCount(), is(1000L));
+        assertThat(histogram.getMax(), is(1_000_000L));
+        assertThat(histogram.getMean(), is(500_500.0));
+
+        // buckets are accurate to 12.5%
+        final long p50 = histogram.getValueAtPercentile(50);
+        assertThat(p50, greaterThanOrEqualTo(500_000L * 7 / 8));
+        assertThat(p50, lessThan(500_000L * 9 / 8));
+
+        for (long v = 0; v < 1_000_000; v = v * 3 + 1) {
+            final int bucket = Histogram.bucketOf(v);
+            assertThat(Histogram.lowerBoundOf(bucket) <= v, is(true));
+            assertThat(Histogram.lowerBoundOf(bucket + 1) > v, is(true));
+        }
+    }
+}
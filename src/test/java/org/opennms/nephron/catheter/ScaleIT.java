@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.opennms.nephron.catheter.metrics.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs non-realtime simulations over a grid of exporter counts, flow counts and tick sizes and compares throughput,
+ * heap high-water mark and tick latency against stored baselines.
+ *
+ * The grid and the run length are configured by system properties, see the README. Measured values are written to
+ * {@code target/scale-results.properties} and can be copied over {@code scale-baselines.properties} to rebase.
+ */
+@RunWith(Parameterized.class)
+public class ScaleIT {
+    private static final Logger LOG = LoggerFactory.getLogger(ScaleIT.class);
+
+    private static final String BASELINES = "/scale-baselines.properties";
+    private static final Path RESULTS = Paths.get("target", "scale-results.properties");
+
+    private static final Properties baselines = new Properties();
+    private static final Properties results = new Properties();
+
+    @Parameterized.Parameters(name = "exporters={0}, maxFlowCount={1}, tick={2}ms")
+    public static Collection<Object[]> grid() {
+        final List<Object[]> grid = new ArrayList<>();
+        for (final long exporters : longs("scale.exporters", "1,100,10000")) {
+            for (final long flows : longs("scale.flows", "10,1000,100000")) {
+                for (final long tickMs : longs("scale.ticks", "100,1000")) {
+                    grid.add(new Object[]{(int) exporters, (int) flows, tickMs});
+                }
+            }
+        }
+        return grid;
+    }
+
+    @Parameterized.Parameter(0)
+    public int exporterCount;
+
+    @Parameterized.Parameter(1)
+    public int maxFlowCount;
+
+    @Parameterized.Parameter(2)
+    public long tickMs;
+
+    @BeforeClass
+    public static void loadBaselines() throws IOException {
+        try (final InputStream in = ScaleIT.class.getResourceAsStream(BASELINES)) {
+            if (in != null) {
+                baselines.load(in);
+            }
+        }
+    }
+
+    @AfterClass
+    public static void storeResults() throws IOException {
+        Files.createDirectories(RESULTS.getParent());
+        try (final OutputStream out = Files.newOutputStream(RESULTS)) {
+            results.store(out, "catheter scale results");
+        }
+        LOG.info("Scale results written to {}", RESULTS.toAbsolutePath());
+    }
+
+    @Test
+    public void testScale() throws Exception {
+        final long maxTotalFlows = Long.getLong("scale.maxTotalFlows", 2_000_000L);
+        assumeTrue("Grid point exceeds scale.maxTotalFlows", (long) this.exporterCount * this.maxFlowCount <= maxTotalFlows);
+
+        final Duration simulated = Duration.ofSeconds(Long.getLong("scale.seconds", 600L));
+        final long iterations = Math.max(1L, simulated.toMillis() / this.tickMs);
+
+        // Warm up on an identical run so the measured run is not dominated by class loading and compilation
+        run(iterations);
+
+        System.gc();
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+
+        final LongAdder reports = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final long started = System.nanoTime();
+        final Simulation simulation = run(iterations, reports, bytes);
+        final double seconds = (System.nanoTime() - started) / 1e9;
+
+        long heapPeak = 0L;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPeak += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        final Histogram tickDuration = simulation.getMetrics().getTickDuration();
+
+        final String key = String.format("exporters.%d.flows.%d.tick.%d", this.exporterCount, this.maxFlowCount, this.tickMs);
+        final Properties measured = new Properties();
+        measured.setProperty(key + ".reportsPerSecond", Long.toString((long) (reports.sum() / seconds)));
+        measured.setProperty(key + ".bytesPerSecond", Long.toString((long) (bytes.sum() / seconds)));
+        measured.setProperty(key + ".heapPeakBytes", Long.toString(heapPeak));
+        measured.setProperty(key + ".tickP50Nanos", Long.toString(tickDuration.getValueAtPercentile(50.0)));
+        measured.setProperty(key + ".tickP99Nanos", Long.toString(tickDuration.getValueAtPercentile(99.0)));
+        measured.setProperty(key + ".tickP999Nanos", Long.toString(tickDuration.getValueAtPercentile(99.9)));
+
+        LOG.info("{}: {} reports/s, {} bytes/s, heap peak {} bytes, tick p50/p99/p99.9 {}/{}/{} ns", key,
+                measured.getProperty(key + ".reportsPerSecond"),
+                measured.getProperty(key + ".bytesPerSecond"),
+                measured.getProperty(key + ".heapPeakBytes"),
+                measured.getProperty(key + ".tickP50Nanos"),
+                measured.getProperty(key + ".tickP99Nanos"),
+                measured.getProperty(key + ".tickP999Nanos"));
+
+        synchronized (results) {
+            results.putAll(measured);
+        }
+
+        // Throughput must not fall below the baseline, costs must not rise above it
+        assertNoRegression(measured, key + ".reportsPerSecond", false);
+        assertNoRegression(measured, key + ".bytesPerSecond", false);
+        assertNoRegression(measured, key + ".heapPeakBytes", true);
+        assertNoRegression(measured, key + ".tickP50Nanos", true);
+        assertNoRegression(measured, key + ".tickP99Nanos", true);
+    }
+
+    private void run(final long iterations) throws InterruptedException {
+        run(iterations, new LongAdder(), new LongAdder());
+    }
+
+    private Simulation run(final long iterations, final LongAdder reports, final LongAdder bytes) throws InterruptedException {
+        final List<Exporter.Builder> exporters = new ArrayList<>(this.exporterCount);
+        for (int i = 0; i < this.exporterCount; i++) {
+            exporters.add(Exporter.builder()
+                    .withNodeId(i)
+                    .withForeignSource("scale")
+                    .withForeignId("exporter" + i)
+                    .withLocation("Default")
+                    .withInputSnmp(1)
+                    .withOutputSnmp(2)
+                    .withGenerator(FlowGenerator.builder()
+                            // Enough traffic to keep the flow table filled up to its limit
+                            .withBytesPerSecond(this.maxFlowCount * 10_000L)
+                            .withMaxFlowCount(this.maxFlowCount)
+                            .withActiveTimeout(Duration.ofSeconds(10))
+                            .withMinFlowDuration(Duration.ofSeconds(1))
+                            .withMaxFlowDuration(Duration.ofSeconds(30))));
+        }
+
+        final Simulation simulation = Simulation.builder((BatchHandler) batch -> {
+                    reports.add(batch.size());
+                    bytes.add(batch.getTotalBytes());
+                })
+                .withSeed(42L)
+                .withRealtime(false)
+                .withStartTime(Instant.ofEpochMilli(1_500_000_000_000L))
+                .withTickMs(Duration.ofMillis(this.tickMs))
+                .withParallelism(Integer.getInteger("scale.parallelism", 1))
+                .withExporters(exporters)
+                .build();
+
+        simulation.start(iterations);
+        simulation.join();
+
+        return simulation;
+    }
+
+    private static void assertNoRegression(final Properties measured, final String key, final boolean lowerIsBetter) {
+        final String baseline = baselines.getProperty(key);
+        if (baseline == null) {
+            LOG.warn("No baseline for {}", key);
+            return;
+        }
+
+        final double tolerance = Double.parseDouble(System.getProperty("scale.tolerance", "1.0"));
+        final double expected = Double.parseDouble(baseline);
+        final double actual = Double.parseDouble(measured.getProperty(key));
+
+        if (lowerIsBetter) {
+            assertTrue(key + " regressed: " + actual + " > " + expected + " * " + (1.0 + tolerance),
+                    actual <= expected * (1.0 + tolerance));
+        } else {
+            assertTrue(key + " regressed: " + actual + " < " + expected + " / " + (1.0 + tolerance),
+                    actual >= expected / (1.0 + tolerance));
+        }
+    }
+
+    private static List<Long> longs(final String property, final String defaults) {
+        final List<Long> values = new ArrayList<>();
+        for (final String value : System.getProperty(property, defaults).split(",")) {
+            values.add(Long.parseLong(value.trim()));
+        }
+        return values;
+    }
+}
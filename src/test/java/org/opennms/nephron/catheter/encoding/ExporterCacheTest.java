@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.encoding;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.opennms.nephron.catheter.Exporter;
+
+public class ExporterCacheTest {
+
+    private static Exporter exporter() {
+        return Exporter.builder()
+                .withNodeId(1)
+                .withForeignSource("source")
+                .withForeignId("id")
+                .build(Instant.EPOCH, new Random(0));
+    }
+
+    @Test
+    public void testIdentity() {
+        final AtomicInteger loads = new AtomicInteger();
+        final ExporterCache<Object> cache = new ExporterCache<>(exporter -> {
+            loads.incrementAndGet();
+            return new Object();
+        });
+
+        final Exporter first = exporter();
+        final Exporter second = exporter();
+        assertThat(first.equals(second), is(true));
+
+        // equal exporters get a value each, which is kept while the exporter ticks
+        final Object value = cache.get(first);
+        first.tick(Instant.EPOCH.plusMillis(250));
+        assertThat(cache.get(first), is(sameInstance(value)));
+        assertThat(cache.get(second) == value, is(false));
+        assertThat(loads.get(), is(2));
+    }
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.encoding;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+
+import org.junit.Test;
+import org.opennms.nephron.catheter.Exporter;
+import org.opennms.nephron.catheter.FlowReport;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.UnknownFieldSet;
+
+public class FlowDocumentEncoderTest {
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static Exporter exporter() {
+        return Exporter.builder()
+                .withNodeId(300)
+                .withForeignSource("source")
+                .withForeignId("exporter-\u00e4")
+                .withLocation("Default")
+                .withInputSnmp(1)
+                .withOutputSnmp(0)
+                .withClockOffset(Duration.ofSeconds(10))
+                .build(Instant.EPOCH, new Random(0));
+    }
+
+    private static UnknownFieldSet decode(final ByteBuffer buffer) throws Exception {
+        return UnknownFieldSet.parseFrom(ByteString.copyFrom(buffer.array(), 0, buffer.position()));
+    }
+
+    private static long wrapped(final UnknownFieldSet document, final int field) throws Exception {
+        final ByteString wrapper = document.getField(field).getLengthDelimitedList().get(0);
+        final UnknownFieldSet value = UnknownFieldSet.parseFrom(wrapper);
+        return value.hasField(1) ? value.getField(1).getVarintList().get(0) : 0;
+    }
+
+    @Test
+    public void testEncode() throws Exception {
+        final ByteBuffer buffer = ByteBuffer.allocate(256);
+        new FlowDocumentEncoder().encode(exporter(), new FlowReport(1606468591122L, 1606468601122L, 1L << 40), buffer);
+
+        final UnknownFieldSet document = decode(buffer);
+        assertThat(document.getField(1).getVarintList(), contains(1606468611122L));
+        assertThat(wrapped(document, 2), is(1L << 40));
+        assertThat(wrapped(document, 11), is(1606468601122L));
+        assertThat(wrapped(document, 12), is(1606468601122L));
+        assertThat(wrapped(document, 13), is(1606468611122L));
+        assertThat(wrapped(document, 17), is(1L));
+        assertThat(wrapped(document, 18), is(0L));
+        assertThat(document.getField(40).getLengthDelimitedList().get(0).toStringUtf8(), is("Default"));
+
+        final UnknownFieldSet node = UnknownFieldSet.parseFrom(document.getField(36).getLengthDelimitedList().get(0));
+        assertThat(node.getField(1).getLengthDelimitedList().get(0).toStringUtf8(), is("source"));
+        assertThat(node.getField(2).getLengthDelimitedList().get(0).toStringUtf8(), is("exporter-\u00e4"));
+        assertThat(node.getField(3).getVarintList(), contains(300L));
+
+        // fields not known to the encoder are left unset
+        assertThat(document.getField(3).getVarintList(), is(empty()));
+    }
+
+    @Test
+    public void testVarint() throws Exception {
+        for (final long value : new long[]{0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, Long.MAX_VALUE, -1}) {
+            final ByteBuffer buffer = ByteBuffer.allocate(16);
+            FlowDocumentEncoder.putVarint(buffer, value);
+            assertThat(buffer.position(), is(FlowDocumentEncoder.varintSize(value)));
+            assertThat(CodedInputStream.newInstance(buffer.array(), 0, buffer.position()).readRawVarint64(), is(value));
+        }
+    }
+
+    @Test
+    public void testAllocation() {
+        final Exporter exporter = exporter();
+        final FlowDocumentEncoder encoder = new FlowDocumentEncoder();
+        final ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        for (int i = 0; i < 10_000; i++) {
+            buffer.clear();
+            encoder.encode(exporter, i, i + 1000, i, buffer);
+        }
+
+        final long before = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < 100_000; i++) {
+            buffer.clear();
+            encoder.encode(exporter, i, i + 1000, i, buffer);
+        }
+        final long allocated = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+        // less than a byte per report, i.e. only one-off allocations while the loop is compiled
+        assertThat(allocated, lessThan(100_000L));
+    }
+}
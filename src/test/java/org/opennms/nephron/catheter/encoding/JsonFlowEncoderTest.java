@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.encoding;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+
+import org.junit.Test;
+import org.opennms.nephron.catheter.Exporter;
+
+public class JsonFlowEncoderTest {
+
+    @Test
+    public void testEncode() {
+        final Exporter exporter = Exporter.builder()
+                .withNodeId(7)
+                .withForeignSource("source")
+                .withForeignId("id \"quoted\"")
+                .withLocation("Default")
+                .withInputSnmp(1)
+                .withOutputSnmp(2)
+                .withClockOffset(Duration.ofSeconds(-1))
+                .build(Instant.EPOCH, new Random(0));
+
+        final JsonFlowEncoder encoder = new JsonFlowEncoder();
+        final ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        encoder.encode(exporter, 10_000, 12_500, 4711, buffer);
+        assertThat(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8),
+                is("{\"nodeId\":7,\"foreignSource\":\"source\",\"foreignId\":\"id \\\"quoted\\\"\",\"location\":\"Default\"," +
+                   "\"inputSnmp\":1,\"outputSnmp\":2,\"start\":9000,\"end\":11500,\"bytes\":4711}"));
+    }
+
+    @Test
+    public void testPutLong() {
+        for (final long value : new long[]{0, 1, 9, 10, 99, 100, 1606468591122L, -1, -10, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            final ByteBuffer buffer = ByteBuffer.allocate(32);
+            JsonFlowEncoder.putLong(buffer, value);
+            assertThat(new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII), is(Long.toString(value)));
+        }
+    }
+}
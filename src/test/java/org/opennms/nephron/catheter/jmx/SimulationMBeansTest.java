@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.jmx;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import org.opennms.nephron.catheter.Exporter;
+import org.opennms.nephron.catheter.FlowGenerator;
+import org.opennms.nephron.catheter.Simulation;
+
+public class SimulationMBeansTest {
+
+    private static Exporter.Builder exporter(final int nodeId, final long bytesPerSecond) {
+        return Exporter.builder()
+                .withNodeId(nodeId)
+                .withForeignSource("exporters")
+                .withForeignId("test" + nodeId)
+                .withGenerator(FlowGenerator.builder()
+                        .withBytesPerSecond(bytesPerSecond)
+                        .withMaxFlowCount(10)
+                        .withActiveTimeout(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    public void testMBeans() throws Exception {
+        final Simulation simulation = Simulation.builder((exporter, report) -> {})
+                .withSeed(42L)
+                .withRealtime(false)
+                .withStartTime(Instant.ofEpochMilli(1_500_000_000_000L))
+                .withExporters(exporter(1, 100_000L), exporter(2, 300_000L))
+                .build();
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName(SimulationMBeans.DOMAIN + ":type=Simulation,name=\"test\"");
+
+        try (final SimulationMBeans mbeans = SimulationMBeans.register(server, simulation, "test")) {
+            assertThat(mbeans.getNames().size(), is(1 + 4 + 2));
+
+            simulation.start(1000);
+            simulation.join();
+
+            final long flows = (Long) server.getAttribute(name, "FlowsSent");
+            final long bytes = (Long) server.getAttribute(name, "BytesSent");
+            assertThat(flows, greaterThan(0L));
+            assertThat(flows, is(simulation.getFlowsSent()));
+            assertThat(bytes, is(simulation.getBytesSent()));
+
+            // all reports are accounted to their exporters
+            long exporterFlows = 0;
+            long exporterBytes = 0;
+            long exporterSpawned = 0;
+            for (final ObjectName exporter : server.queryNames(new ObjectName(SimulationMBeans.DOMAIN + ":type=Exporter,simulation=\"test\",*"), null)) {
+                exporterFlows += (Long) server.getAttribute(exporter, "FlowsSent");
+                exporterBytes += (Long) server.getAttribute(exporter, "BytesSent");
+                exporterSpawned += (Long) server.getAttribute(exporter, "FlowsSpawned");
+            }
+            assertThat(exporterFlows, is(flows));
+            assertThat(exporterBytes, is(bytes));
+
+            // every spawned flow is reported at least once
+            final long spawned = (Long) server.getAttribute(name, "FlowsSpawned");
+            assertThat(spawned, greaterThan(0L));
+            assertThat(exporterSpawned, is(spawned));
+            assertThat(spawned, lessThanOrEqualTo(flows));
+
+            // one sample per tick, the final shutdown is not a tick
+            final ObjectName tickDuration = new ObjectName(SimulationMBeans.DOMAIN + ":type=Histogram,simulation=\"test\",name=tickDuration");
+            assertThat(server.getAttribute(tickDuration, "Count"), is(1000L));
+
+            server.setAttribute(name, new Attribute("RateScale", 2.0));
+            assertThat(simulation.getRateScale(), is(2.0));
+        }
+
+        assertThat(server.isRegistered(name), is(false));
+    }
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.kafka;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.opennms.nephron.catheter.Exporter;
+import org.opennms.nephron.catheter.Simulation;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.utility.DockerImageName;
+
+public class KafkaSinkIT {
+
+    @ClassRule
+    public static final KafkaContainer KAFKA = new KafkaContainer(DockerImageName.parse("confluentinc/cp-kafka:5.5.2"));
+
+    @Test
+    public void testSimulation() throws Exception {
+        final long sent;
+        try (final KafkaSink sink = KafkaSink.builder()
+                .withBootstrapServers(KAFKA.getBootstrapServers())
+                .withTopic("flows")
+                .build()) {
+            final Simulation simulation = Simulation.builder(sink)
+                    .withRealtime(false)
+                    .withStartTime(Instant.EPOCH)
+                    .withTickMs(Duration.ofMillis(100))
+                    .withExporters(Exporter.builder()
+                            .withNodeId(1)
+                            .withForeignSource("exporters")
+                            .withForeignId("test1")
+                            .withBytesPerSecond(1_000_000L)
+                            .withMaxFlowCount(100))
+                    .build();
+
+            simulation.start(1000);
+            simulation.join();
+
+            sink.flush();
+            sent = sink.getSent();
+
+            assertThat(sent, greaterThan(0L));
+            assertThat(sink.getAcknowledged(), is(sent));
+            assertThat(sink.getFailed(), is(0L));
+        }
+
+        final Map<String, Object> properties = Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, KAFKA.getBootstrapServers(),
+                ConsumerConfig.GROUP_ID_CONFIG, "catheter",
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+
+        long received = 0;
+        try (final KafkaConsumer<byte[], byte[]> consumer = new KafkaConsumer<>(properties, new ByteArrayDeserializer(), new ByteArrayDeserializer())) {
+            consumer.subscribe(Collections.singleton("flows"));
+            final long deadline = System.nanoTime() + Duration.ofMinutes(1).toNanos();
+            while (received < sent && System.nanoTime() < deadline) {
+                final ConsumerRecords<byte[], byte[]> records = consumer.poll(Duration.ofSeconds(1));
+                received += records.count();
+            }
+        }
+        assertThat(received, is(sent));
+    }
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.kafka;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.Test;
+import org.opennms.nephron.catheter.Exporter;
+import org.opennms.nephron.catheter.FlowReportBatch;
+import org.opennms.nephron.catheter.encoding.JsonFlowEncoder;
+
+public class KafkaSinkTest {
+
+    private static FlowReportBatch batch(final int nodeId, final int size) {
+        final Exporter exporter = Exporter.builder()
+                .withNodeId(nodeId)
+                .withForeignSource("source")
+                .withForeignId("exporter" + nodeId)
+                .build(Instant.EPOCH, new Random(0));
+
+        final FlowReportBatch batch = new FlowReportBatch().reset(exporter);
+        for (int i = 0; i < size; i++) {
+            batch.add(1000L * i, 1000L * i + 500, 100 + i);
+        }
+        return batch;
+    }
+
+    @Test
+    public void testSend() {
+        final MockProducer<byte[], byte[]> producer = new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+        final KafkaSink sink = KafkaSink.builder()
+                .withTopic("topic")
+                .withEncoder(new JsonFlowEncoder())
+                .withProducer(producer)
+                .build();
+
+        sink.accept(batch(42, 3));
+        sink.accept(batch(43, 0));
+
+        final List<ProducerRecord<byte[], byte[]>> records = producer.history();
+        assertThat(records.size(), is(3));
+        for (int i = 0; i < records.size(); i++) {
+            assertThat(records.get(i).topic(), is("topic"));
+            assertThat(ByteBuffer.wrap(records.get(i).key()).getInt(), is(42));
+            assertThat(new String(records.get(i).value(), StandardCharsets.UTF_8), startsWith("{\"nodeId\":42,"));
+        }
+        assertThat(new String(records.get(2).value(), StandardCharsets.UTF_8).endsWith("\"start\":2000,\"end\":2500,\"bytes\":102}"), is(true));
+
+        assertThat(sink.getSent(), is(3L));
+        assertThat(sink.getAcknowledged(), is(3L));
+        assertThat(sink.getFailed(), is(0L));
+        assertThat(sink.getInFlight(), is(0));
+        assertThat(sink.getSendLatency().getCount(), is(3L));
+
+        sink.close();
+        assertThat(producer.closed(), is(true));
+    }
+
+    @Test
+    public void testMaxInFlight() throws Exception {
+        final MockProducer<byte[], byte[]> producer = new MockProducer<>(false, new ByteArraySerializer(), new ByteArraySerializer());
+        final KafkaSink sink = KafkaSink.builder()
+                .withProducer(producer)
+                .withMaxInFlight(2)
+                .build();
+
+        final CompletableFuture<Void> sending = CompletableFuture.runAsync(() -> sink.accept(batch(1, 4)));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> producer.history().size() == 2);
+        Thread.sleep(100);
+        assertThat(producer.history().size(), is(2));
+        assertThat(sink.getInFlight(), is(2));
+        assertThat(sending.isDone(), is(false));
+
+        assertThat(producer.completeNext(), is(true));
+        assertThat(producer.errorNext(new RuntimeException("broken")), is(true));
+        sending.get();
+
+        assertThat(producer.history().size(), is(4));
+        assertThat(sink.getAcknowledged(), is(1L));
+        assertThat(sink.getFailed(), is(1L));
+        assertThat(sink.getLastError().getMessage(), is("broken"));
+
+        while (producer.completeNext());
+        assertThat(sink.getAcknowledged(), is(3L));
+        assertThat(sink.getInFlight(), is(0));
+    }
+}
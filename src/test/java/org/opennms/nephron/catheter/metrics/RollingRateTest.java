@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class RollingRateTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void testRate() {
+        final AtomicLong now = new AtomicLong(42 * SECOND);
+        final RollingRate rate = new RollingRate(4, now::get);
+
+        // nothing completed yet
+        rate.mark(100);
+        assertThat(rate.getRate(), is(0.0));
+
+        // 100 + 300 in the first second, 200 in the second
+        rate.mark(300);
+        now.addAndGet(SECOND);
+        rate.mark(200);
+        assertThat(rate.getRate(), is(400.0));
+
+        now.addAndGet(SECOND);
+        assertThat(rate.getRate(), is(300.0));
+
+        // idle seconds count as zero
+        now.addAndGet(2 * SECOND);
+        assertThat(rate.getRate(), is(150.0));
+
+        // the first second drops out of the window
+        now.addAndGet(SECOND);
+        assertThat(rate.getRate(), is(50.0));
+
+        // buckets are recycled
+        rate.mark(1000);
+        now.addAndGet(SECOND);
+        assertThat(rate.getRate(), is(250.0));
+
+        now.addAndGet(10 * SECOND);
+        assertThat(rate.getRate(), is(0.0));
+    }
+}
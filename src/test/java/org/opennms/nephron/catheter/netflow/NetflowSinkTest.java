@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.netflow;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opennms.nephron.catheter.Exporter;
+import org.opennms.nephron.catheter.FlowReportBatch;
+
+public class NetflowSinkTest {
+    private static final long NOW = 1_606_468_591_000L;
+
+    private DatagramSocket collector;
+
+    @Before
+    public void setUp() throws Exception {
+        this.collector = new DatagramSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        this.collector.setReceiveBufferSize(4 * 1024 * 1024);
+        this.collector.setSoTimeout(5000);
+    }
+
+    @After
+    public void tearDown() {
+        this.collector.close();
+    }
+
+    private NetflowSink.Builder sink(final NetflowSink.Protocol protocol) {
+        return NetflowSink.builder((InetSocketAddress) this.collector.getLocalSocketAddress())
+                .withBindAddress(InetAddress.getLoopbackAddress())
+                .withProtocol(protocol);
+    }
+
+    private List<DatagramPacket> receive(final int count) throws Exception {
+        final List<DatagramPacket> packets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final DatagramPacket packet = new DatagramPacket(new byte[65536], 65536);
+            this.collector.receive(packet);
+            packets.add(packet);
+        }
+        return packets;
+    }
+
+    private static ByteBuffer wrap(final DatagramPacket packet) {
+        return ByteBuffer.wrap(Arrays.copyOf(packet.getData(), packet.getLength()));
+    }
+
+    private static Exporter exporter(final int nodeId, final Duration clockOffset) {
+        return Exporter.builder()
+                .withNodeId(nodeId)
+                .withForeignSource("source")
+                .withForeignId("exporter" + nodeId)
+                .withInputSnmp(3)
+                .withOutputSnmp(4)
+                .withClockOffset(clockOffset)
+                .build(Instant.EPOCH, new Random(0));
+    }
+
+    private static FlowReportBatch batch(final Exporter exporter, final long now, final int size) {
+        final FlowReportBatch batch = new FlowReportBatch().reset(exporter);
+        for (int i = 0; i < size; i++) {
+            batch.add(now - 2000 - i, now - i, 1000 + i);
+        }
+        return batch;
+    }
+
+    @Test
+    public void testV5() throws Exception {
+        final Exporter exporter = exporter(1, Duration.ofSeconds(1));
+        final FlowReportBatch batch = batch(exporter, NOW, 69);
+        // too large for a single record
+        batch.add(NOW - 10_000, NOW - 5000, 5_000_000_000L);
+
+        try (final NetflowSink sink = this.sink(NetflowSink.Protocol.V5).withBootTime(Instant.ofEpochMilli(NOW - 3_600_000)).build()) {
+            sink.accept(batch);
+
+            final List<DatagramPacket> packets = this.receive(3);
+            final int[] counts = {30, 30, 11};
+
+            long bytes = 0;
+            for (int p = 0; p < packets.size(); p++) {
+                final ByteBuffer packet = wrap(packets.get(p));
+                assertThat(packet.getShort(0), is((short) 5));
+                assertThat((int) packet.getShort(2), is(counts[p]));
+                assertThat(packet.remaining(), is(24 + counts[p] * 48));
+                // exported at the latest end in the clock of the exporter
+                assertThat(packet.getInt(4), is(3_601_000));
+                assertThat(packet.getInt(8), is((int) (NOW / 1000 + 1)));
+                assertThat(packet.getInt(16), is(30 * p));
+
+                for (int r = 0; r < counts[p]; r++) {
+                    bytes += Integer.toUnsignedLong(packet.getInt(24 + r * 48 + 20));
+                }
+            }
+            assertThat(bytes, is(batch.getTotalBytes()));
+
+            final ByteBuffer first = wrap(packets.get(0));
+            assertThat(first.getShort(24 + 12), is((short) 3));
+            assertThat(first.getShort(24 + 14), is((short) 4));
+            assertThat(first.getInt(24 + 16), is(1));
+            assertThat(first.getInt(24 + 24), is(3_599_000));
+            assertThat(first.getInt(24 + 28), is(3_601_000));
+
+            assertThat(sink.getSentPackets(), is(3L));
+            assertThat(sink.getSentRecords(), is(71L));
+            assertThat(sink.getDropped(), is(0L));
+        }
+    }
+
+    @Test
+    public void testV9() throws Exception {
+        final Exporter exporter = exporter(7, Duration.ZERO);
+
+        try (final NetflowSink sink = this.sink(NetflowSink.Protocol.V9)
+                .withTemplateRefresh(Duration.ofSeconds(10))
+                .withBootTime(Instant.ofEpochMilli(NOW - 60_000))
+                .build()) {
+            sink.accept(batch(exporter, NOW, 100));
+            sink.accept(batch(exporter, NOW + 5000, 1));
+            sink.accept(batch(exporter, NOW + 10_000, 1));
+
+            final List<DatagramPacket> packets = this.receive(5);
+
+            // header, template flowset and data flowset header leave room for 44 records, later packets for 45
+            final int[] counts = {44 + 1, 45, 11, 1, 1 + 1};
+            final boolean[] templates = {true, false, false, false, true};
+            for (int p = 0; p < packets.size(); p++) {
+                final ByteBuffer packet = wrap(packets.get(p));
+                assertThat(packet.getShort(0), is((short) 9));
+                assertThat((int) packet.getShort(2), is(counts[p]));
+                assertThat(packet.getInt(12), is(p));
+                assertThat(packet.getInt(16), is(7));
+
+                int flowset = 20;
+                if (templates[p]) {
+                    assertThat(packet.getShort(flowset), is((short) 0));
+                    assertThat(packet.getShort(flowset + 4), is((short) 256));
+                    assertThat(packet.getShort(flowset + 6), is((short) 6));
+                    flowset += packet.getShort(flowset + 2);
+                }
+                assertThat(packet.getShort(flowset), is((short) 256));
+                assertThat(flowset + packet.getShort(flowset + 2), is(packet.remaining()));
+            }
+
+            final ByteBuffer first = wrap(packets.get(0));
+            assertThat(first.remaining(), is(20 + 32 + 4 + 44 * 32));
+            assertThat(first.getInt(4), is(60_000));
+            assertThat(first.getLong(56), is(1000L));
+            assertThat(first.getLong(56 + 8), is(1L));
+            assertThat(first.getInt(56 + 16), is(58_000));
+            assertThat(first.getInt(56 + 20), is(60_000));
+            assertThat(first.getInt(56 + 24), is(3));
+            assertThat(first.getInt(56 + 28), is(4));
+        }
+    }
+
+    @Test
+    public void testIpfix() throws Exception {
+        final Exporter exporter = exporter(8, Duration.ofMillis(-500));
+
+        try (final NetflowSink sink = this.sink(NetflowSink.Protocol.IPFIX).withMtu(576).build()) {
+            sink.accept(batch(exporter, NOW, 20));
+
+            final List<DatagramPacket> packets = this.receive(2);
+
+            // 548 bytes leave room for 12 records next to the template, then 13
+            final int[] counts = {12, 8};
+            for (int p = 0; p < packets.size(); p++) {
+                final ByteBuffer packet = wrap(packets.get(p));
+                assertThat(packet.getShort(0), is((short) 10));
+                assertThat((int) packet.getShort(2), is(packet.remaining()));
+                assertThat(packet.getInt(4), is((int) ((NOW - 500) / 1000)));
+                assertThat(packet.getInt(8), is(12 * p));
+                assertThat(packet.getInt(12), is(8));
+            }
+
+            final ByteBuffer first = wrap(packets.get(0));
+            assertThat(first.getShort(16), is((short) 2));
+            assertThat(first.remaining(), is(16 + 32 + 4 + 12 * 40));
+            assertThat(first.getLong(52 + 16), is(NOW - 2500));
+            assertThat(first.getLong(52 + 24), is(NOW - 500));
+        }
+    }
+
+    @Test
+    public void testSourcePorts() throws Exception {
+        final Exporter exporter1 = exporter(1, Duration.ZERO);
+        final Exporter exporter2 = exporter(2, Duration.ZERO);
+
+        try (final NetflowSink sink = this.sink(NetflowSink.Protocol.V9).build()) {
+            sink.accept(batch(exporter1, NOW, 1));
+            sink.accept(batch(exporter2, NOW, 1));
+            sink.accept(batch(exporter1, NOW + 1000, 1));
+
+            final List<DatagramPacket> packets = this.receive(3);
+            final SocketAddress source1 = packets.get(0).getSocketAddress();
+            final SocketAddress source2 = packets.get(1).getSocketAddress();
+
+            assertThat(source1, is(not(source2)));
+            assertThat(packets.get(2).getSocketAddress(), is(source1));
+
+            // sequence numbers are counted per exporter
+            assertThat(wrap(packets.get(1)).getInt(12), is(0));
+            assertThat(wrap(packets.get(2)).getInt(12), is(1));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.profile;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.opennms.nephron.catheter.json.LoadProfileJson;
+import org.opennms.nephron.catheter.json.LoadProfilePointJson;
+
+public class LoadProfileTest {
+
+    @Test
+    public void testPiecewiseLinear() {
+        final LoadProfile profile = LoadProfile.piecewiseLinear(Arrays.asList(
+                new PiecewiseLinearLoadProfile.Point(Duration.ofSeconds(10), 1_000),
+                new PiecewiseLinearLoadProfile.Point(Duration.ofSeconds(20), 2_000),
+                new PiecewiseLinearLoadProfile.Point(Duration.ofSeconds(30), 2_000),
+                new PiecewiseLinearLoadProfile.Point(Duration.ofSeconds(30), 500)), null);
+
+        // before the first point
+        assertThat(profile.bytesPerSecond(0), is(1_000L));
+        // ramp
+        assertThat(profile.bytesPerSecond(15_000), is(1_500L));
+        assertThat(profile.bytesPerSecond(20_000), is(2_000L));
+        // step
+        assertThat(profile.bytesPerSecond(29_999), is(2_000L));
+        assertThat(profile.bytesPerSecond(30_000), is(500L));
+        // after the last point
+        assertThat(profile.bytesPerSecond(1_000_000), is(500L));
+    }
+
+    @Test
+    public void testRepeat() {
+        final LoadProfile profile = LoadProfile.piecewiseLinear(Arrays.asList(
+                new PiecewiseLinearLoadProfile.Point(Duration.ZERO, 0),
+                new PiecewiseLinearLoadProfile.Point(Duration.ofSeconds(10), 10_000)), Duration.ofSeconds(10));
+
+        assertThat(profile.bytesPerSecond(5_000), is(5_000L));
+        assertThat(profile.bytesPerSecond(15_000), is(5_000L));
+        assertThat(profile.bytesPerSecond(29_000), is(9_000L));
+    }
+
+    @Test
+    public void testSine() {
+        final LoadProfile profile = LoadProfile.sine(10_000, 5_000, Duration.ofHours(24), Duration.ZERO);
+
+        assertThat(profile.bytesPerSecond(0), is(10_000L));
+        assertThat(profile.bytesPerSecond(Duration.ofHours(6).toMillis()), is(15_000L));
+        assertThat(profile.bytesPerSecond(Duration.ofHours(12).toMillis()), is(10_000L));
+        assertThat(profile.bytesPerSecond(Duration.ofHours(18).toMillis()), is(5_000L));
+        assertThat(profile.bytesPerSecond(Duration.ofHours(30).toMillis()), is(15_000L));
+    }
+
+    @Test
+    public void testFromJson() {
+        final LoadProfilePointJson p1 = new LoadProfilePointJson();
+        p1.setOffsetMs(0);
+        p1.setBytesPerSecond(0);
+        final LoadProfilePointJson p2 = new LoadProfilePointJson();
+        p2.setOffsetMs(1_000);
+        p2.setBytesPerSecond(1_000);
+
+        final LoadProfileJson ramp = new LoadProfileJson();
+        ramp.setType(LoadProfileJson.Type.PIECEWISE_LINEAR);
+        ramp.setPoints(Arrays.asList(p1, p2));
+
+        final LoadProfileJson base = new LoadProfileJson();
+        base.setType(LoadProfileJson.Type.CONSTANT);
+        base.setBytesPerSecond(100);
+
+        final LoadProfileJson sum = new LoadProfileJson();
+        sum.setType(LoadProfileJson.Type.SUM);
+        sum.setProfiles(Arrays.asList(base, ramp));
+
+        final LoadProfile profile = LoadProfile.fromJson(sum);
+        assertThat(profile.bytesPerSecond(500), is(600L));
+        assertThat(profile.bytesPerSecond(5_000), is(1_100L));
+    }
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.opennms.nephron.catheter.json.DistributionBucketJson;
+import org.opennms.nephron.catheter.json.DistributionJson;
+
+public class DistributionTest {
+    private static final int SAMPLES = 1_000_000;
+
+    private static double[] sample(final Distribution distribution) {
+        final RandomSource random = new SplittableRandomSource(42L);
+        final double[] values = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            values[i] = distribution.sample(random);
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
+    private static double quantile(final double[] sorted, final double p) {
+        return sorted[(int) (p * (sorted.length - 1))];
+    }
+
+    @Test
+    public void testAliasTable() {
+        final double[] weights = {1.0, 0.0, 3.0, 6.0};
+        final AliasTable table = new AliasTable(weights);
+        final RandomSource random = new SplittableRandomSource(42L);
+
+        final int[] counts = new int[weights.length];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[table.sample(random)]++;
+        }
+
+        assertThat(counts[0] / (double) SAMPLES, closeTo(0.1, 0.002));
+        assertThat(counts[1], is(0));
+        assertThat(counts[2] / (double) SAMPLES, closeTo(0.3, 0.002));
+        assertThat(counts[3] / (double) SAMPLES, closeTo(0.6, 0.002));
+    }
+
+    @Test
+    public void testPareto() {
+        final double[] values = sample(Distribution.pareto(1000.0, 1.5));
+        assertThat(values[0], greaterThanOrEqualTo(1000.0));
+        // median = scale * 2^(1 / shape)
+        assertThat(quantile(values, 0.5), closeTo(1000.0 * Math.pow(2.0, 1.0 / 1.5), 10.0));
+        // P(X > x) = (scale / x)^shape
+        assertThat(quantile(values, 0.99), closeTo(1000.0 * Math.pow(100.0, 1.0 / 1.5), 1_000.0));
+
+        final double[] truncated = sample(Distribution.pareto(1000.0, 0.5, 10_000.0));
+        assertThat(truncated[0], greaterThanOrEqualTo(1000.0));
+        assertThat(truncated[SAMPLES - 1], lessThanOrEqualTo(10_000.0));
+    }
+
+    @Test
+    public void testLogNormal() {
+        final double[] values = sample(Distribution.logNormal(5000.0, 1.0));
+        assertThat(quantile(values, 0.5), closeTo(5000.0, 50.0));
+        // the 84th percentile is one sigma above the median
+        assertThat(quantile(values, 0.8413), closeTo(5000.0 * Math.E, 100.0));
+
+        assertThat(LogNormalDistribution.normalQuantile(0.5), closeTo(0.0, 1e-9));
+        assertThat(LogNormalDistribution.normalQuantile(0.975), closeTo(1.959964, 1e-6));
+        assertThat(LogNormalDistribution.normalQuantile(0.001), closeTo(-3.090232, 1e-6));
+    }
+
+    @Test
+    public void testZipf() {
+        final double[] values = sample(Distribution.zipf(100, 1.0, 10.0));
+
+        double harmonic = 0.0;
+        for (int k = 1; k <= 100; k++) {
+            harmonic += 1.0 / k;
+        }
+
+        final long ones = Arrays.stream(values).filter(v -> v == 10.0).count();
+        assertThat(ones / (double) SAMPLES, closeTo(1.0 / harmonic, 0.002));
+        assertThat(values[SAMPLES - 1], is(1000.0));
+    }
+
+    @Test
+    public void testEmpirical() {
+        final DistributionJson json = new DistributionJson();
+        json.setType(DistributionJson.Type.EMPIRICAL);
+        json.setBuckets(Arrays.asList(bucket(0, 100, 9), bucket(1000, 2000, 1)));
+
+        final double[] values = sample(Distribution.fromJson(json));
+        final long small = Arrays.stream(values).filter(v -> v < 100.0).count();
+        assertThat(small / (double) SAMPLES, closeTo(0.9, 0.002));
+        assertThat(values[SAMPLES - 1], allOf(greaterThanOrEqualTo(1000.0), lessThan(2000.0)));
+    }
+
+    private static DistributionBucketJson bucket(final double lower, final double upper, final double weight) {
+        final DistributionBucketJson bucket = new DistributionBucketJson();
+        bucket.setLower(lower);
+        bucket.setUpper(upper);
+        bucket.setWeight(weight);
+        return bucket;
+    }
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+
+import java.time.Duration;
+
+import org.junit.Test;
+
+public class RandomSourceTest {
+
+    private static void checkUniform(final RandomSource random, final int bound) {
+        final int samples = 100_000 * bound;
+        final int[] counts = new int[bound];
+        for (int i = 0; i < samples; i++) {
+            counts[random.nextInt(bound)]++;
+        }
+
+        // chi-squared test with a generous limit for the given degrees of freedom
+        double chi = 0.0;
+        for (final int count : counts) {
+            chi += Math.pow(count - 100_000, 2) / 100_000;
+        }
+        assertThat(chi, lessThan(3.0 * bound + 30.0));
+    }
+
+    @Test
+    public void testUniform() {
+        for (final RandomSource.Algorithm algorithm : RandomSource.Algorithm.values()) {
+            checkUniform(algorithm.create(42L), 7);
+            checkUniform(algorithm.create(42L), 16);
+        }
+    }
+
+    @Test
+    public void testBounds() {
+        for (final RandomSource.Algorithm algorithm : RandomSource.Algorithm.values()) {
+            final RandomSource random = algorithm.create(42L);
+            for (int i = 0; i < 100_000; i++) {
+                assertThat(random.nextInt(3), allOf(greaterThanOrEqualTo(0), lessThan(3)));
+                assertThat(random.nextLong(Long.MAX_VALUE / 3 * 2), allOf(greaterThanOrEqualTo(0L), lessThan(Long.MAX_VALUE / 3 * 2)));
+                assertThat(random.nextLong(-5L, 5L), allOf(greaterThanOrEqualTo(-5L), lessThanOrEqualTo(5L)));
+                assertThat(random.nextLong(-10L, Long.MAX_VALUE), greaterThanOrEqualTo(-10L));
+                assertThat(random.nextDouble(), allOf(greaterThanOrEqualTo(0.0), lessThan(1.0)));
+            }
+            // the full range must not overflow
+            random.nextLong(Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+    }
+
+    @Test
+    public void testDeterministic() {
+        for (final RandomSource.Algorithm algorithm : RandomSource.Algorithm.values()) {
+            final RandomSource a = algorithm.create(42L);
+            final RandomSource b = algorithm.create(42L);
+            for (int i = 0; i < 1000; i++) {
+                assertThat(a.nextLong(), is(b.nextLong()));
+            }
+
+            // splits of equal sources are equal, but differ from their parent
+            final RandomSource sa = a.split();
+            final RandomSource sb = b.split();
+            for (int i = 0; i < 1000; i++) {
+                final long l = sa.nextLong();
+                assertThat(l, is(sb.nextLong()));
+                assertThat(l, is(not(a.nextLong())));
+            }
+        }
+    }
+
+    @Test
+    public void testMinValue() {
+        // the former implementation used Math.abs(nextLong()) which stays negative for Long.MIN_VALUE
+        final RandomSource random = new RandomSource() {
+            @Override
+            public long nextLong() {
+                return Long.MIN_VALUE;
+            }
+
+            @Override
+            public RandomSource split() {
+                return this;
+            }
+        };
+
+        assertThat(new IntegerZufall(random, 1, 10).nextInt(), allOf(greaterThanOrEqualTo(1), lessThanOrEqualTo(10)));
+        assertThat(new DurationZufall(random, Duration.ofSeconds(1), Duration.ofSeconds(2)).nextMillis(), allOf(greaterThanOrEqualTo(1000L), lessThanOrEqualTo(2000L)));
+    }
+}
@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.recording;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opennms.nephron.catheter.Exporter;
+import org.opennms.nephron.catheter.FlowGenerator;
+import org.opennms.nephron.catheter.FlowReport;
+import org.opennms.nephron.catheter.Simulation;
+
+public class RecordingTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Simulation.Builder simulation(final RecordingSink sink, final List<Exporter> exporters, final List<FlowReport> reports) {
+        return Simulation.builder(batch -> {
+                    sink.accept(batch);
+                    for (int i = 0; i < batch.size(); i++) {
+                        exporters.add(batch.getExporter());
+                        reports.add(batch.getReport(i));
+                    }
+                })
+                .withRealtime(false)
+                .withStartTime(Instant.ofEpochMilli(1_500_000_000_000L))
+                .withTickMs(Duration.ofMillis(100))
+                .withSeed(42L)
+                .withExporters(Exporter.builder()
+                                .withNodeId(1)
+                                .withForeignSource("recording")
+                                .withForeignId("exporter1")
+                                .withLocation("Default")
+                                .withInputSnmp(10)
+                                .withOutputSnmp(11)
+                                .withGenerator(FlowGenerator.builder()
+                                        .withBytesPerSecond(1_000_000L)
+                                        .withMaxFlowCount(50)
+                                        .withActiveTimeout(Duration.ofSeconds(1))),
+                        Exporter.builder()
+                                .withNodeId(2)
+                                .withForeignSource("recording")
+                                .withForeignId("exporter2")
+                                .withLocation("Minion")
+                                .withClockOffset(Duration.ofSeconds(-30))
+                                .withGenerator(FlowGenerator.builder()
+                                        .withBytesPerSecond(10_000_000L)
+                                        .withMaxFlowCount(200)
+                                        .withActiveTimeout(Duration.ofSeconds(1))));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final Path path = this.folder.getRoot().toPath().resolve("flows.rec");
+        final List<Exporter> exporters = new ArrayList<>();
+        final List<FlowReport> reports = new ArrayList<>();
+
+        try (final RecordingSink sink = RecordingSink.builder(path).withBlockSize(1000).build()) {
+            final Simulation simulation = simulation(sink, exporters, reports).build();
+            simulation.start(600);
+            simulation.join();
+        }
+        assertThat(reports.size(), greaterThan(10_000));
+
+        try (final Recording recording = Recording.open(path)) {
+            assertThat(recording.getRecords(), is((long) reports.size()));
+            assertThat(recording.getBlockCount(), is((reports.size() + 999) / 1000));
+
+            assertThat(recording.getExporters().size(), is(2));
+            final Exporter exporter1 = recording.getExporters().get(0);
+            assertThat(exporter1.getNodeId(), is(1));
+            assertThat(exporter1.getForeignSource(), is("recording"));
+            assertThat(exporter1.getForeignId(), is("exporter1"));
+            assertThat(exporter1.getLocation(), is("Default"));
+            assertThat(exporter1.getInputSnmp(), is(10));
+            assertThat(exporter1.getOutputSnmp(), is(11));
+            final Exporter exporter2 = recording.getExporters().get(1);
+            assertThat(exporter2.getForeignId(), is("exporter2"));
+            assertThat(exporter2.getClockOffset(), is(Duration.ofSeconds(-30)));
+
+            final Recording.Block block = recording.newBlock();
+            int n = 0;
+            for (int b = 0; b < recording.getBlockCount(); b++) {
+                recording.read(b, block);
+                assertThat(block.getIndex(), is(b));
+                assertThat(block.size(), is(recording.getBlockRecords(b)));
+                for (int i = 0; i < block.size(); i++, n++) {
+                    assertThat(block.getExporter(i).getNodeId(), is(exporters.get(n).getNodeId()));
+                    assertThat(block.getReport(i), is(reports.get(n)));
+                    assertThat(block.getEndMillis(i), greaterThanOrEqualTo(recording.getBlockMinEndMillis(b)));
+                    assertThat(block.getEndMillis(i), lessThan(recording.getBlockMaxEndMillis(b) + 1));
+                }
+            }
+            assertThat(n, is(reports.size()));
+
+            // a few bytes per report
+            assertThat((double) path.toFile().length() / reports.size(), lessThan(8.0));
+        }
+    }
+
+    @Test
+    public void testSegments() throws Exception {
+        final Path path = this.folder.getRoot().toPath().resolve("flows.rec");
+        final List<FlowReport> reports = new ArrayList<>();
+
+        try (final RecordingSink sink = RecordingSink.builder(path).withBlockSize(100).build()) {
+            final Simulation simulation = simulation(sink, new ArrayList<>(), reports).build();
+            simulation.start(100);
+            simulation.join();
+        }
+
+        // map every few blocks separately
+        try (final Recording recording = Recording.open(path, 1024)) {
+            assertThat(recording.getBlockCount(), greaterThan(10));
+
+            final Recording.Block block = recording.newBlock();
+            int n = 0;
+            for (int b = 0; b < recording.getBlockCount(); b++) {
+                recording.read(b, block);
+                for (int i = 0; i < block.size(); i++, n++) {
+                    assertThat(block.getReport(i), is(reports.get(n)));
+                }
+            }
+            assertThat(n, is(reports.size()));
+        }
+    }
+
+    @Test
+    public void testFindBlock() throws Exception {
+        final Path path = this.folder.getRoot().toPath().resolve("flows.rec");
+        final List<FlowReport> reports = new ArrayList<>();
+
+        try (final RecordingSink sink = RecordingSink.builder(path).withBlockSize(100).build()) {
+            final Simulation simulation = simulation(sink, new ArrayList<>(), reports).build();
+            simulation.start(100);
+            simulation.join();
+        }
+
+        try (final Recording recording = Recording.open(path)) {
+            final long middle = reports.get(reports.size() / 2).getEndMillis();
+            final int found = recording.findBlock(middle);
+
+            final Recording.Block block = recording.newBlock();
+            for (int b = 0; b < found; b++) {
+                recording.read(b, block);
+                for (int i = 0; i < block.size(); i++) {
+                    assertThat(block.getEndMillis(i), lessThan(middle));
+                }
+            }
+            assertThat(recording.getBlockMaxEndMillis(found), greaterThanOrEqualTo(middle));
+
+            assertThat(recording.findBlock(Long.MIN_VALUE), is(0));
+            assertThat(recording.findBlock(Long.MAX_VALUE), is(recording.getBlockCount()));
+        }
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        final Path path = this.folder.getRoot().toPath().resolve("empty.rec");
+        RecordingSink.builder(path).build().close();
+
+        try (final Recording recording = Recording.open(path)) {
+            assertThat(recording.getRecords(), is(0L));
+            assertThat(recording.getBlockCount(), is(0));
+            assertThat(recording.getExporters().size(), is(0));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testIncomplete() throws Exception {
+        final Path path = this.folder.getRoot().toPath().resolve("incomplete.rec");
+        final RecordingSink sink = RecordingSink.builder(path).withBlockSize(10).build();
+        final Simulation simulation = simulation(sink, new ArrayList<>(), new ArrayList<>()).build();
+        simulation.start(10);
+        simulation.join();
+
+        Recording.open(path);
+    }
+
+    @Test
+    public void testVarint() {
+        final ByteBuffer buffer = ByteBuffer.allocate(64);
+        for (final long value : new long[]{0, 1, -1, 63, -64, 64, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            buffer.clear();
+            RecordingFormat.putVarint(buffer, RecordingFormat.zigZag(value));
+            buffer.flip();
+            assertThat(RecordingFormat.unZigZag(RecordingFormat.getVarint(buffer)), is(value));
+        }
+    }
+}
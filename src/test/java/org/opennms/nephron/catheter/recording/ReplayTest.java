@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.nephron.catheter.recording;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opennms.nephron.catheter.Exporter;
+import org.opennms.nephron.catheter.FlowGenerator;
+import org.opennms.nephron.catheter.FlowReport;
+import org.opennms.nephron.catheter.Simulation;
+import org.opennms.nephron.catheter.WallClock;
+
+public class ReplayTest {
+    private static final Instant START = Instant.ofEpochMilli(1_500_000_000_000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static class ManualClock implements WallClock {
+        private long nanos = 0;
+
+        @Override
+        public long nanoTime() {
+            return this.nanos;
+        }
+
+        @Override
+        public long sleepUntil(final long deadline) {
+            this.nanos = Math.max(this.nanos, deadline);
+            return this.nanos;
+        }
+    }
+
+    /**
+     * Records a simulation of two exporters and returns the recorded reports of each exporter by node ID.
+     */
+    private Map<Integer, List<FlowReport>> record(final Path path, final int nodeIdOffset, final int ticks) throws Exception {
+        final Map<Integer, List<FlowReport>> reports = new ConcurrentHashMap<>();
+
+        try (final RecordingSink sink = RecordingSink.builder(path).withBlockSize(500).build()) {
+            final Simulation.Builder simulation = Simulation.builder(batch -> {
+                        sink.accept(batch);
+                        reports.computeIfAbsent(batch.getExporter().getNodeId(), k -> new ArrayList<>()).addAll(batch.toReports());
+                    })
+                    .withRealtime(false)
+                    .withStartTime(START)
+                    .withTickMs(Duration.ofMillis(100))
+                    .withSeed(nodeIdOffset);
+            for (int i = 1; i <= 2; i++) {
+                simulation.withExporters(Exporter.builder()
+                        .withNodeId(nodeIdOffset + i)
+                        .withForeignSource("replay")
+                        .withForeignId("exporter" + (nodeIdOffset + i))
+                        .withGenerator(FlowGenerator.builder()
+                                .withBytesPerSecond(1_000_000L)
+                                .withMaxFlowCount(100)
+                                .withActiveTimeout(Duration.ofSeconds(1))));
+            }
+            final Simulation s = simulation.build();
+            s.start(ticks);
+            s.join();
+        }
+
+        return reports;
+    }
+
+    private static class ReportCollector {
+        private final Map<Integer, List<FlowReport>> reports = new ConcurrentHashMap<>();
+
+        void accept(final Exporter exporter, final FlowReport report) {
+            this.reports.computeIfAbsent(exporter.getNodeId(), k -> Collections.synchronizedList(new ArrayList<>())).add(report);
+        }
+    }
+
+    @Test
+    public void testUnthrottled() throws Exception {
+        final Path path = this.folder.getRoot().toPath().resolve("flows.rec");
+        final Map<Integer, List<FlowReport>> recorded = this.record(path, 0, 300);
+
+        final ReportCollector collector = new ReportCollector();
+        try (final Replay replay = Replay.builder(collector::accept).withRecordings(path).withSpeed(0.0).build()) {
+            replay.start();
+            replay.join();
+
+            assertThat(replay.isRunning(), is(false));
+            assertThat(replay.getReports(), is(recorded.values().stream().mapToLong(List::size).sum()));
+            assertThat(replay.getStartTime(), is(Instant.ofEpochMilli(replay.getRecordings().get(0).getMinEndMillis())));
+        }
+
+        assertThat(collector.reports, is(recorded));
+    }
+
+    @Test
+    public void testPacing() throws Exception {
+        final Path path = this.folder.getRoot().toPath().resolve("flows.rec");
+        this.record(path, 0, 300);
+
+        final ManualClock clock = new ManualClock();
+        final double speed = 10.0;
+        final List<long[]> handled = new ArrayList<>();
+
+        try (final Replay replay = Replay.builder((exporter, report) -> handled.add(new long[]{clock.nanoTime(), report.getEndMillis()}))
+                .withRecordings(path)
+                .withSpeed(speed)
+                .withClock(clock)
+                .build()) {
+            replay.start();
+            replay.join();
+
+            final long startMillis = replay.getStartTime().toEpochMilli();
+            for (final long[] h : handled) {
+                final long due = (long) ((h[1] - startMillis) * 1_000_000.0 / speed);
+                // never early, and late only by the tick, as the reports of a tick end at various times
+                assertThat(h[0], greaterThanOrEqualTo(due));
+                assertThat(h[0], lessThanOrEqualTo(due + Duration.ofMillis(100).toNanos()));
+            }
+
+            // 30 seconds recorded take 3 seconds
+            final long last = handled.get(handled.size() - 1)[0];
+            assertThat(last, greaterThan(Duration.ofMillis(2800).toNanos()));
+            assertThat(last, lessThanOrEqualTo(Duration.ofSeconds(3).toNanos()));
+        }
+    }
+
+    @Test
+    public void testSeek() throws Exception {
+        final Path path = this.folder.getRoot().toPath().resolve("flows.rec");
+        final Map<Integer, List<FlowReport>> recorded = this.record(path, 0, 300);
+
+        final Instant middle = START.plusSeconds(15);
+        final long expected = recorded.values().stream()
+                .flatMap(List::stream)
+                .filter(report -> !report.getEnd().isBefore(middle))
+                .count();
+
+        final ReportCollector collector = new ReportCollector();
+        try (final Replay replay = Replay.builder(collector::accept)
+                .withRecordings(path)
+                .withSpeed(0.0)
+                .withStartTime(middle)
+                .build()) {
+            assertThat(replay.getRecordings().get(0).findBlock(middle.toEpochMilli()), greaterThan(0));
+
+            replay.start();
+            replay.join();
+            assertThat(replay.getReports(), is(expected));
+        }
+
+        collector.reports.values().stream().flatMap(List::stream)
+                .forEach(report -> assertThat(report.getEnd().isBefore(middle), is(false)));
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        final Path path1 = this.folder.getRoot().toPath().resolve("flows1.rec");
+        final Path path2 = this.folder.getRoot().toPath().resolve("flows2.rec");
+        final Map<Integer, List<FlowReport>> recorded = new ConcurrentHashMap<>();
+        recorded.putAll(this.record(path1, 0, 200));
+        recorded.putAll(this.record(path2, 10, 200));
+
+        final ReportCollector collector = new ReportCollector();
+        try (final Replay replay = Replay.builder(collector::accept).withRecordings(path1, path2).withSpeed(0.0).build()) {
+            replay.start();
+            replay.join();
+        }
+
+        assertThat(collector.reports.keySet().size(), is(4));
+        assertThat(collector.reports, is(recorded));
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        final Path path = this.folder.getRoot().toPath().resolve("flows.rec");
+        final long recorded = this.record(path, 0, 300).values().stream().mapToLong(List::size).sum();
+
+        final ReportCollector collector = new ReportCollector();
+        try (final Replay replay = Replay.builder(collector::accept).withRecordings(path).withSpeed(1.0).build()) {
+            replay.start();
+            Thread.sleep(500);
+            replay.stop();
+
+            final long started = System.nanoTime();
+            replay.join();
+            assertThat(System.nanoTime() - started, lessThan(Duration.ofSeconds(1).toNanos()));
+            // about half a second of 30 seconds recorded
+            assertThat(replay.getReports(), greaterThan(0L));
+            assertThat(replay.getReports(), lessThan(recorded / 10));
+        }
+    }
+}
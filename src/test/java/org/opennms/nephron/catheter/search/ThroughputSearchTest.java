@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2020 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2020 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.nephron.catheter.search;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.opennms.nephron.catheter.Exporter;
+import org.opennms.nephron.catheter.FlowGenerator;
+import org.opennms.nephron.catheter.Simulation;
+
+public class ThroughputSearchTest {
+
+    private static Simulation simulation() {
+        return Simulation.builder((exporter, report) -> {})
+                .withSeed(42L)
+                .withSpeed(1.0)
+                .withTickMs(Duration.ofMillis(10))
+                .withExporters(Exporter.builder()
+                        .withNodeId(1)
+                        .withForeignSource("exporters")
+                        .withForeignId("test1")
+                        .withGenerator(FlowGenerator.builder()
+                                .withBytesPerSecond(1_000_000L)
+                                .withMaxFlowCount(10)
+                                .withMinFlowDuration(Duration.ofMillis(10))
+                                .withMaxFlowDuration(Duration.ofMillis(50))
+                                .withActiveTimeout(Duration.ofMillis(20))))
+                .build();
+    }
+
+    @Test
+    public void testProbe() throws Exception {
+        final AtomicReference<Simulation> simulation = new AtomicReference<>(simulation());
+
+        // the pipeline pretends to fall behind at more than three times the configured rate
+        final ThroughputSearch search = ThroughputSearch.builder(SaturationSignal.probe(() -> simulation.get().getRateScale() > 3.0))
+                .withWarmup(Duration.ofMillis(20))
+                .withWindow(Duration.ofMillis(100))
+                .withPrecision(0.05)
+                .build();
+
+        final ThroughputSearch.Result result = search.run(simulation.get());
+
+        assertThat(result.isSaturationFound(), is(true));
+        assertThat(result.getSustainedScale(), closeTo(3.0, 0.15));
+        assertThat(result.getFlowsPerSecond(), greaterThan(0.0));
+        assertThat(result.getBytesPerSecond(), greaterThan(0.0));
+
+        // ramp 1, 2, 4 and bisect 3, 3.5, 3.25, 3.125
+        assertThat(result.getSteps().size(), is(7));
+
+        // the simulation was started by the search and is stopped again
+        assertThat(simulation.get().isRunning(), is(false));
+        assertThat(simulation.get().getRateScale(), is(1.0));
+
+        final StringBuilder report = new StringBuilder();
+        result.writeReport(report);
+        assertThat(report.toString().contains("sustained: scale=3.0000"), is(true));
+    }
+
+    @Test
+    public void testUnsaturated() throws Exception {
+        final Simulation simulation = simulation();
+
+        final ThroughputSearch search = ThroughputSearch.builder(SaturationSignal.probe(() -> false))
+                .withWarmup(Duration.ofMillis(10))
+                .withWindow(Duration.ofMillis(50))
+                .withMaxScale(4.0)
+                .build();
+
+        final ThroughputSearch.Result result = search.run(simulation);
+
+        assertThat(result.isSaturationFound(), is(false));
+        assertThat(result.getSustainedScale(), is(4.0));
+        assertThat(result.getSteps().size(), is(3));
+    }
+
+    @Test
+    public void testSaturatedAtInitialScale() throws Exception {
+        final AtomicReference<Simulation> simulation = new AtomicReference<>(simulation());
+
+        // the pipeline already falls behind at the initial scale and keeps up below 0.3
+        final ThroughputSearch search = ThroughputSearch.builder(SaturationSignal.probe(() -> simulation.get().getRateScale() > 0.3))
+                .withWarmup(Duration.ofMillis(10))
+                .withWindow(Duration.ofMillis(50))
+                .withPrecision(0.05)
+                .build();
+
+        final ThroughputSearch.Result result = search.run(simulation.get());
+
+        assertThat(result.isSaturationFound(), is(true));
+        assertThat(result.getSustainedScale(), closeTo(0.3, 0.3 * 0.05));
+        assertThat(result.getSustainedScale() <= 0.3, is(true));
+        assertThat(result.getFlowsPerSecond(), greaterThan(0.0));
+
+        // ramp 1, 0.5, 0.25 and bisect 0.375, 0.3125, 0.28125, 0.296875
+        assertThat(result.getSteps().size(), is(7));
+        assertThat(simulation.get().isRunning(), is(false));
+    }
+
+    @Test
+    public void testSaturatedAtMinScale() throws Exception {
+        final Simulation simulation = simulation();
+
+        final ThroughputSearch search = ThroughputSearch.builder(SaturationSignal.probe(() -> true))
+                .withWarmup(Duration.ofMillis(10))
+                .withWindow(Duration.ofMillis(50))
+                .withMinScale(0.25)
+                .build();
+
+        final ThroughputSearch.Result result = search.run(simulation);
+
+        assertThat(result.isSaturationFound(), is(true));
+        assertThat(result.getSustainedScale(), is(0.0));
+
+        // ramp 1, 0.5, 0.25
+        assertThat(result.getSteps().size(), is(3));
+        assertThat(simulation.isRunning(), is(false));
+
+        final StringBuilder report = new StringBuilder();
+        result.writeReport(report);
+        assertThat(report.toString().contains("saturated down to the minimum scale"), is(true));
+    }
+}